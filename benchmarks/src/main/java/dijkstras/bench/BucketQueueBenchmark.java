@@ -0,0 +1,70 @@
+/*
+ * Full single source searches with a comparison heap against the
+ * bucket queues: CsrDijkstras with its binary IndexedMinHeap, and
+ * BucketDijkstras with Dial's buckets and with a radix heap.  All the
+ * generated graphs and both sample files have whole number weights.
+ */
+package dijkstras.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BucketQueueBenchmark {
+
+	@State(Scope.Thread)
+	public static class Searchers {
+		Object binaryHeap;
+		Object dial;
+		Object radix;
+		int next;
+
+		@Setup(Level.Trial)
+		public void setUp(GraphState graph) throws Throwable{
+			binaryHeap = (Object)Repo.NEW_CSR_DIJKSTRAS.invokeExact(graph.csrGraph);
+			dial = (Object)Repo.NEW_BUCKET_DIJKSTRAS.invokeExact(graph.csrGraph, false);
+			radix = (Object)Repo.NEW_BUCKET_DIJKSTRAS.invokeExact(graph.csrGraph, true);
+		}
+
+		int nextSource(){
+			next = (next + 1) & (GraphState.PAIRS - 1);
+			return next;
+		}
+	}
+
+	@Benchmark
+	public double binaryHeap(GraphState graph, Searchers searchers) throws Throwable{
+		int k = searchers.nextSource();
+		Repo.CSR_RUN.invokeExact(searchers.binaryHeap, graph.sources[k]);
+		return (double)Repo.CSR_GET_DISTANCE.invokeExact(searchers.binaryHeap, graph.targets[k]);
+	}
+
+	@Benchmark
+	public double dial(GraphState graph, Searchers searchers) throws Throwable{
+		int k = searchers.nextSource();
+		Repo.BUCKET_RUN.invokeExact(searchers.dial, graph.sources[k]);
+		return (double)Repo.BUCKET_GET_DISTANCE.invokeExact(searchers.dial, graph.targets[k]);
+	}
+
+	@Benchmark
+	public double radixHeap(GraphState graph, Searchers searchers) throws Throwable{
+		int k = searchers.nextSource();
+		Repo.BUCKET_RUN.invokeExact(searchers.radix, graph.sources[k]);
+		return (double)Repo.BUCKET_GET_DISTANCE.invokeExact(searchers.radix, graph.targets[k]);
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Full single source searches over a CsrGraph against the same graph
+ * in a CompressedGraph, with float weights and with weights quantized
+ * at the given scale.  All the generated graphs and both sample files
+ * have whole number weights, so a scale of 1 loses nothing.  See
+ * FootprintBenchmark for the sizes.
+ */
+package dijkstras.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressedGraphBenchmark {
+
+	@State(Scope.Thread)
+	public static class Searchers {
+		@Param({"1"})
+		public double scale;
+
+		Object csr;
+		Object floats;
+		Object quantized;
+		int next;
+
+		@Setup(Level.Trial)
+		public void setUp(GraphState graph) throws Throwable{
+			csr = (Object)Repo.NEW_CSR_DIJKSTRAS.invokeExact(graph.csrGraph);
+			floats = (Object)Repo.NEW_COMPRESSED_DIJKSTRAS.invokeExact(
+					(Object)Repo.NEW_COMPRESSED_GRAPH.invokeExact(graph.csrGraph, 0.0));
+			quantized = (Object)Repo.NEW_COMPRESSED_DIJKSTRAS.invokeExact(
+					(Object)Repo.NEW_COMPRESSED_GRAPH.invokeExact(graph.csrGraph, scale));
+		}
+
+		int nextSource(){
+			next = (next + 1) & (GraphState.PAIRS - 1);
+			return next;
+		}
+	}
+
+	@Benchmark
+	public double csr(GraphState graph, Searchers searchers) throws Throwable{
+		int k = searchers.nextSource();
+		Repo.CSR_RUN.invokeExact(searchers.csr, graph.sources[k]);
+		return (double)Repo.CSR_GET_DISTANCE.invokeExact(searchers.csr, graph.targets[k]);
+	}
+
+	@Benchmark
+	public double compressedFloat(GraphState graph, Searchers searchers) throws Throwable{
+		int k = searchers.nextSource();
+		Repo.COMPRESSED_RUN.invokeExact(searchers.floats, graph.sources[k]);
+		return (double)Repo.COMPRESSED_GET_DISTANCE.invokeExact(searchers.floats, graph.targets[k]);
+	}
+
+	@Benchmark
+	public double compressedQuantized(GraphState graph, Searchers searchers) throws Throwable{
+		int k = searchers.nextSource();
+		Repo.COMPRESSED_RUN.invokeExact(searchers.quantized, graph.sources[k]);
+		return (double)Repo.COMPRESSED_GET_DISTANCE.invokeExact(searchers.quantized, graph.targets[k]);
+	}
+}
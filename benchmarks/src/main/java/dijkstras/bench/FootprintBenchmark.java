@@ -0,0 +1,110 @@
+/*
+ * How much heap a loaded graph keeps alive, as an AdjListGraph, as a
+ * CsrGraph and as a CompressedGraph with float or quantized weights.  Each iteration forces a collection, loads the graph,
+ * forces another collection and reports the difference in used heap,
+ * in total and per stored edge, as extra counters next to the time.
+ * Read the counters, not the time.
+ */
+package dijkstras.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class FootprintBenchmark {
+	@Param({"japan", "routers", "grid", "geometric", "er", "powerlaw"})
+	public String kind;
+
+	@Param({"100000"})
+	public int vertices;
+
+	private String file;
+	// Holds the last graph so it is still alive when heap is measured.
+	private Object graph;
+
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Footprint {
+		public long retainedBytes;
+		public double bytesPerEdge;
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws Throwable{
+		file = GraphGenerators.file(kind, vertices);
+	}
+
+	@Benchmark
+	public void adjListGraph(Footprint footprint) throws Throwable{
+		long before = usedHeap();
+		graph = Repo.loadGraph(file);
+		footprint.retainedBytes = usedHeap() - before;
+		// Undirected edges are stored once in each direction, as in a
+		// CsrGraph.
+		long arcs = (int)Repo.ADJ_NUM_EDGES.invokeExact(graph);
+		if (!(boolean)Repo.ADJ_IS_DIRECTED.invokeExact(graph)){
+			arcs *= 2;
+		}
+		footprint.bytesPerEdge = footprint.retainedBytes / (double)Math.max(1, arcs);
+		graph = null;
+	}
+
+	@Benchmark
+	public void csrGraph(Footprint footprint) throws Throwable{
+		long before = usedHeap();
+		graph = Repo.loadCsrGraph(file);
+		footprint.retainedBytes = usedHeap() - before;
+		int arcs = (int)Repo.CSR_NUM_ARCS.invokeExact(graph);
+		footprint.bytesPerEdge = footprint.retainedBytes / (double)Math.max(1, arcs);
+		graph = null;
+	}
+
+	// Only the compressed graph is kept; the CsrGraph it was built from
+	// is dropped before heap is measured.
+	@Benchmark
+	public void compressedFloat(Footprint footprint) throws Throwable{
+		compressed(footprint, 0);
+	}
+
+	@Benchmark
+	public void compressedQuantized(Footprint footprint) throws Throwable{
+		compressed(footprint, 1);
+	}
+
+	private void compressed(Footprint footprint, double scale) throws Throwable{
+		long before = usedHeap();
+		graph = (Object)Repo.NEW_COMPRESSED_GRAPH.invokeExact(Repo.loadCsrGraph(file), scale);
+		footprint.retainedBytes = usedHeap() - before;
+		int arcs = (int)Repo.COMPRESSED_NUM_ARCS.invokeExact(graph);
+		footprint.bytesPerEdge = footprint.retainedBytes / (double)Math.max(1, arcs);
+		graph = null;
+	}
+
+	private static long usedHeap(){
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		for (int k = 0; k < 3; k++){
+			System.gc();
+		}
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+}
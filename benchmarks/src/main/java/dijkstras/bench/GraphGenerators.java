@@ -0,0 +1,227 @@
+/*
+ * Synthetic graphs of any size for the benchmarks, written as edge
+ * list files (see EdgeListLoader) so that loading them is part of what
+ * gets measured.  Every generator is seeded, so a given kind, size and
+ * seed always gives the same file.
+ *
+ *  - grid:      a side x side grid, each cell joined to its 4
+ *               neighbours, like a city street map.  Undirected.
+ *  - geometric: random points in the unit square, joined when closer
+ *               than a radius picked for the wanted average degree.
+ *               Weights are the distances.  Undirected.
+ *  - er:        Erdos-Renyi, n * degree random directed edges.
+ *  - powerlaw:  preferential attachment (Barabasi-Albert): each new
+ *               vertex links to degree/2 old ones, picked in proportion
+ *               to their degree, so a few hubs get most edges.
+ *               Undirected.
+ *
+ * Usage: java dijkstras.bench.GraphGenerators <kind> <vertices> <file> [degree] [seed]
+ */
+package dijkstras.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+
+public final class GraphGenerators {
+	public static final int DEFAULT_DEGREE = 4;
+	public static final long DEFAULT_SEED = 42;
+
+	private GraphGenerators(){
+	}
+
+	/*
+	 * The file for a graph kind and size, generated the first time it
+	 * is asked for and reused afterwards.  "japan" and "routers" are the
+	 * two sample matrix files; their size is ignored.
+	 */
+	public static String file(String kind, int vertices) throws IOException{
+		Path dir = Paths.get(System.getProperty("java.io.tmpdir"), "dijkstras-bench");
+		Files.createDirectories(dir);
+		if (kind.equals("japan") || kind.equals("routers")){
+			String name = kind.equals("japan") ? "JapanCities.txt" : "Routers.txt";
+			Path out = dir.resolve(name);
+			if (!Files.exists(out)){
+				try (InputStream in = GraphGenerators.class.getResourceAsStream("/fixtures/" + name)){
+					if (in == null){
+						throw new IOException("Missing fixture " + name + ".");
+					}
+					Files.copy(in, out, StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+			return out.toString();
+		}
+		Path out = dir.resolve(kind + "-" + vertices + ".el");
+		if (!Files.exists(out)){
+			Path partial = dir.resolve(out.getFileName() + ".tmp");
+			generate(kind, vertices, DEFAULT_DEGREE, DEFAULT_SEED, partial);
+			Files.move(partial, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		return out.toString();
+	}
+
+	public static void generate(String kind, int vertices, int degree, long seed, Path out) throws IOException{
+		switch (kind){
+		case "grid":
+			grid((int)Math.max(1, Math.round(Math.sqrt(vertices))), seed, out);
+			break;
+		case "geometric":
+			geometric(vertices, degree, seed, out);
+			break;
+		case "er":
+			erdosRenyi(vertices, degree, seed, out);
+			break;
+		case "powerlaw":
+			powerLaw(vertices, degree, seed, out);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown graph kind " + kind + ".");
+		}
+	}
+
+	/*
+	 * A side x side grid with random integer weights from 1 to 100.
+	 */
+	public static void grid(int side, long seed, Path out) throws IOException{
+		Random random = new Random(seed);
+		try (BufferedWriter writer = Files.newBufferedWriter(out)){
+			writer.write("# undirected\n");
+			for (int r = 0; r < side; r++){
+				for (int c = 0; c < side; c++){
+					int v = r * side + c;
+					if (c + 1 < side){
+						edge(writer, v, v + 1, 1 + random.nextInt(100));
+					}
+					if (r + 1 < side){
+						edge(writer, v, v + side, 1 + random.nextInt(100));
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * n random points, joined when closer than r, where r is chosen so
+	 * the expected degree is degree.  Points are bucketed into cells of
+	 * size r so only nearby cells are compared.
+	 */
+	public static void geometric(int n, int degree, long seed, Path out) throws IOException{
+		Random random = new Random(seed);
+		double[] x = new double[n];
+		double[] y = new double[n];
+		for (int v = 0; v < n; v++){
+			x[v] = random.nextDouble();
+			y[v] = random.nextDouble();
+		}
+		double radius = Math.sqrt(degree / (Math.PI * Math.max(n, 1)));
+		int cells = Math.max(1, (int)(1 / radius));
+		// Counting sort of the points by cell.
+		int[] start = new int[cells * cells + 1];
+		for (int v = 0; v < n; v++){
+			start[cell(x[v], y[v], cells) + 1]++;
+		}
+		for (int c = 0; c < cells * cells; c++){
+			start[c + 1] += start[c];
+		}
+		int[] next = start.clone();
+		int[] byCell = new int[n];
+		for (int v = 0; v < n; v++){
+			byCell[next[cell(x[v], y[v], cells)]++] = v;
+		}
+		try (BufferedWriter writer = Files.newBufferedWriter(out)){
+			writer.write("# undirected\n");
+			for (int u = 0; u < n; u++){
+				int cx = Math.min(cells - 1, (int)(x[u] * cells));
+				int cy = Math.min(cells - 1, (int)(y[u] * cells));
+				for (int i = Math.max(0, cx - 1); i <= Math.min(cells - 1, cx + 1); i++){
+					for (int j = Math.max(0, cy - 1); j <= Math.min(cells - 1, cy + 1); j++){
+						int c = i * cells + j;
+						for (int k = start[c]; k < start[c + 1]; k++){
+							int v = byCell[k];
+							double d = Math.hypot(x[u] - x[v], y[u] - y[v]);
+							// Each pair once: only from the lower id.
+							if (u < v && d < radius){
+								edge(writer, u, v, Math.max(1, Math.round(d * 10000)));
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static int cell(double x, double y, int cells){
+		return Math.min(cells - 1, (int)(x * cells)) * cells + Math.min(cells - 1, (int)(y * cells));
+	}
+
+	/*
+	 * n * degree directed edges between uniformly random vertices, with
+	 * random integer weights from 1 to 1000.
+	 */
+	public static void erdosRenyi(int n, int degree, long seed, Path out) throws IOException{
+		Random random = new Random(seed);
+		long m = (long)n * degree;
+		try (BufferedWriter writer = Files.newBufferedWriter(out)){
+			writer.write("# directed\n");
+			for (long e = 0; e < m; e++){
+				int u = random.nextInt(n);
+				int v = random.nextInt(n);
+				if (u != v){
+					edge(writer, u, v, 1 + random.nextInt(1000));
+				}
+			}
+		}
+	}
+
+	/*
+	 * Preferential attachment.  Every edge end is written to a list, so
+	 * a uniform pick from the list picks a vertex in proportion to its
+	 * degree.
+	 */
+	public static void powerLaw(int n, int degree, long seed, Path out) throws IOException{
+		Random random = new Random(seed);
+		int links = Math.max(1, degree / 2);
+		int[] ends = new int[(int)Math.min(Integer.MAX_VALUE - 8, 2L * links * n + 2)];
+		int size = 0;
+		try (BufferedWriter writer = Files.newBufferedWriter(out)){
+			writer.write("# undirected\n");
+			for (int v = 1; v < n; v++){
+				for (int k = 0; k < links; k++){
+					int u = size == 0 ? 0 : ends[random.nextInt(size)];
+					if (u == v){
+						continue;
+					}
+					edge(writer, v, u, 1 + random.nextInt(100));
+					if (size + 2 <= ends.length){
+						ends[size++] = u;
+						ends[size++] = v;
+					}
+				}
+			}
+		}
+	}
+
+	private static void edge(BufferedWriter writer, int u, int v, long weight) throws IOException{
+		writer.write(Integer.toString(u));
+		writer.write(' ');
+		writer.write(Integer.toString(v));
+		writer.write(' ');
+		writer.write(Long.toString(weight));
+		writer.write('\n');
+	}
+
+	public static void main(String[] args) throws IOException{
+		if (args.length < 3){
+			System.out.println("Usage: java dijkstras.bench.GraphGenerators <grid|geometric|er|powerlaw> <vertices> <file> [degree] [seed]");
+			return;
+		}
+		int degree = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_DEGREE;
+		long seed = args.length > 4 ? Long.parseLong(args[4]) : DEFAULT_SEED;
+		generate(args[0], Integer.parseInt(args[1]), degree, seed, Paths.get(args[2]));
+	}
+}
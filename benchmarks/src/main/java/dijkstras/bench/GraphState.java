@@ -0,0 +1,49 @@
+/*
+ * The graph a benchmark runs on, picked by the "kind" and "vertices"
+ * parameters, e.g. -p kind=grid -p vertices=1000000.  See
+ * GraphGenerators for the kinds.  Both representations are loaded, and
+ * a fixed list of random vertex pairs is drawn so every run asks the
+ * same questions.
+ */
+package dijkstras.bench;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+public class GraphState {
+	static final int PAIRS = 1024;
+
+	@Param({"japan", "routers", "grid", "geometric", "er", "powerlaw"})
+	public String kind;
+
+	@Param({"100000"})
+	public int vertices;
+
+	String file;
+	Object adjListGraph;
+	Object csrGraph;
+	int numVertices;
+	int[] sources;
+	int[] targets;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Throwable{
+		file = GraphGenerators.file(kind, vertices);
+		adjListGraph = Repo.loadGraph(file);
+		csrGraph = (Object)Repo.CSR_FROM.invokeExact(adjListGraph);
+		numVertices = (int)Repo.CSR_NUM_VERTICES.invokeExact(csrGraph);
+		Random random = new Random(GraphGenerators.DEFAULT_SEED);
+		sources = new int[PAIRS];
+		targets = new int[PAIRS];
+		for (int k = 0; k < PAIRS; k++){
+			sources[k] = random.nextInt(numVertices);
+			targets[k] = random.nextInt(numVertices);
+		}
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Time to read a graph file: into an AdjListGraph with GraphMaker, into
+ * a CsrGraph with GraphMaker, and into a CsrGraph with the parallel
+ * loader.  The file is generated once, outside the measurement.
+ */
+package dijkstras.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadBenchmark {
+	@Param({"japan", "routers", "grid", "geometric", "er", "powerlaw"})
+	public String kind;
+
+	@Param({"100000"})
+	public int vertices;
+
+	private String file;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException{
+		file = GraphGenerators.file(kind, vertices);
+	}
+
+	@Benchmark
+	public Object adjListGraph() throws Throwable{
+		return Repo.loadGraph(file);
+	}
+
+	@Benchmark
+	public Object csrGraph() throws Throwable{
+		return Repo.loadCsrGraph(file);
+	}
+
+	@Benchmark
+	public Object csrGraphParallel() throws Throwable{
+		return Repo.loadCsrGraphParallel(file);
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * One source to target query at a time, cycling through a fixed list
+ * of random pairs: the early-stopping search on an AdjListGraph, and
+ * bidirectional search on the CsrGraph.
+ */
+package dijkstras.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+
+	// Search objects are per thread, like the classes expect.
+	@State(Scope.Thread)
+	public static class Searchers {
+		Object query;
+		Object bidirectional;
+		int next;
+
+		@Setup(Level.Trial)
+		public void setUp(GraphState graph) throws Throwable{
+			query = (Object)Repo.NEW_QUERY.invokeExact(graph.adjListGraph);
+			bidirectional = (Object)Repo.NEW_BIDIRECTIONAL.invokeExact(graph.csrGraph);
+		}
+
+		int nextPair(){
+			next = (next + 1) & (GraphState.PAIRS - 1);
+			return next;
+		}
+	}
+
+	@Benchmark
+	public double adjListQuery(GraphState graph, Searchers searchers) throws Throwable{
+		int k = searchers.nextPair();
+		Object result = (Object)Repo.QUERY.invokeExact(searchers.query, graph.sources[k], graph.targets[k]);
+		return (double)Repo.PATH_DISTANCE.invokeExact(result);
+	}
+
+	@Benchmark
+	public double csrBidirectionalQuery(GraphState graph, Searchers searchers) throws Throwable{
+		int k = searchers.nextPair();
+		Object result = (Object)Repo.BIDIRECTIONAL_QUERY.invokeExact(searchers.bidirectional,
+				graph.sources[k], graph.targets[k]);
+		return (double)Repo.PATH_DISTANCE.invokeExact(result);
+	}
+}
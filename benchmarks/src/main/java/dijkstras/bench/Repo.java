@@ -0,0 +1,132 @@
+/*
+ * The project's classes live in the default package, which JMH will
+ * not generate benchmarks for and which code in a named package cannot
+ * import.  This class looks them up once by name and exposes the calls
+ * the benchmarks need as method handles.  The handles are static final,
+ * so the JIT inlines them and a call costs the same as a direct one.
+ *
+ * Graphs and results are passed around as Object.
+ */
+package dijkstras.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+final class Repo {
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+	// new GraphMaker().makeGraphFromFile(String) -> AdjListGraph
+	static final MethodHandle MAKE_GRAPH = virtual("GraphMaker", "makeGraphFromFile", "AdjListGraph", String.class);
+	// new GraphMaker().makeCsrGraphFromFile(String) -> CsrGraph
+	static final MethodHandle MAKE_CSR_GRAPH = virtual("GraphMaker", "makeCsrGraphFromFile", "CsrGraph", String.class);
+	// new ParallelGraphLoader().load(String) -> CsrGraph
+	static final MethodHandle PARALLEL_LOAD = virtual("ParallelGraphLoader", "load", "CsrGraph", String.class);
+	static final MethodHandle NEW_GRAPH_MAKER = constructor("GraphMaker");
+	static final MethodHandle NEW_PARALLEL_LOADER = constructor("ParallelGraphLoader");
+
+	static final MethodHandle ADJ_NUM_VERTICES = virtual("AdjListGraph", "numVertices", int.class);
+	static final MethodHandle ADJ_NUM_EDGES = virtual("AdjListGraph", "numEdges", int.class);
+	static final MethodHandle ADJ_IS_DIRECTED = virtual("AdjListGraph", "isDirected", boolean.class);
+	static final MethodHandle ADJ_GET_VERTEX = virtual("AdjListGraph", "getVertex", "Vertex", int.class);
+	static final MethodHandle CSR_FROM = statik("CsrGraph", "from", "CsrGraph", "AdjListGraph");
+	static final MethodHandle CSR_NUM_VERTICES = virtual("CompactGraph", "numVertices", int.class);
+	static final MethodHandle CSR_NUM_ARCS = virtual("CompactGraph", "numArcs", int.class);
+
+	// new Dijkstras(arity, lazy).shortestPath(AdjListGraph, DijkstraVertex) -> SearchState
+	static final MethodHandle NEW_DIJKSTRAS = constructor("Dijkstras", int.class, boolean.class);
+	static final MethodHandle DIJKSTRAS_SHORTEST_PATH = virtual("Dijkstras", "shortestPath", "SearchState",
+			"AdjListGraph", "DijkstraVertex");
+	// new ShortestPathQuery(AdjListGraph).query(int, int) -> PathResult
+	static final MethodHandle NEW_QUERY = constructor("ShortestPathQuery", "AdjListGraph");
+	static final MethodHandle QUERY = virtual("ShortestPathQuery", "query", "PathResult", int.class, int.class);
+	// new CsrDijkstras(CompactGraph).run(int)
+	static final MethodHandle NEW_CSR_DIJKSTRAS = constructor("CsrDijkstras", "CompactGraph");
+	static final MethodHandle CSR_RUN = virtual("CsrDijkstras", "run", void.class, int.class);
+	static final MethodHandle CSR_GET_DISTANCE = virtual("CsrDijkstras", "getDistance", double.class, int.class);
+	// new BucketDijkstras(CompactGraph, radixHeap).run(int)
+	static final MethodHandle NEW_BUCKET_DIJKSTRAS = constructor("BucketDijkstras", "CompactGraph", boolean.class);
+	static final MethodHandle BUCKET_RUN = virtual("BucketDijkstras", "run", void.class, int.class);
+	static final MethodHandle BUCKET_GET_DISTANCE = virtual("BucketDijkstras", "getDistance", double.class, int.class);
+	// new CompressedDijkstras(new CompressedGraph(CompactGraph, scale)).run(int)
+	static final MethodHandle NEW_COMPRESSED_GRAPH = constructor("CompressedGraph", "CompactGraph", double.class);
+	static final MethodHandle COMPRESSED_NUM_ARCS = virtual("CompressedGraph", "numArcs", int.class);
+	static final MethodHandle NEW_COMPRESSED_DIJKSTRAS = constructor("CompressedDijkstras", "CompressedGraph");
+	static final MethodHandle COMPRESSED_RUN = virtual("CompressedDijkstras", "run", void.class, int.class);
+	static final MethodHandle COMPRESSED_GET_DISTANCE = virtual("CompressedDijkstras", "getDistance", double.class,
+			int.class);
+	// new BidirectionalDijkstras(CompactGraph).query(int, int) -> PathResult
+	static final MethodHandle NEW_BIDIRECTIONAL = constructor("BidirectionalDijkstras", "CompactGraph");
+	static final MethodHandle BIDIRECTIONAL_QUERY = virtual("BidirectionalDijkstras", "query", "PathResult",
+			int.class, int.class);
+	static final MethodHandle PATH_DISTANCE = virtual("PathResult", "getDistance", double.class);
+
+	private Repo(){
+	}
+
+	static Object loadGraph(String file) throws Throwable{
+		return (Object)MAKE_GRAPH.invokeExact(NEW_GRAPH_MAKER.invokeExact(), (Object)file);
+	}
+
+	static Object loadCsrGraph(String file) throws Throwable{
+		return (Object)MAKE_CSR_GRAPH.invokeExact(NEW_GRAPH_MAKER.invokeExact(), (Object)file);
+	}
+
+	static Object loadCsrGraphParallel(String file) throws Throwable{
+		return (Object)PARALLEL_LOAD.invokeExact(NEW_PARALLEL_LOADER.invokeExact(), (Object)file);
+	}
+
+	static Class<?> type(Object name){
+		if (name instanceof Class){
+			return (Class<?>)name;
+		}
+		try {
+			return Class.forName((String)name);
+		}
+		catch (ClassNotFoundException e){
+			throw new IllegalStateException("The dijkstras classes are not on the class path.", e);
+		}
+	}
+
+	private static Class<?>[] types(Object[] names){
+		Class<?>[] types = new Class<?>[names.length];
+		for (int k = 0; k < names.length; k++){
+			types[k] = type(names[k]);
+		}
+		return types;
+	}
+
+	// Handles are erased: every reference type, String included, becomes
+	// Object, and primitives stay as they are.  Callers must cast their
+	// arguments to match for invokeExact.
+	private static MethodHandle virtual(String owner, String name, Object returns, Object... parameters){
+		try {
+			MethodType type = MethodType.methodType(type(returns), types(parameters));
+			return LOOKUP.findVirtual(type(owner), name, type).asType(type.insertParameterTypes(0, Object.class).erase());
+		}
+		catch (ReflectiveOperationException e){
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static MethodHandle statik(String owner, String name, Object returns, Object... parameters){
+		try {
+			MethodType type = MethodType.methodType(type(returns), types(parameters));
+			return LOOKUP.findStatic(type(owner), name, type).asType(type.erase());
+		}
+		catch (ReflectiveOperationException e){
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static MethodHandle constructor(String owner, Object... parameters){
+		try {
+			MethodType type = MethodType.methodType(void.class, types(parameters));
+			return LOOKUP.findConstructor(type(owner), type).asType(
+					MethodType.methodType(Object.class, types(parameters)).erase());
+		}
+		catch (ReflectiveOperationException e){
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * A full single source search to every vertex: the original
+ * Dijkstras.shortestPath on the AdjListGraph, and CsrDijkstras on the
+ * CsrGraph.  Sources cycle through a fixed random list.
+ */
+package dijkstras.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SsspBenchmark {
+
+	@State(Scope.Thread)
+	public static class Searchers {
+		Object dijkstras;
+		Object csrDijkstras;
+		int next;
+
+		@Setup(Level.Trial)
+		public void setUp(GraphState graph) throws Throwable{
+			dijkstras = (Object)Repo.NEW_DIJKSTRAS.invokeExact(2, false);
+			csrDijkstras = (Object)Repo.NEW_CSR_DIJKSTRAS.invokeExact(graph.csrGraph);
+		}
+
+		int nextSource(){
+			next = (next + 1) & (GraphState.PAIRS - 1);
+			return next;
+		}
+	}
+
+	@Benchmark
+	public Object dijkstrasShortestPath(GraphState graph, Searchers searchers) throws Throwable{
+		int source = graph.sources[searchers.nextSource()];
+		Object vertex = (Object)Repo.ADJ_GET_VERTEX.invokeExact(graph.adjListGraph, source);
+		return (Object)Repo.DIJKSTRAS_SHORTEST_PATH.invokeExact(searchers.dijkstras, graph.adjListGraph, vertex);
+	}
+
+	@Benchmark
+	public double csrDijkstras(GraphState graph, Searchers searchers) throws Throwable{
+		int k = searchers.nextSource();
+		Repo.CSR_RUN.invokeExact(searchers.csrDijkstras, graph.sources[k]);
+		return (double)Repo.CSR_GET_DISTANCE.invokeExact(searchers.csrDijkstras, graph.targets[k]);
+	}
+}
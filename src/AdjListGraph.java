@@ -11,38 +11,65 @@ public class AdjListGraph implements Graph<Vertex>{
 	private boolean isDirected;
 	// Here's the adjacency list.
 	private ArrayList<Vertex> myVertices;
+	// Index of every vertex: vertex -> dense id (its position in 
+	// myVertices) and name -> id.  These make membership checks and
+	// lookups O(1) instead of scanning myVertices.
+	private HashMap<Vertex, Integer> myIds;
+	private HashMap<String, Integer> myNameIds;
+	// Bumped by every change to the edges, so cached answers can tell
+	// when they are stale.  Edges must be changed through the graph,
+	// not through Vertex directly, for this to be right.
+	private volatile long myVersion;
+	// Told about every change made through the graph.
+	private ArrayList<GraphListener> myListeners;
 	
 	public AdjListGraph(boolean directed){
 		isDirected = directed;
 		myVertices = new ArrayList<Vertex>();
+		myIds = new HashMap<Vertex, Integer>();
+		myNameIds = new HashMap<String, Integer>();
+		myListeners = new ArrayList<GraphListener>();
+	}
+	
+	public void addGraphListener(GraphListener listener){
+		myListeners.add(listener);
+	}
+	
+	public void removeGraphListener(GraphListener listener){
+		myListeners.remove(listener);
+	}
+	
+	// Tell the listeners about a change to the edge from i to j, and to
+	// the edge back for undirected graphs.
+	private void fireEdgeChanged(Vertex i, Vertex j, double oldWeight, double newWeight){
+		for (GraphListener listener : myListeners){
+			listener.edgeChanged(i, j, oldWeight, newWeight);
+			if (!isDirected && i != j){
+				listener.edgeChanged(j, i, oldWeight, newWeight);
+			}
+		}
 	}
 	
 	/*
 	 * Add an edge between 2 vertices
 	 */
 	public void addEdge(Vertex i, Vertex j) throws IllegalVertexException{
-		if (myVertices.contains(i) && myVertices.contains(j)){
-			i.addEdge(j);
-			// Non-directed graphs have 2-way edges
-			if (!isDirected){
-				j.addEdge(i);
-			}
-		}
-		else{
-			throw new IllegalVertexException("Add edge failed.");
-		}
+		addEdge(i, j, 1.0);
 	}
 	
 	/*
 	 * Add an edge of given length between 2 vertices
 	 */
 	public void addEdge(Vertex i, Vertex j, double length) throws IllegalVertexException{
-		if (myVertices.contains(i) && myVertices.contains(j)){
+		if (myIds.containsKey(i) && myIds.containsKey(j)){
+			double oldLength = i.getEdgeWeight(j);
 			i.addEdge(j,length);
 			// Non-directed graphs have 2-way edges
 			if (!isDirected){
 				j.addEdge(i,length);
 			}
+			myVersion++;
+			fireEdgeChanged(i, j, oldLength, length);
 		}
 		else{
 			throw new IllegalVertexException("Add edge failed.");
@@ -50,18 +77,72 @@ public class AdjListGraph implements Graph<Vertex>{
 	}
 	
 	/*
-	 * Add a vertex.
+	 * Add a vertex.  The vertex gets the next free id.  Adding a vertex
+	 * that is already in the graph does nothing.  If two vertices share
+	 * a name, looking up the name finds the first one.
 	 */
 	public Vertex addVertex(Vertex v){
-		myVertices.add(v);
+		if (!myIds.containsKey(v)){
+			int id = myVertices.size();
+			myVertices.add(v);
+			myIds.put(v, id);
+			myNameIds.putIfAbsent(v.getName(), id);
+			myVersion++;
+			for (GraphListener listener : myListeners){
+				listener.vertexAdded(v);
+			}
+		}
 		return v;
 	}
 	
+	/*
+	 * Determine whether or not a vertex is in the graph.
+	 */
+	public boolean containsVertex(Vertex v){
+		return myIds.containsKey(v);
+	}
+	
+	/*
+	 * Returns the id of a vertex, or -1 if it is not in the graph.
+	 * Ids run from 0 to numVertices()-1 and match the order of 
+	 * getVertices().
+	 */
+	public int indexOf(Vertex v){
+		Integer id = myIds.get(v);
+		return id == null ? -1 : id;
+	}
+	
+	/*
+	 * Returns the id of the vertex with the given name, or -1.
+	 */
+	public int indexOf(String name){
+		Integer id = myNameIds.get(name);
+		return id == null ? -1 : id;
+	}
+	
+	/*
+	 * Returns the vertex with the given id.
+	 */
+	public Vertex getVertex(int id) throws IllegalVertexException{
+		if (id < 0 || id >= myVertices.size()){
+			throw new IllegalVertexException("getVertex failed.");
+		}
+		return myVertices.get(id);
+	}
+	
+	/*
+	 * Returns the vertex with the given name, or null if there is none.
+	 */
+	public Vertex getVertex(String name){
+		Integer id = myNameIds.get(name);
+		return id == null ? null : myVertices.get(id);
+	}
+	
 	/*
 	 * Determine whether or not an edge exists between 2 vertices
 	 */
 	public boolean edgeExists(Vertex i, Vertex j)throws IllegalVertexException{
-		if (myVertices.contains(i)&& myVertices.contains(j)){
+		if (myIds.containsKey(i)&& myIds.containsKey(j)){
 			return  i.hasEdge(j);
 		}
 		else{
@@ -77,7 +158,7 @@ public class AdjListGraph implements Graph<Vertex>{
 	 * Gets all vertices that vertex v points to.
 	 */
 	public Collection<Vertex> getAdjacentVertices(Vertex v) throws IllegalVertexException{
-		if (myVertices.contains(v)){
+		if (myIds.containsKey(v)){
 			return v.getAdjacentVertices();
 		}
 		else{
@@ -85,24 +166,28 @@ public class AdjListGraph implements Graph<Vertex>{
 		}
 	}
 	
+	/*
+	 * Gets all vertices that have an edge to vertex v.
+	 */
+	public Collection<Vertex> getIncomingVertices(Vertex v) throws IllegalVertexException{
+		if (myIds.containsKey(v)){
+			return v.getIncomingVertices();
+		}
+		else{
+			throw new IllegalVertexException("get incoming failed");
+		}
+	}
+	
 	/*
 	 * Computes the in-degree of a vertex.  The in-degree is the number
 	 * of vertices with edges that lead to the given vertex.
 	 */
 	public int inDegree(Vertex v) throws IllegalVertexException{
-		if (!myVertices.contains(v)){
+		if (!myIds.containsKey(v)){
 			throw new IllegalVertexException("in Degree failed.");
 		}
 		else{
-			int inDegree = 0;
-			for (Vertex i: myVertices){
-				for(Vertex j: i.getAdjacentVertices()){
-					if (j == v){
-						inDegree++;
-					}
-				}
-			}
-			return inDegree;
+			return v.getIncomingVertices().size();
 		}
 	}
 	
@@ -111,7 +196,7 @@ public class AdjListGraph implements Graph<Vertex>{
 	 * is the number of outgoing edges of vertex v.
 	 */
 	public int outDegree(Vertex v) throws IllegalVertexException{
-		if (!myVertices.contains(v)){
+		if (!myIds.containsKey(v)){
 			throw new IllegalVertexException("out degree failed");
 		}
 		else{
@@ -123,6 +208,14 @@ public class AdjListGraph implements Graph<Vertex>{
 		return isDirected;
 	}
 	
+	/*
+	 * Returns a number that changes whenever an edge is added, removed
+	 * or reweighted, or a vertex is added or removed.
+	 */
+	public long getVersion(){
+		return myVersion;
+	}
+	
 	/*
 	 * Computes the total number of edges in the graph.
 	 */
@@ -130,6 +223,11 @@ public class AdjListGraph implements Graph<Vertex>{
 		int edges =0;
 		for(Vertex v: myVertices){
 			edges += outDegree(v);
+			// A self-loop has no edge going back,
+			// so count it twice to halve it below.
+			if (!this.isDirected() && v.hasEdge(v)){
+				edges++;
+			}
 		}
 		// For an undirected graph, I have added 
 		// directed edges that go back.  So the 
@@ -152,11 +250,14 @@ public class AdjListGraph implements Graph<Vertex>{
 	 * For undirected graphs, we must also remove the edge from j to i.
 	 */
 	public void removeEdge(Vertex i, Vertex j) throws IllegalVertexException{
-		if (myVertices.contains(i) && myVertices.contains(j) && i.hasEdge(j)){
+		if (myIds.containsKey(i) && myIds.containsKey(j) && i.hasEdge(j)){
+			double oldLength = i.getEdgeWeight(j);
 			i.removeEdge(j);
 			if (!isDirected){
 				j.removeEdge(i);
 			}
+			myVersion++;
+			fireEdgeChanged(i, j, oldLength, Double.POSITIVE_INFINITY);
 		}
 		else{
 			throw new IllegalVertexException("Remove Edge Failed.");
@@ -165,14 +266,32 @@ public class AdjListGraph implements Graph<Vertex>{
 	
 	/*
 	 * Remove a vertex.  Assumes given vertex is in the graph.
+	 * 
+	 * To keep ids dense, the last vertex moves into the removed vertex's
+	 * id, so removing a vertex changes the order of getVertices().
 	 */
 	public void removeVertex(Vertex v) throws IllegalVertexException{
-		if (myVertices.contains(v)){
-			myVertices.remove(v);
+		if (myIds.containsKey(v)){
+			int id = myIds.remove(v);
+			myNameIds.remove(v.getName(), id);
+			Vertex last = myVertices.remove(myVertices.size() - 1);
+			if (last != v){
+				myVertices.set(id, last);
+				myIds.put(last, id);
+				myNameIds.replace(last.getName(), myVertices.size(), id);
+			}
 			// I also have to remove everyone else's edges to the now
-			// defunct vertex.
-			for (Vertex i: myVertices){
-				if (i.hasEdge(v)) i.removeEdge(v);
+			// defunct vertex, and its edges out, so no vertex still 
+			// lists it as incoming.  Copies, since removing edits both.
+			for (Vertex i: new ArrayList<Vertex>(v.getIncomingVertices())){
+				i.removeEdge(v);
+			}
+			for (Vertex j: new ArrayList<Vertex>(v.getAdjacentVertices())){
+				v.removeEdge(j);
+			}
+			myVersion++;
+			for (GraphListener listener : myListeners){
+				listener.vertexRemoved(v);
 			}
 		}
 		else{
@@ -185,7 +304,7 @@ public class AdjListGraph implements Graph<Vertex>{
 	 * vertices exist, and throws exception if not.
 	 */
 	public double getWeight(Vertex i, Vertex j) throws IllegalVertexException {
-		if(myVertices.contains(i)){
+		if(myIds.containsKey(i)){
 			return i.getEdgeWeight(j);
 		}
 		else{
@@ -0,0 +1,143 @@
+/*
+ * Computes shortest paths between every pair of vertices by running 
+ * one CsrDijkstras per source on a ForkJoinPool.  Each worker thread 
+ * keeps its own search state, and every finished row goes straight 
+ * into a memory-mapped MappedMatrix file instead of a heap array, so
+ * the output can be much larger than the heap.
+ * 
+ * Either matrix can be left out: the distance matrix (float or double,
+ * infinity where there is no path) and the predecessor matrix (int, 
+ * pred[s][v] is the vertex before v on the path from s, or -1).
+ * 
+ * Usage: java AllPairsShortestPaths <graph file> <distance file|-> <predecessor file|-> [float|double]
+ */
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+public class AllPairsShortestPaths {
+	private final CompactGraph graph;
+	private Path distanceFile;
+	private int distanceType = MappedMatrix.FLOAT;
+	private Path predecessorFile;
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+	private long progressMillis = 5000;
+	
+	public AllPairsShortestPaths(CompactGraph graph){
+		this.graph = graph;
+	}
+	
+	/*
+	 * Write distances to the given file as MappedMatrix.FLOAT or 
+	 * MappedMatrix.DOUBLE.  A null file skips the distance matrix.
+	 */
+	public void setDistanceFile(Path file, int type){
+		if (type != MappedMatrix.FLOAT && type != MappedMatrix.DOUBLE){
+			throw new IllegalArgumentException("Distances must be FLOAT or DOUBLE.");
+		}
+		distanceFile = file;
+		distanceType = type;
+	}
+	
+	/*
+	 * Write predecessors to the given file.  A null file skips them.
+	 */
+	public void setPredecessorFile(Path file){
+		predecessorFile = file;
+	}
+	
+	public void setPool(ForkJoinPool pool){
+		this.pool = pool;
+	}
+	
+	/*
+	 * How often to print progress; 0 turns it off.
+	 */
+	public void setProgressMillis(long millis){
+		progressMillis = millis;
+	}
+	
+	public void run() throws IOException, InterruptedException{
+		int n = graph.numVertices();
+		MappedMatrix distances = distanceFile == null ? null : MappedMatrix.create(distanceFile, n, distanceType);
+		MappedMatrix predecessors = predecessorFile == null ? null : MappedMatrix.create(predecessorFile, n, MappedMatrix.INT);
+		ThreadLocal<CsrDijkstras> engines = ThreadLocal.withInitial(() -> new CsrDijkstras(graph));
+		AtomicInteger done = new AtomicInteger();
+		long start = System.nanoTime();
+		
+		try {
+			ForkJoinTask<?> task = pool.submit(() -> IntStream.range(0, n).parallel().forEach(s -> {
+				CsrDijkstras sssp = engines.get();
+				sssp.run(s);
+				for (int v = 0; v < n; v++){
+					if (distances != null){
+						distances.setDouble(s, v, sssp.getDistance(v));
+					}
+					if (predecessors != null){
+						predecessors.setInt(s, v, sssp.getParent(v));
+					}
+				}
+				done.incrementAndGet();
+			}));
+			
+			while (true){
+				try {
+					if (progressMillis > 0){
+						task.get(progressMillis, TimeUnit.MILLISECONDS);
+					}
+					else{
+						task.get();
+					}
+					break;
+				}
+				catch (TimeoutException e){
+					report(done.get(), n, start);
+				}
+				catch (ExecutionException e){
+					throw new IllegalStateException("All pairs search failed.", e.getCause());
+				}
+			}
+			if (progressMillis > 0){
+				report(n, n, start);
+			}
+		}
+		finally {
+			if (distances != null){
+				distances.close();
+			}
+			if (predecessors != null){
+				predecessors.close();
+			}
+		}
+	}
+	
+	private void report(int done, int n, long start){
+		double seconds = (System.nanoTime() - start) / 1e9;
+		double rate = done / Math.max(seconds, 1e-9);
+		System.out.printf("%,d of %,d sources (%.1f%%), %,.1f sources/sec, %,.0f edges/sec%n", 
+				done, n, 100.0 * done / Math.max(n, 1), rate, rate * graph.numArcs());
+	}
+	
+	public static void main(String[] args) throws IOException, InterruptedException{
+		if (args.length < 3){
+			System.out.println("Usage: java AllPairsShortestPaths <graph file> <distance file|-> <predecessor file|-> [float|double]");
+			return;
+		}
+		AllPairsShortestPaths apsp = new AllPairsShortestPaths(new GraphMaker().makeCsrGraphFromFile(args[0]));
+		if (!args[1].equals("-")){
+			boolean isDouble = args.length > 3 && args[3].equals("double");
+			apsp.setDistanceFile(Paths.get(args[1]), isDouble ? MappedMatrix.DOUBLE : MappedMatrix.FLOAT);
+		}
+		if (!args[2].equals("-")){
+			apsp.setPredecessorFile(Paths.get(args[2]));
+		}
+		apsp.run();
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * A* search guided by landmark lower bounds (ALT).  Vertices are 
+ * taken from the heap in order of d(s,v) plus the landmark bound on
+ * d(v,t), so the search heads toward the target instead of growing 
+ * a ball around the source.  The landmark bounds are consistent, so
+ * the answer is exact and the search can stop when the target is 
+ * settled, just like plain Dijkstra.
+ * 
+ * An AltDijkstras object is not thread-safe; use one per thread.  The
+ * Landmarks can be shared.
+ */
+public class AltDijkstras {
+	private final CompactGraph graph;
+	private final Landmarks landmarks;
+	private final SearchState state;
+	private int settled;
+	
+	public AltDijkstras(CompactGraph graph, Landmarks landmarks){
+		if (landmarks.numVertices() != graph.numVertices() && landmarks.count() > 0){
+			throw new IllegalArgumentException("Landmarks were computed for a different graph.");
+		}
+		this.graph = graph;
+		this.landmarks = landmarks;
+		state = new SearchState();
+	}
+	
+	public CompactGraph getGraph(){
+		return graph;
+	}
+	
+	/*
+	 * Number of vertices settled during the last query.
+	 */
+	public int getSettledCount(){
+		return settled;
+	}
+	
+	public PathResult query(int source, int target){
+		int n = graph.numVertices();
+		if (source < 0 || source >= n || target < 0 || target >= n){
+			throw new IllegalVertexException("query failed.");
+		}
+		long start = Instrumentation.ENABLED ? System.nanoTime() : 0;
+		state.reset(n);
+		settled = 0;
+		IndexedMinHeap pq = state.heap();
+		state.relax(source, 0, -1, landmarks.lowerBound(source, target));
+		
+		while (!pq.isEmpty()){
+			int u = pq.pollMin();
+			settled++;
+			if (u == target){
+				break;
+			}
+			double du = state.getDistance(u);
+			for (int e = graph.edgeBegin(u), end = graph.edgeEnd(u); e < end; e++){
+				int v = graph.target(e);
+				double dv = du + graph.weight(e);
+				if (dv < state.getDistance(v)){
+					double bound = landmarks.lowerBound(v, target);
+					// An infinite bound means v cannot reach the target.
+					if (bound != Double.POSITIVE_INFINITY){
+						state.relax(v, dv, u, dv + bound);
+					}
+				}
+			}
+		}
+		PathResult result = state.toPath(source, target);
+		if (Instrumentation.ENABLED){
+			Instrumentation.record("alt", start, source, target, result.getDistance(), state);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,303 @@
+/*
+ * Answers a whole file of source to target queries in one run.  The
+ * queries are grouped by source, and one search per source answers
+ * every target asked for with it; the search stops once all of them
+ * are settled.  Groups run in parallel on a pool of worker threads,
+ * and the answers are written in the same order as the queries while
+ * later groups are still running.
+ *
+ * The query file has one query per line: the names of the source and
+ * target vertices.  Blank lines and lines starting with # are skipped.
+ * Each answer line is "source target distance path", with the path
+ * written as in Dijkstras (names joined by ::), or "unreachable" or
+ * "unknown" in place of the distance.
+ *
+ * The latency of a query is the time from the start of its group's
+ * search until its answer is ready.  Queries naming an unknown vertex
+ * need no search, so they are counted apart and left out of the
+ * latencies and the query rate.
+ *
+ * Usage: java BatchQueryRunner <graph file> <query file> [output file|-] [threads]
+ */
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class BatchQueryRunner {
+	private final CsrGraph graph;
+	private final int threads;
+	private boolean printPaths = true;
+	// Marks the targets of the group a thread is searching: the entry
+	// for v is the group number plus one.  Each run has its own pool,
+	// so marks never carry over from an earlier run.
+	private final ThreadLocal<int[]> marks;
+
+	// Latencies of the answered queries of the last run.
+	private long[] latencies = new long[0];
+	private int unknownQueries;
+	private double seconds;
+
+	public BatchQueryRunner(CsrGraph graph, int threads){
+		if (threads < 1){
+			throw new IllegalArgumentException("Need at least one thread.");
+		}
+		this.graph = graph;
+		this.threads = threads;
+		marks = ThreadLocal.withInitial(() -> new int[graph.numVertices()]);
+	}
+
+	/*
+	 * Whether answers include the path or only the distance.
+	 */
+	public void setPrintPaths(boolean printPaths){
+		this.printPaths = printPaths;
+	}
+
+	/*
+	 * Answer every query read from in, writing one line per query to
+	 * out.  Returns the number of queries.
+	 */
+	public int run(Reader in, PrintWriter out) throws IOException{
+		// Read the queries, and group their indexes by source in the
+		// order each source first appears.
+		ArrayList<String> sourceNames = new ArrayList<String>();
+		ArrayList<String> targetNames = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(in);
+		String line;
+		while ((line = reader.readLine()) != null){
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")){
+				continue;
+			}
+			String[] tokens = line.split("\\s+");
+			if (tokens.length < 2){
+				throw new IOException("Query needs a source and a target: " + line);
+			}
+			sourceNames.add(tokens[0]);
+			targetNames.add(tokens[1]);
+		}
+		int count = sourceNames.size();
+		int[] sources = new int[count];
+		int[] targets = new int[count];
+		int[] groupOf = new int[count];
+		LinkedHashMap<Integer, IntList> bySource = new LinkedHashMap<Integer, IntList>();
+		for (int q = 0; q < count; q++){
+			sources[q] = graph.indexOf(sourceNames.get(q));
+			targets[q] = graph.indexOf(targetNames.get(q));
+			if (sources[q] >= 0 && targets[q] >= 0){
+				bySource.computeIfAbsent(sources[q], s -> new IntList()).add(q);
+			}
+		}
+		IntList[] groups = bySource.values().toArray(new IntList[0]);
+		int[] remaining = new int[groups.length];
+		Arrays.fill(groupOf, -1);
+		for (int g = 0; g < groups.length; g++){
+			remaining[g] = groups[g].size();
+			for (int k = 0; k < groups[g].size(); k++){
+				groupOf[groups[g].get(k)] = g;
+			}
+		}
+
+		unknownQueries = 0;
+		for (int q = 0; q < count; q++){
+			if (groupOf[q] < 0){
+				unknownQueries++;
+			}
+		}
+		long[] queryLatencies = new long[count];
+		long start = System.nanoTime();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			ArrayList<Future<String[]>> answers = new ArrayList<Future<String[]>>(groups.length);
+			for (int g = 0; g < groups.length; g++){
+				int group = g;
+				answers.add(pool.submit(() -> answerGroup(group, groups[group], sources, targets, queryLatencies)));
+			}
+			// Write in query order.  Waiting on a group only blocks until
+			// that group is done; later groups keep running meanwhile.
+			int[] slot = new int[groups.length];
+			for (int q = 0; q < count; q++){
+				int g = groupOf[q];
+				if (g < 0){
+					out.println(sourceNames.get(q) + " " + targetNames.get(q) + " unknown");
+					continue;
+				}
+				out.println(answers.get(g).get()[slot[g]++]);
+				if (--remaining[g] == 0){
+					// Let the finished group's answers be collected.
+					answers.set(g, null);
+				}
+			}
+			out.flush();
+		}
+		catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new IOException("Batch interrupted.", e);
+		}
+		catch (ExecutionException e){
+			if (e.getCause() instanceof RuntimeException){
+				throw (RuntimeException)e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+		finally {
+			pool.shutdownNow();
+		}
+		seconds = (System.nanoTime() - start) / 1e9;
+		latencies = new long[count - unknownQueries];
+		for (int q = 0, k = 0; q < count; q++){
+			if (groupOf[q] >= 0){
+				latencies[k++] = queryLatencies[q];
+			}
+		}
+		return count;
+	}
+
+	// One search from the group's source that stops when every target
+	// in the group is settled.  Returns the answer lines in the order of
+	// the group's queries.
+	private String[] answerGroup(int group, IntList queries, int[] sources, int[] targets, long[] queryLatencies){
+		long start = System.nanoTime();
+		int source = sources[queries.get(0)];
+		int[] mark = marks.get();
+		int pending = 0;
+		for (int k = 0; k < queries.size(); k++){
+			int t = targets[queries.get(k)];
+			if (mark[t] != group + 1){
+				mark[t] = group + 1;
+				pending++;
+			}
+		}
+		SearchState state = SearchState.local();
+		state.reset(graph.numVertices());
+		state.relax(source, 0, -1);
+		IndexedMinHeap pq = state.heap();
+		while (pending > 0 && !pq.isEmpty()){
+			int u = pq.pollMin();
+			if (mark[u] == group + 1){
+				pending--;
+			}
+			double du = state.getDistance(u);
+			for (int e = graph.edgeBegin(u), end = graph.edgeEnd(u); e < end; e++){
+				state.relax(graph.target(e), du + graph.weight(e), u);
+			}
+		}
+		if (Instrumentation.ENABLED){
+			Instrumentation.record("batch", start, source, -1, 0, state);
+		}
+
+		String[] lines = new String[queries.size()];
+		for (int k = 0; k < queries.size(); k++){
+			int q = queries.get(k);
+			lines[k] = format(state.toPath(source, targets[q]));
+			queryLatencies[q] = System.nanoTime() - start;
+		}
+		return lines;
+	}
+
+	private String format(PathResult result){
+		StringBuilder line = new StringBuilder();
+		line.append(graph.getName(result.getSource())).append(' ').append(graph.getName(result.getTarget())).append(' ');
+		if (!result.isReachable()){
+			return line.append("unreachable").toString();
+		}
+		line.append(result.getDistance());
+		if (printPaths){
+			line.append(' ');
+			for (int k = 0; k < result.length(); k++){
+				if (k > 0){
+					line.append("::");
+				}
+				line.append(graph.getName(result.getVertex(k)));
+			}
+		}
+		return line.toString();
+	}
+
+	/*
+	 * Queries of the last run that were searched and answered.
+	 */
+	public int getAnsweredQueries(){
+		return latencies.length;
+	}
+
+	/*
+	 * Queries of the last run that named a vertex not in the graph.
+	 */
+	public int getUnknownQueries(){
+		return unknownQueries;
+	}
+
+	/*
+	 * Answered queries per second over the last run, counting the time
+	 * from the first search to the last answer written.
+	 */
+	public double getQueriesPerSecond(){
+		return seconds > 0 ? latencies.length / seconds : 0;
+	}
+
+	/*
+	 * The given percentile (0 to 100) of the latency of the answered
+	 * queries in the last run, in microseconds.
+	 */
+	public double getLatencyPercentile(double percentile){
+		if (latencies.length == 0){
+			return 0;
+		}
+		long[] sorted = latencies.clone();
+		Arrays.sort(sorted);
+		int k = (int)Math.ceil(percentile / 100 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(k, sorted.length - 1))] / 1e3;
+	}
+
+	public static void main(String[] args) throws IOException{
+		if (args.length < 2){
+			System.out.println("Usage: java BatchQueryRunner <graph file> <query file> [output file|-] [threads]");
+			return;
+		}
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		CsrGraph graph = new GraphMaker().makeCsrGraphFromFile(args[0]);
+		BatchQueryRunner runner = new BatchQueryRunner(graph, threads);
+		boolean toFile = args.length > 2 && !args[2].equals("-");
+		try (Reader in = new FileReader(args[1])){
+			PrintWriter out = new PrintWriter(new BufferedWriter(toFile ? new FileWriter(args[2])
+					: new OutputStreamWriter(System.out)));
+			int count;
+			try {
+				count = runner.run(in, out);
+			}
+			finally {
+				// Closing would close System.out too.
+				if (toFile){
+					out.close();
+				}
+				else{
+					out.flush();
+				}
+			}
+			System.err.printf("%,d queries on %d threads: %,.0f queries/sec%n",
+					count, threads, runner.getQueriesPerSecond());
+			if (runner.getUnknownQueries() > 0){
+				System.err.printf("%,d queries named unknown vertices%n", runner.getUnknownQueries());
+			}
+			System.err.printf("latency p50 %.1fus  p90 %.1fus  p99 %.1fus  max %.1fus%n",
+					runner.getLatencyPercentile(50), runner.getLatencyPercentile(90),
+					runner.getLatencyPercentile(99), runner.getLatencyPercentile(100));
+			if (Instrumentation.ENABLED){
+				System.err.print(Instrumentation.summary());
+			}
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Point-to-point Dijkstra that searches forward from the source and 
+ * backward from the target at the same time, over the reverse graph.
+ * Each side only has to grow a ball of about half the source to 
+ * target distance, so far fewer vertices are settled than by a 
+ * forward search on its own.
+ * 
+ * mu is the length of the best path seen where the two searches 
+ * touch.  The search stops once the smallest keys in the two heaps 
+ * add up to at least mu, since no shorter path can be found after that.
+ * 
+ * A BidirectionalDijkstras object is not thread-safe; use one per thread.
+ */
+public class BidirectionalDijkstras {
+	private final CompactGraph graph;
+	private final CompactGraph reverse;
+	private final SearchState forward;
+	private final SearchState backward;
+	private int settled;
+	
+	public BidirectionalDijkstras(CompactGraph graph){
+		this.graph = graph;
+		this.reverse = graph.reverse();
+		forward = new SearchState();
+		backward = new SearchState();
+	}
+	
+	public CompactGraph getGraph(){
+		return graph;
+	}
+	
+	/*
+	 * Number of vertices settled by both sides during the last query.
+	 */
+	public int getSettledCount(){
+		return settled;
+	}
+	
+	public PathResult query(int source, int target){
+		int n = graph.numVertices();
+		if (source < 0 || source >= n || target < 0 || target >= n){
+			throw new IllegalVertexException("query failed.");
+		}
+		long start = Instrumentation.ENABLED ? System.nanoTime() : 0;
+		forward.reset(n);
+		backward.reset(n);
+		forward.relax(source, 0, -1);
+		backward.relax(target, 0, -1);
+		IndexedMinHeap forwardHeap = forward.heap();
+		IndexedMinHeap backwardHeap = backward.heap();
+		settled = 0;
+		
+		double mu = source == target ? 0 : Double.POSITIVE_INFINITY;
+		int meet = source == target ? source : -1;
+		
+		while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()){
+			double forwardMin = forwardHeap.peekMinKey();
+			double backwardMin = backwardHeap.peekMinKey();
+			if (forwardMin + backwardMin >= mu){
+				break;
+			}
+			// Grow whichever side is closer to its start.
+			boolean isForward = forwardMin <= backwardMin;
+			SearchState mine = isForward ? forward : backward;
+			SearchState other = isForward ? backward : forward;
+			CompactGraph g = isForward ? graph : reverse;
+			
+			int u = mine.heap().pollMin();
+			settled++;
+			double du = mine.getDistance(u);
+			for (int e = g.edgeBegin(u), end = g.edgeEnd(u); e < end; e++){
+				int v = g.target(e);
+				double dv = du + g.weight(e);
+				mine.relax(v, dv, u);
+				if (other.isReached(v)){
+					double through = dv + other.getDistance(v);
+					if (through < mu){
+						mu = through;
+						meet = v;
+					}
+				}
+			}
+		}
+		
+		if (Instrumentation.ENABLED){
+			Instrumentation.record("bidirectional", start, source, target, mu, forward, backward);
+		}
+		if (meet < 0){
+			return new PathResult(source, target, Double.POSITIVE_INFINITY, new int[0]);
+		}
+		// The forward parents lead back to the source and the backward 
+		// parents lead on to the target.
+		PathResult head = forward.toPath(source, meet);
+		int length = head.length();
+		for (int v = backward.getParent(meet); v >= 0; v = backward.getParent(v)){
+			length++;
+		}
+		int[] path = new int[length];
+		int k = 0;
+		for (; k < head.length(); k++){
+			path[k] = head.getVertex(k);
+		}
+		for (int v = backward.getParent(meet); v >= 0; v = backward.getParent(v)){
+			path[k++] = v;
+		}
+		return new PathResult(source, target, mu, path);
+	}
+}
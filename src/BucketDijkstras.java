@@ -0,0 +1,174 @@
+/*
+ * Dijkstra's algorithm for graphs whose weights are all non-negative
+ * whole numbers, using a MonotoneQueue in place of the comparison
+ * heap.  When no edge weighs more than DIAL_LIMIT the queue is a
+ * DialQueue, whose operations are all O(1); otherwise it is a
+ * RadixHeap.  Either way the log n factor of IndexedMinHeap leaves the
+ * inner loop.
+ *
+ * Distances are kept as longs.  Weights must be at most
+ * Integer.MAX_VALUE, so no path can overflow.  Like SearchState,
+ * entries are stamped with the generation that wrote them, so
+ * starting a new search is O(1).
+ *
+ * A BucketDijkstras object is not thread-safe; use one per thread.
+ */
+import java.util.Arrays;
+
+public class BucketDijkstras {
+	// The largest maximum weight Dial's buckets are used for.  Above
+	// it the buckets take too much memory and pollMin walks too far.
+	public static final int DIAL_LIMIT = 1 << 16;
+
+	private final CompactGraph graph;
+	private final MonotoneQueue queue;
+	private final long[] distance;
+	private final int[] parent;
+	private final int[] stamp;
+	private int generation;
+
+	/*
+	 * Pick Dial's buckets or a radix heap from the graph's largest
+	 * weight.
+	 */
+	public BucketDijkstras(CompactGraph graph){
+		this(graph, false);
+	}
+
+	/*
+	 * With radixHeap true, use a radix heap even if Dial's buckets would
+	 * do.
+	 */
+	public BucketDijkstras(CompactGraph graph, boolean radixHeap){
+		long maxWeight = maxIntegerWeight(graph);
+		if (maxWeight < 0){
+			throw new IllegalArgumentException("Weights must be whole numbers from 0 to " + Integer.MAX_VALUE + ".");
+		}
+		this.graph = graph;
+		int n = graph.numVertices();
+		queue = radixHeap || maxWeight > DIAL_LIMIT ? new RadixHeap(n) : new DialQueue(n, (int)maxWeight);
+		distance = new long[n];
+		parent = new int[n];
+		stamp = new int[n];
+	}
+
+	/*
+	 * The largest weight in the graph if every weight is a whole number
+	 * from 0 to Integer.MAX_VALUE, and -1 otherwise.
+	 */
+	public static long maxIntegerWeight(CompactGraph graph){
+		long max = 0;
+		for (int e = 0, m = graph.numArcs(); e < m; e++){
+			double weight = graph.weight(e);
+			if (!(weight >= 0 && weight <= Integer.MAX_VALUE) || weight != Math.rint(weight)){
+				return -1;
+			}
+			max = Math.max(max, (long)weight);
+		}
+		return max;
+	}
+
+	public CompactGraph getGraph(){
+		return graph;
+	}
+
+	public boolean usesRadixHeap(){
+		return queue instanceof RadixHeap;
+	}
+
+	/*
+	 * Compute the distance from source to every vertex.
+	 */
+	public void run(int source) throws IllegalVertexException{
+		long start = Instrumentation.ENABLED ? System.nanoTime() : 0;
+		search(source, -1, "run failed.");
+		if (Instrumentation.ENABLED){
+			Instrumentation.record("bucket", start, source, -1, 0);
+		}
+	}
+
+	/*
+	 * Find the shortest path from source to target.  The search stops
+	 * as soon as the target is settled.
+	 */
+	public PathResult query(int source, int target) throws IllegalVertexException{
+		if (target < 0 || target >= distance.length){
+			throw new IllegalVertexException("query failed.");
+		}
+		long start = Instrumentation.ENABLED ? System.nanoTime() : 0;
+		search(source, target, "query failed.");
+		PathResult result = toPath(source, target);
+		if (Instrumentation.ENABLED){
+			Instrumentation.record("bucket", start, source, target, result.getDistance());
+		}
+		return result;
+	}
+
+	private void search(int source, int target, String message){
+		if (source < 0 || source >= distance.length){
+			throw new IllegalVertexException(message);
+		}
+		queue.clear();
+		generation++;
+		if (generation == Integer.MAX_VALUE){
+			// Stamps are about to repeat, so clear them for real.
+			Arrays.fill(stamp, 0);
+			generation = 1;
+		}
+		relax(source, 0, -1);
+		while (!queue.isEmpty()){
+			int u = queue.pollMin();
+			if (u == target){
+				break;
+			}
+			long du = distance[u];
+			for (int e = graph.edgeBegin(u), end = graph.edgeEnd(u); e < end; e++){
+				relax(graph.target(e), du + (long)graph.weight(e), u);
+			}
+		}
+	}
+
+	private void relax(int v, long d, int from){
+		if (stamp[v] != generation || d < distance[v]){
+			stamp[v] = generation;
+			distance[v] = d;
+			parent[v] = from;
+			queue.insertOrDecrease(v, d);
+		}
+	}
+
+	/*
+	 * Distance found by the last search, or infinity if v was not
+	 * reached.
+	 */
+	public double getDistance(int v){
+		return stamp[v] == generation ? distance[v] : Double.POSITIVE_INFINITY;
+	}
+
+	/*
+	 * The vertex before v on the shortest path found by the last search,
+	 * or -1 for the source and unreached vertices.
+	 */
+	public int getParent(int v){
+		return stamp[v] == generation ? parent[v] : -1;
+	}
+
+	/*
+	 * The path to target found by the last search.
+	 */
+	public PathResult toPath(int source, int target){
+		double d = getDistance(target);
+		if (d == Double.POSITIVE_INFINITY){
+			return new PathResult(source, target, d, new int[0]);
+		}
+		int length = 0;
+		for (int v = target; v != -1; v = getParent(v)){
+			length++;
+		}
+		int[] path = new int[length];
+		for (int v = target, k = length - 1; v != -1; v = getParent(v), k--){
+			path[k] = v;
+		}
+		return new PathResult(source, target, d, path);
+	}
+}
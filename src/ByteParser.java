@@ -0,0 +1,330 @@
+/*
+ * Reads numbers and words straight out of a memory-mapped region of a
+ * file, without building a String for every token the way Scanner 
+ * does.  The region is mapped in windows, so files of any size work;
+ * a token may cross from one window into the next.
+ * 
+ * Lines end at '\n'; spaces, tabs and '\r' separate tokens.
+ */
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+final class ByteParser {
+	private static final long WINDOW_BYTES = 64L << 20;
+	// Powers of ten that a double holds exactly.
+	private static final double[] POWERS_OF_TEN = new double[23];
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int k = 1; k < POWERS_OF_TEN.length; k++){
+			POWERS_OF_TEN[k] = POWERS_OF_TEN[k - 1] * 10;
+		}
+	}
+	
+	private final FileChannel channel;
+	private final long end;
+	// The characters of the number being parsed, for the slow path.
+	private char[] scratch = new char[64];
+	private int scratchLength;
+	private MappedByteBuffer window;
+	// File position of window[0], and the next byte to read within it.
+	private long windowStart;
+	private int index;
+	
+	/*
+	 * Parse the bytes of the file from start up to (not including) end.
+	 */
+	ByteParser(FileChannel channel, long start, long end){
+		this.channel = channel;
+		this.end = end;
+		map(start);
+	}
+	
+	private void map(long position){
+		try {
+			long length = Math.min(WINDOW_BYTES, end - position);
+			window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.max(0, length));
+			windowStart = position;
+			index = 0;
+		}
+		catch (IOException e){
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	long position(){
+		return windowStart + index;
+	}
+	
+	boolean hasMore(){
+		return windowStart + index < end;
+	}
+	
+	/*
+	 * The next byte without consuming it, or -1 at the end.
+	 */
+	int peek(){
+		if (index == window.limit()){
+			if (windowStart + index >= end){
+				return -1;
+			}
+			map(windowStart + index);
+		}
+		return window.get(index) & 0xff;
+	}
+	
+	private int next(){
+		int b = peek();
+		if (b >= 0){
+			index++;
+		}
+		return b;
+	}
+	
+	/*
+	 * Skip spaces, tabs and '\r', but not line ends.
+	 */
+	void skipBlanks(){
+		int b = peek();
+		while (b == ' ' || b == '\t' || b == '\r'){
+			index++;
+			b = peek();
+		}
+	}
+	
+	/*
+	 * Skip past the end of the current line.
+	 */
+	void skipLine(){
+		int b = next();
+		while (b != '\n' && b >= 0){
+			b = next();
+		}
+	}
+	
+	/*
+	 * True if only blanks are left on this line.
+	 */
+	boolean atLineEnd(){
+		skipBlanks();
+		int b = peek();
+		return b == '\n' || b < 0;
+	}
+	
+	/*
+	 * Skip blanks and empty lines, for formats where a line end is just
+	 * another separator.
+	 */
+	void skipEmptyLines(){
+		while (hasMore() && atLineEnd()){
+			skipLine();
+		}
+	}
+	
+	/*
+	 * True if the whole next token is a number such as nextDouble reads,
+	 * so that a word like 1A or -x is not taken for one.  Nothing is
+	 * consumed but blanks.
+	 */
+	boolean atNumber(){
+		skipBlanks();
+		int at = 0;
+		int b = peekAhead(at);
+		if (b == '-' || b == '+'){
+			b = peekAhead(++at);
+		}
+		boolean any = false;
+		while (b >= '0' && b <= '9'){
+			any = true;
+			b = peekAhead(++at);
+		}
+		if (b == '.'){
+			b = peekAhead(++at);
+			while (b >= '0' && b <= '9'){
+				any = true;
+				b = peekAhead(++at);
+			}
+		}
+		if (!any){
+			return false;
+		}
+		if (b == 'e' || b == 'E'){
+			b = peekAhead(++at);
+			if (b == '-' || b == '+'){
+				b = peekAhead(++at);
+			}
+			if (b < '0' || b > '9'){
+				return false;
+			}
+			while (b >= '0' && b <= '9'){
+				b = peekAhead(++at);
+			}
+		}
+		return b < 0 || b == ' ' || b == '\t' || b == '\r' || b == '\n';
+	}
+	
+	// The byte offset bytes past the next one, or -1 past the end.  The
+	// window is moved up to the next byte if it doesn't reach that far.
+	private int peekAhead(int offset){
+		if (index + offset >= window.limit()){
+			if (windowStart + index + offset >= end){
+				return -1;
+			}
+			map(windowStart + index);
+		}
+		return window.get(index + offset) & 0xff;
+	}
+	
+	long nextLong(){
+		skipBlanks();
+		boolean negative = false;
+		int b = peek();
+		if (b == '-' || b == '+'){
+			negative = b == '-';
+			index++;
+			b = peek();
+		}
+		if (b < '0' || b > '9'){
+			throw new NumberFormatException("Expected a number at byte " + position() + ".");
+		}
+		long value = 0;
+		while (b >= '0' && b <= '9'){
+			value = value * 10 + (b - '0');
+			index++;
+			b = peek();
+		}
+		return negative ? -value : value;
+	}
+	
+	int nextInt(){
+		long value = nextLong();
+		if (value != (int)value){
+			throw new NumberFormatException("Number too big at byte " + position() + ".");
+		}
+		return (int)value;
+	}
+	
+	/*
+	 * Parse a decimal number such as 12, -0.375 or 1.5e3.  Numbers with
+	 * up to 15 significant digits and small exponents are converted 
+	 * exactly with one multiply or divide; anything else falls back to
+	 * Double.parseDouble on the digits seen.
+	 */
+	double nextDouble(){
+		skipBlanks();
+		long start = position();
+		scratchLength = 0;
+		boolean negative = false;
+		int b = peek();
+		if (b == '-' || b == '+'){
+			negative = b == '-';
+			index++;
+			b = peek();
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean any = false;
+		while (b >= '0' && b <= '9'){
+			any = true;
+			if (digits < 18){
+				mantissa = mantissa * 10 + (b - '0');
+				if (mantissa != 0){
+					digits++;
+				}
+			}
+			else{
+				exponent++;
+			}
+			remember(b);
+			index++;
+			b = peek();
+		}
+		if (b == '.'){
+			remember(b);
+			index++;
+			b = peek();
+			while (b >= '0' && b <= '9'){
+				any = true;
+				if (digits < 18){
+					mantissa = mantissa * 10 + (b - '0');
+					if (mantissa != 0){
+						digits++;
+					}
+					exponent--;
+				}
+				remember(b);
+				index++;
+				b = peek();
+			}
+		}
+		if (!any){
+			throw new NumberFormatException("Expected a number at byte " + start + ".");
+		}
+		if (b == 'e' || b == 'E'){
+			remember(b);
+			index++;
+			b = peek();
+			boolean negativeExponent = false;
+			if (b == '-' || b == '+'){
+				negativeExponent = b == '-';
+				remember(b);
+				index++;
+				b = peek();
+			}
+			int e = 0;
+			while (b >= '0' && b <= '9'){
+				e = Math.min(e * 10 + (b - '0'), 100000);
+				remember(b);
+				index++;
+				b = peek();
+			}
+			exponent += negativeExponent ? -e : e;
+		}
+		double value;
+		if (digits <= 15 && exponent >= -22 && exponent <= 22){
+			value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+		}
+		else{
+			value = Double.parseDouble(new String(scratch, 0, scratchLength));
+		}
+		return negative ? -value : value;
+	}
+	
+	private void remember(int b){
+		if (scratchLength == scratch.length){
+			scratch = Arrays.copyOf(scratch, scratchLength * 2);
+		}
+		scratch[scratchLength++] = (char)b;
+	}
+	
+	/*
+	 * The next run of non-blank bytes as a String, or null at a line end.
+	 * Only meant for the occasional word, such as vertex names.
+	 */
+	String nextToken(){
+		skipBlanks();
+		long start = position();
+		int b = peek();
+		while (b >= 0 && b != ' ' && b != '\t' && b != '\r' && b != '\n'){
+			index++;
+			b = peek();
+		}
+		return start == position() ? null : textBetween(start, position());
+	}
+	
+	private String textBetween(long from, long to){
+		try {
+			ByteBuffer bytes = ByteBuffer.allocate((int)(to - from));
+			channel.read(bytes, from);
+			return new String(bytes.array(), 0, bytes.position(), StandardCharsets.UTF_8);
+		}
+		catch (IOException e){
+			throw new UncheckedIOException(e);
+		}
+	}
+}
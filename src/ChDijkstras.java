@@ -0,0 +1,155 @@
+/*
+ * Answers queries on a ContractionHierarchy.  A forward search from
+ * the source and a backward search from the target only ever move up
+ * the hierarchy, so each one settles a small number of vertices.  The
+ * shortest path is the best vertex where the two searches meet, and
+ * its shortcuts are unpacked back into original edges.  Vertices 
+ * that are provably reached too expensively are stalled and not 
+ * expanded.
+ *
+ * A ChDijkstras object is not thread-safe; use one per thread.  The
+ * hierarchy can be shared.
+ */
+public class ChDijkstras {
+	private final ContractionHierarchy hierarchy;
+	private final SearchState forward;
+	private final SearchState backward;
+	private int settled;
+	// Length of the best path found by the last search.
+	private double best;
+
+	public ChDijkstras(ContractionHierarchy hierarchy){
+		this.hierarchy = hierarchy;
+		forward = new SearchState();
+		backward = new SearchState();
+	}
+
+	public ContractionHierarchy getHierarchy(){
+		return hierarchy;
+	}
+
+	/*
+	 * Number of vertices settled by both sides during the last query.
+	 */
+	public int getSettledCount(){
+		return settled;
+	}
+
+	/*
+	 * Only the distance, without unpacking the path.
+	 */
+	public double distance(int source, int target){
+		search(source, target);
+		return best;
+	}
+
+	public PathResult query(int source, int target){
+		int meet = search(source, target);
+		if (meet < 0){
+			return new PathResult(source, target, Double.POSITIVE_INFINITY, new int[0]);
+		}
+		// Collect the hierarchy path s..meet..t, then unpack each edge.
+		IntList up = new IntList();
+		for (int v = meet; v >= 0; v = forward.getParent(v)){
+			up.add(v);
+		}
+		IntList path = new IntList();
+		path.add(source);
+		for (int k = up.size() - 1; k > 0; k--){
+			hierarchy.unpack(up.get(k), up.get(k - 1), path);
+		}
+		for (int v = meet, next = backward.getParent(meet); next >= 0; v = next, next = backward.getParent(next)){
+			hierarchy.unpack(v, next, path);
+		}
+		return new PathResult(source, target, best, path.toArray());
+	}
+
+	// Run both upward searches and return the meeting vertex, or -1.
+	private int search(int source, int target){
+		int n = hierarchy.numVertices();
+		if (source < 0 || source >= n || target < 0 || target >= n){
+			throw new IllegalVertexException("query failed.");
+		}
+		long start = Instrumentation.ENABLED ? System.nanoTime() : 0;
+		forward.reset(n);
+		backward.reset(n);
+		forward.relax(source, 0, -1);
+		backward.relax(target, 0, -1);
+		IndexedMinHeap forwardHeap = forward.heap();
+		IndexedMinHeap backwardHeap = backward.heap();
+		settled = 0;
+		best = Double.POSITIVE_INFINITY;
+		int meet = -1;
+
+		// Unlike plain bidirectional search, the two sides cannot stop as
+		// soon as they meet.  Each side stops once its smallest key
+		// reaches the best distance found.
+		boolean forwardDone = false;
+		boolean backwardDone = false;
+		while (!(forwardDone && backwardDone)){
+			forwardDone = forwardHeap.isEmpty() || forwardHeap.peekMinKey() >= best;
+			backwardDone = backwardHeap.isEmpty() || backwardHeap.peekMinKey() >= best;
+			boolean isForward;
+			if (forwardDone && backwardDone){
+				break;
+			}
+			else if (forwardDone || backwardDone){
+				isForward = !forwardDone;
+			}
+			else{
+				isForward = forwardHeap.peekMinKey() <= backwardHeap.peekMinKey();
+			}
+
+			SearchState mine = isForward ? forward : backward;
+			SearchState other = isForward ? backward : forward;
+			int u = mine.heap().pollMin();
+			settled++;
+			double du = mine.getDistance(u);
+			if (other.isReached(u) && du + other.getDistance(u) < best){
+				best = du + other.getDistance(u);
+				meet = u;
+			}
+			if (isStalled(u, isForward)){
+				continue;
+			}
+			if (isForward){
+				for (int e = hierarchy.upBegin(u); e < hierarchy.upEnd(u); e++){
+					forward.relax(hierarchy.upTarget(e), du + hierarchy.upWeight(e), u);
+				}
+			}
+			else{
+				for (int e = hierarchy.downBegin(u); e < hierarchy.downEnd(u); e++){
+					backward.relax(hierarchy.downSource(e), du + hierarchy.downWeight(e), u);
+				}
+			}
+		}
+		if (Instrumentation.ENABLED){
+			Instrumentation.record("ch", start, source, target, best, forward, backward);
+		}
+		return meet;
+	}
+
+	// Stall-on-demand: u's distance is too big if a higher vertex that
+	// this side has already reached leads down to u more cheaply.  A
+	// stalled vertex cannot be on a shortest path, so its edges are
+	// not relaxed.
+	private boolean isStalled(int u, boolean isForward){
+		if (isForward){
+			double du = forward.getDistance(u);
+			for (int e = hierarchy.downBegin(u); e < hierarchy.downEnd(u); e++){
+				if (forward.getDistance(hierarchy.downSource(e)) + hierarchy.downWeight(e) < du){
+					return true;
+				}
+			}
+		}
+		else{
+			double du = backward.getDistance(u);
+			for (int e = hierarchy.upBegin(u); e < hierarchy.upEnd(u); e++){
+				if (backward.getDistance(hierarchy.upTarget(e)) + hierarchy.upWeight(e) < du){
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+}
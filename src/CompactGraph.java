@@ -0,0 +1,80 @@
+/**
+ * Interface for a frozen graph whose vertices are the dense ids 
+ * 0 to numVertices()-1.  The outgoing edges of vertex v are the 
+ * edge ids from edgeBegin(v) up to (but not including) edgeEnd(v), 
+ * and each edge id has a target vertex and a weight.  An undirected 
+ * graph stores every edge once in each direction.
+ *
+ * Unlike Graph, a CompactGraph is read-only, so shortest path 
+ * engines can run over it using only primitive arrays.
+ */
+public interface CompactGraph {
+
+    /**
+     * Get the number of vertices in this graph.
+     *
+     * @return the number of vertices in this graph.
+     */
+    int numVertices();
+
+    /**
+     * Get the number of stored edges.  Each undirected edge is
+     * counted twice, once for each direction.
+     *
+     * @return the number of stored directed edges.
+     */
+    int numArcs();
+
+    /**
+     * Determine if this graph is directed.
+     *
+     * @return true if this graph is directed and false
+     *         if it is undirected.
+     */
+    boolean isDirected();
+
+    /**
+     * Get the id of the first outgoing edge of vertex v.
+     *
+     * @param v a vertex id in this graph.
+     */
+    int edgeBegin(int v);
+
+    /**
+     * Get the id one past the last outgoing edge of vertex v.
+     *
+     * @param v a vertex id in this graph.
+     */
+    int edgeEnd(int v);
+
+    /**
+     * Get the vertex that edge e leads to.
+     *
+     * @param e an edge id in this graph.
+     */
+    int target(int e);
+
+    /**
+     * Get the weight of edge e.
+     *
+     * @param e an edge id in this graph.
+     */
+    double weight(int e);
+
+    /**
+     * Get the name of vertex v.
+     *
+     * @param v a vertex id in this graph.
+     */
+    String getName(int v);
+
+    /**
+     * Get the reverse of this graph, where every edge (i,j) becomes
+     * (j,i) with the same weight and vertex ids are unchanged.  
+     * Backward searches run over the reverse graph.  An undirected 
+     * graph is its own reverse.
+     *
+     * @return the reverse of this graph.
+     */
+    CompactGraph reverse();
+}
@@ -0,0 +1,264 @@
+/*
+ * A read-only graph packed into one byte array, for graphs where
+ * memory bandwidth rather than work limits the search.  Each vertex's
+ * edges are sorted by target and written one after another:
+ *
+ *  - the target, as a varint (7 bits per byte, low bits first): the
+ *    first one as the zigzag-coded difference from the vertex itself,
+ *    the rest as the gap from the target before;
+ *  - the weight, either as a 4-byte little-endian float, or quantized
+ *    to the whole number round(weight * scale) and written as a varint.
+ *
+ * On graphs whose ids follow locality, such as grids and road networks
+ * in file order, a target usually fits in one or two bytes, against
+ * 12 bytes per edge for a CsrGraph.  Quantized weights lose whatever
+ * detail is finer than 1 / scale; float weights lose what doesn't fit
+ * in a float, which is nothing for whole numbers below 2^24.
+ *
+ * Edges can only be read in order, through a Cursor, so this is not a
+ * CompactGraph; CompressedDijkstras searches it.
+ */
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+public final class CompressedGraph {
+	private static final VarHandle FLOATS = MethodHandles.byteArrayViewVarHandle(float[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private final int n;
+	private final int numArcs;
+	private final boolean isDirected;
+	// The edges of v are data[offsets[v]] up to data[offsets[v + 1]].
+	private final int[] offsets;
+	private final byte[] data;
+	// Zero for float weights.
+	private final double scale;
+	// 1 / scale, so decoding multiplies instead of dividing.
+	private final double unit;
+
+	/*
+	 * Compress graph with float weights.
+	 */
+	public CompressedGraph(CompactGraph graph){
+		this(graph, 0);
+	}
+
+	/*
+	 * Compress graph with weights quantized to multiples of 1 / scale,
+	 * or as floats if scale is 0.
+	 */
+	public CompressedGraph(CompactGraph graph, double scale){
+		if (!(scale >= 0 && scale < Double.POSITIVE_INFINITY)){
+			throw new IllegalArgumentException("Bad scale " + scale + ".");
+		}
+		this.scale = scale;
+		unit = scale == 0 ? 0 : 1 / scale;
+		n = graph.numVertices();
+		numArcs = graph.numArcs();
+		isDirected = graph.isDirected();
+		offsets = new int[n + 1];
+		Encoder encoder = new Encoder(numArcs * 3L + 16);
+		long[] order = new long[16];
+		for (int u = 0; u < n; u++){
+			offsets[u] = encoder.checkedSize();
+			int begin = graph.edgeBegin(u);
+			int degree = graph.edgeEnd(u) - begin;
+			if (degree > order.length){
+				order = new long[Math.max(degree, order.length * 2)];
+			}
+			// Sort the edges by target, carrying each edge's position.
+			for (int k = 0; k < degree; k++){
+				order[k] = (long)graph.target(begin + k) << 32 | k;
+			}
+			Arrays.sort(order, 0, degree);
+			int previous = u;
+			for (int k = 0; k < degree; k++){
+				int target = (int)(order[k] >>> 32);
+				if (k == 0){
+					int difference = target - u;
+					encoder.writeVarint((difference << 1) ^ (difference >> 31));
+				}
+				else{
+					encoder.writeVarint(target - previous);
+				}
+				previous = target;
+				double weight = graph.weight(begin + (int)order[k]);
+				if (scale == 0){
+					encoder.writeFloat((float)weight);
+				}
+				else{
+					encoder.writeVarint(quantize(weight, scale));
+				}
+			}
+		}
+		offsets[n] = encoder.checkedSize();
+		data = Arrays.copyOf(encoder.bytes, offsets[n]);
+	}
+
+	private static int quantize(double weight, double scale){
+		double q = Math.rint(weight * scale);
+		if (!(q >= 0 && q <= Integer.MAX_VALUE)){
+			throw new IllegalArgumentException("Weight " + weight + " does not fit at scale " + scale + ".");
+		}
+		return (int)q;
+	}
+
+	// A growing byte array.
+	private static final class Encoder {
+		byte[] bytes;
+		long size;
+
+		Encoder(long capacity){
+			bytes = new byte[(int)Math.min(capacity, Integer.MAX_VALUE - 8)];
+		}
+
+		int checkedSize(){
+			if (size > Integer.MAX_VALUE - 8){
+				throw new IllegalArgumentException("Graph is too big to compress into one array.");
+			}
+			return (int)size;
+		}
+
+		private void ensure(int more){
+			if (size + more > bytes.length){
+				long capacity = Math.min(Math.max(size + more, bytes.length * 2L), Integer.MAX_VALUE - 8);
+				if (capacity < size + more){
+					throw new IllegalArgumentException("Graph is too big to compress into one array.");
+				}
+				bytes = Arrays.copyOf(bytes, (int)capacity);
+			}
+		}
+
+		void writeVarint(int value){
+			ensure(5);
+			int at = (int)size;
+			while ((value & ~0x7f) != 0){
+				bytes[at++] = (byte)(value & 0x7f | 0x80);
+				value >>>= 7;
+			}
+			bytes[at++] = (byte)value;
+			size = at;
+		}
+
+		void writeFloat(float value){
+			ensure(4);
+			FLOATS.set(bytes, (int)size, value);
+			size += 4;
+		}
+	}
+
+	public int numVertices(){
+		return n;
+	}
+
+	public int numArcs(){
+		return numArcs;
+	}
+
+	public boolean isDirected(){
+		return isDirected;
+	}
+
+	public boolean isQuantized(){
+		return scale != 0;
+	}
+
+	/*
+	 * The quantization scale, or 0 for float weights.
+	 */
+	public double getScale(){
+		return scale;
+	}
+
+	/*
+	 * Bytes of edge data plus vertex offsets.
+	 */
+	public long byteSize(){
+		return data.length + 4L * offsets.length;
+	}
+
+	public double bytesPerEdge(){
+		return byteSize() / (double)Math.max(1, numArcs);
+	}
+
+	/*
+	 * A new cursor over this graph's edges.  Cursors are cheap, but each
+	 * one belongs to one thread.
+	 */
+	public Cursor cursor(){
+		return new Cursor();
+	}
+
+	/*
+	 * Reads the edges of one vertex in order of target:
+	 *
+	 *     cursor.start(u);
+	 *     while (cursor.next()){
+	 *         ... cursor.target(), cursor.weight() ...
+	 *     }
+	 */
+	public final class Cursor {
+		private int position;
+		private int end;
+		private int target;
+		private double weight;
+		private boolean isFirst;
+
+		private Cursor(){
+		}
+
+		public void start(int v){
+			if (v < 0 || v >= n){
+				throw new IllegalVertexException("No vertex " + v + ".");
+			}
+			position = offsets[v];
+			end = offsets[v + 1];
+			target = v;
+			isFirst = true;
+		}
+
+		/*
+		 * Move to the next edge.  False when there are no more.
+		 */
+		public boolean next(){
+			if (position == end){
+				return false;
+			}
+			int code = readVarint();
+			if (isFirst){
+				target += (code >>> 1) ^ -(code & 1);
+				isFirst = false;
+			}
+			else{
+				target += code;
+			}
+			if (scale == 0){
+				weight = (float)FLOATS.get(data, position);
+				position += 4;
+			}
+			else{
+				weight = readVarint() * unit;
+			}
+			return true;
+		}
+
+		private int readVarint(){
+			int b = data[position++];
+			int value = b & 0x7f;
+			for (int shift = 7; b < 0; shift += 7){
+				b = data[position++];
+				value |= (b & 0x7f) << shift;
+			}
+			return value;
+		}
+
+		public int target(){
+			return target;
+		}
+
+		public double weight(){
+			return weight;
+		}
+	}
+}
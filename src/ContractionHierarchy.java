@@ -0,0 +1,535 @@
+/*
+ * A contraction hierarchy over a CompactGraph.
+ *
+ * Preprocessing contracts the vertices one level at a time, from least
+ * to most important.  Contracting v removes it from the remaining
+ * graph and adds a shortcut u->w (through v) for every pair of
+ * neighbors whose shortest path went through v.  A witness search from
+ * u decides whether that is the case.  A vertex's importance is its
+ * edge difference (shortcuts added minus edges removed) plus the number
+ * of neighbors already contracted.
+ *
+ * Each round picks an independent set of vertices whose importance is
+ * smaller than all of their neighbors', and works out their shortcuts
+ * in parallel.  Witness searches skip every vertex of the round, so
+ * vertices contracted together can never rely on each other.
+ *
+ * The result is two "upward" graphs.  The forward one holds every edge
+ * v->w with rank[w] > rank[v], and the backward one holds every edge
+ * u->v with rank[u] > rank[v], stored at v.  Each edge remembers the
+ * vertex it skips (-1 for original edges) so paths can be unpacked.
+ * ChDijkstras answers queries on it.
+ */
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public final class ContractionHierarchy {
+	private static final int MAGIC = 0x43484731; // "CHG1"
+
+	// Witness searches give up after settling this many vertices and
+	// add the shortcut, which is always safe.
+	public static final int DEFAULT_WITNESS_LIMIT = 500;
+
+	private final int[] rank;
+	private final int[] upOffsets;
+	private final int[] upTargets;
+	private final double[] upWeights;
+	private final int[] upMiddles;
+	private final int[] downOffsets;
+	private final int[] downSources;
+	private final double[] downWeights;
+	private final int[] downMiddles;
+
+	private ContractionHierarchy(int[] rank, int[] upOffsets, int[] upTargets, double[] upWeights,
+			int[] upMiddles, int[] downOffsets, int[] downSources, double[] downWeights, int[] downMiddles){
+		this.rank = rank;
+		this.upOffsets = upOffsets;
+		this.upTargets = upTargets;
+		this.upWeights = upWeights;
+		this.upMiddles = upMiddles;
+		this.downOffsets = downOffsets;
+		this.downSources = downSources;
+		this.downWeights = downWeights;
+		this.downMiddles = downMiddles;
+	}
+
+	public static ContractionHierarchy build(CompactGraph graph){
+		return build(graph, DEFAULT_WITNESS_LIMIT);
+	}
+
+	public static ContractionHierarchy build(CompactGraph graph, int witnessLimit){
+		return new Builder(graph, witnessLimit).build();
+	}
+
+	public int numVertices(){
+		return rank.length;
+	}
+
+	/*
+	 * Position of v in the contraction order; higher is more important.
+	 */
+	public int getRank(int v){
+		return rank[v];
+	}
+
+	/*
+	 * Number of edges in both upward graphs, shortcuts included.
+	 */
+	public int numArcs(){
+		return upTargets.length + downSources.length;
+	}
+
+	// The forward upward graph: edges v->upTarget(e) for e in
+	// [upBegin(v), upEnd(v)).
+	int upBegin(int v){
+		return upOffsets[v];
+	}
+
+	int upEnd(int v){
+		return upOffsets[v + 1];
+	}
+
+	int upTarget(int e){
+		return upTargets[e];
+	}
+
+	double upWeight(int e){
+		return upWeights[e];
+	}
+
+	// The backward upward graph: edges downSource(e)->v for e in
+	// [downBegin(v), downEnd(v)).
+	int downBegin(int v){
+		return downOffsets[v];
+	}
+
+	int downEnd(int v){
+		return downOffsets[v + 1];
+	}
+
+	int downSource(int e){
+		return downSources[e];
+	}
+
+	double downWeight(int e){
+		return downWeights[e];
+	}
+
+	/*
+	 * The vertex skipped by the hierarchy edge a->b, or -1 if it is an
+	 * original edge.
+	 */
+	int middleOf(int a, int b){
+		if (rank[a] < rank[b]){
+			for (int e = upOffsets[a]; e < upOffsets[a + 1]; e++){
+				if (upTargets[e] == b){
+					return upMiddles[e];
+				}
+			}
+		}
+		else{
+			for (int e = downOffsets[b]; e < downOffsets[b + 1]; e++){
+				if (downSources[e] == a){
+					return downMiddles[e];
+				}
+			}
+		}
+		throw new IllegalVertexException("No hierarchy edge from " + a + " to " + b + ".");
+	}
+
+	/*
+	 * Append the original vertices of the hierarchy edge a->b to path,
+	 * not including a itself.
+	 */
+	void unpack(int a, int b, IntList path){
+		// Work through the edge with an explicit stack; long shortcut
+		// chains would overflow the call stack.
+		IntList stack = new IntList();
+		stack.add(b);
+		stack.add(a);
+		while (stack.size() > 0){
+			int from = stack.pop();
+			int to = stack.pop();
+			int middle = middleOf(from, to);
+			if (middle < 0){
+				path.add(to);
+			}
+			else{
+				stack.add(to);
+				stack.add(middle);
+				stack.add(middle);
+				stack.add(from);
+			}
+		}
+	}
+
+	public void save(String fileName) throws IOException{
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(fileName)))){
+			out.writeInt(MAGIC);
+			writeInts(out, rank);
+			writeInts(out, upOffsets);
+			writeInts(out, upTargets);
+			writeDoubles(out, upWeights);
+			writeInts(out, upMiddles);
+			writeInts(out, downOffsets);
+			writeInts(out, downSources);
+			writeDoubles(out, downWeights);
+			writeInts(out, downMiddles);
+		}
+	}
+
+	public static ContractionHierarchy load(String fileName) throws IOException{
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(fileName)))){
+			if (in.readInt() != MAGIC){
+				throw new IOException(fileName + " is not a contraction hierarchy file.");
+			}
+			return new ContractionHierarchy(readInts(in), readInts(in), readInts(in), readDoubles(in),
+					readInts(in), readInts(in), readInts(in), readDoubles(in), readInts(in));
+		}
+	}
+
+	private static void writeInts(DataOutputStream out, int[] values) throws IOException{
+		out.writeInt(values.length);
+		for (int value : values){
+			out.writeInt(value);
+		}
+	}
+
+	private static void writeDoubles(DataOutputStream out, double[] values) throws IOException{
+		out.writeInt(values.length);
+		for (double value : values){
+			out.writeDouble(value);
+		}
+	}
+
+	private static int[] readInts(DataInputStream in) throws IOException{
+		int[] values = new int[in.readInt()];
+		for (int k = 0; k < values.length; k++){
+			values[k] = in.readInt();
+		}
+		return values;
+	}
+
+	private static double[] readDoubles(DataInputStream in) throws IOException{
+		double[] values = new double[in.readInt()];
+		for (int k = 0; k < values.length; k++){
+			values[k] = in.readDouble();
+		}
+		return values;
+	}
+
+	/*
+	 * The edges of the remaining graph while contracting: for every
+	 * vertex a small list of (neighbor, weight, middle) triples.
+	 * Parallel edges are merged, keeping the lighter one.
+	 */
+	private static final class EdgeLists {
+		private final int[][] ends;
+		private final double[][] weights;
+		private final int[][] middles;
+		private final int[] sizes;
+
+		EdgeLists(int n){
+			ends = new int[n][];
+			weights = new double[n][];
+			middles = new int[n][];
+			sizes = new int[n];
+			for (int v = 0; v < n; v++){
+				ends[v] = new int[2];
+				weights[v] = new double[2];
+				middles[v] = new int[2];
+			}
+		}
+
+		int size(int v){
+			return sizes[v];
+		}
+
+		int end(int v, int k){
+			return ends[v][k];
+		}
+
+		double weight(int v, int k){
+			return weights[v][k];
+		}
+
+		int middle(int v, int k){
+			return middles[v][k];
+		}
+
+		void put(int v, int end, double weight, int middle){
+			int size = sizes[v];
+			for (int k = 0; k < size; k++){
+				if (ends[v][k] == end){
+					if (weight < weights[v][k]){
+						weights[v][k] = weight;
+						middles[v][k] = middle;
+					}
+					return;
+				}
+			}
+			if (size == ends[v].length){
+				ends[v] = Arrays.copyOf(ends[v], size * 2);
+				weights[v] = Arrays.copyOf(weights[v], size * 2);
+				middles[v] = Arrays.copyOf(middles[v], size * 2);
+			}
+			ends[v][size] = end;
+			weights[v][size] = weight;
+			middles[v][size] = middle;
+			sizes[v]++;
+		}
+
+		void remove(int v, int end){
+			int size = sizes[v];
+			for (int k = 0; k < size; k++){
+				if (ends[v][k] == end){
+					int last = size - 1;
+					ends[v][k] = ends[v][last];
+					weights[v][k] = weights[v][last];
+					middles[v][k] = middles[v][last];
+					sizes[v] = last;
+					return;
+				}
+			}
+		}
+	}
+
+	private static final class Shortcut {
+		final int from;
+		final int to;
+		final double weight;
+		final int middle;
+
+		Shortcut(int from, int to, double weight, int middle){
+			this.from = from;
+			this.to = to;
+			this.weight = weight;
+			this.middle = middle;
+		}
+	}
+
+	private static final class Builder {
+		private final int n;
+		private final int witnessLimit;
+		private final EdgeLists out;
+		private final EdgeLists in;
+		private final boolean[] contracted;
+		// Vertices being contracted in the current round.  Witness
+		// searches must not pass through them.
+		private final boolean[] inRound;
+		private final int[] deletedNeighbors;
+		private final double[] priority;
+		private final int[] rank;
+		private final ThreadLocal<SearchState> witnessStates = ThreadLocal.withInitial(SearchState::new);
+
+		// Upward edges, saved as each vertex is contracted.
+		private final int[][] upEnds;
+		private final double[][] upWeights;
+		private final int[][] upMiddles;
+		private final int[][] downEnds;
+		private final double[][] downWeights;
+		private final int[][] downMiddles;
+
+		Builder(CompactGraph graph, int witnessLimit){
+			n = graph.numVertices();
+			this.witnessLimit = witnessLimit;
+			out = new EdgeLists(n);
+			in = new EdgeLists(n);
+			for (int u = 0; u < n; u++){
+				for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++){
+					int v = graph.target(e);
+					if (v != u){
+						out.put(u, v, graph.weight(e), -1);
+						in.put(v, u, graph.weight(e), -1);
+					}
+				}
+			}
+			contracted = new boolean[n];
+			inRound = new boolean[n];
+			deletedNeighbors = new int[n];
+			priority = new double[n];
+			rank = new int[n];
+			upEnds = new int[n][];
+			upWeights = new double[n][];
+			upMiddles = new int[n][];
+			downEnds = new int[n][];
+			downWeights = new double[n][];
+			downMiddles = new int[n][];
+		}
+
+		ContractionHierarchy build(){
+			IntStream.range(0, n).parallel().forEach(v -> priority[v] = computePriority(v));
+			int nextRank = 0;
+			int[] remaining = IntStream.range(0, n).toArray();
+
+			while (remaining.length > 0){
+				int[] current = remaining;
+				int[] round = Arrays.stream(current).parallel().filter(this::isLocalMinimum).toArray();
+				for (int v : round){
+					inRound[v] = true;
+				}
+				List<List<Shortcut>> shortcuts = Arrays.stream(round).parallel()
+						.mapToObj(v -> findShortcuts(v, witnessLimit)).collect(Collectors.toList());
+
+				// Changing the edge lists is cheap; do it on one thread.
+				boolean[] dirty = new boolean[n];
+				for (int k = 0; k < round.length; k++){
+					int v = round[k];
+					contract(v, shortcuts.get(k), dirty);
+					rank[v] = nextRank++;
+				}
+				for (int v : round){
+					inRound[v] = false;
+				}
+				remaining = Arrays.stream(current).filter(v -> !contracted[v]).toArray();
+				Arrays.stream(remaining).parallel().filter(v -> dirty[v])
+						.forEach(v -> priority[v] = computePriority(v));
+			}
+			return freeze();
+		}
+
+		// v is contracted this round if it beats all its neighbors; ties
+		// go to the smaller id.
+		private boolean isLocalMinimum(int v){
+			return beatsNeighbors(v, out) && beatsNeighbors(v, in);
+		}
+
+		private boolean beatsNeighbors(int v, EdgeLists lists){
+			for (int k = 0; k < lists.size(v); k++){
+				int u = lists.end(v, k);
+				if (priority[u] < priority[v] || (priority[u] == priority[v] && u < v)){
+					return false;
+				}
+			}
+			return true;
+		}
+
+		// Priorities are only estimates, so their witness searches are
+		// cut off much earlier than the real ones.
+		private double computePriority(int v){
+			int shortcuts = findShortcuts(v, Math.max(1, witnessLimit / 10)).size();
+			return shortcuts - in.size(v) - out.size(v) + deletedNeighbors[v];
+		}
+
+		/*
+		 * The shortcuts needed if v were contracted now.  For every
+		 * in-neighbor u, search from u without v and add u->w unless
+		 * some other path is at least as short as u->v->w.
+		 */
+		private List<Shortcut> findShortcuts(int v, int witnessLimit){
+			List<Shortcut> shortcuts = new ArrayList<Shortcut>();
+			double maxOut = 0;
+			for (int k = 0; k < out.size(v); k++){
+				maxOut = Math.max(maxOut, out.weight(v, k));
+			}
+			for (int i = 0; i < in.size(v); i++){
+				int u = in.end(v, i);
+				double toV = in.weight(v, i);
+				SearchState witness = witnessSearch(u, v, toV + maxOut, witnessLimit);
+				for (int k = 0; k < out.size(v); k++){
+					int w = out.end(v, k);
+					if (w == u){
+						continue;
+					}
+					double through = toV + out.weight(v, k);
+					if (witness.getDistance(w) > through){
+						shortcuts.add(new Shortcut(u, w, through, v));
+					}
+				}
+			}
+			return shortcuts;
+		}
+
+		// Dijkstra from u over the remaining graph, avoiding v and the
+		// rest of the round, until the distance passes limit or
+		// witnessLimit vertices are settled.
+		private SearchState witnessSearch(int u, int v, double limit, int witnessLimit){
+			SearchState state = witnessStates.get();
+			state.reset(n);
+			state.relax(u, 0, -1);
+			IndexedMinHeap heap = state.heap();
+			int settled = 0;
+			while (!heap.isEmpty() && settled < witnessLimit){
+				int x = heap.pollMin();
+				double dx = state.getDistance(x);
+				if (dx > limit){
+					break;
+				}
+				settled++;
+				for (int k = 0; k < out.size(x); k++){
+					int y = out.end(x, k);
+					if (y != v && !inRound[y]){
+						state.relax(y, dx + out.weight(x, k), x);
+					}
+				}
+			}
+			return state;
+		}
+
+		private void contract(int v, List<Shortcut> shortcuts, boolean[] dirty){
+			// Every neighbor left is higher in the order, so v's current
+			// edges are exactly its upward edges.
+			upEnds[v] = Arrays.copyOf(out.ends[v], out.size(v));
+			upWeights[v] = Arrays.copyOf(out.weights[v], out.size(v));
+			upMiddles[v] = Arrays.copyOf(out.middles[v], out.size(v));
+			downEnds[v] = Arrays.copyOf(in.ends[v], in.size(v));
+			downWeights[v] = Arrays.copyOf(in.weights[v], in.size(v));
+			downMiddles[v] = Arrays.copyOf(in.middles[v], in.size(v));
+
+			for (int k = 0; k < out.size(v); k++){
+				int w = out.end(v, k);
+				in.remove(w, v);
+				deletedNeighbors[w]++;
+				dirty[w] = true;
+			}
+			for (int k = 0; k < in.size(v); k++){
+				int u = in.end(v, k);
+				out.remove(u, v);
+				deletedNeighbors[u]++;
+				dirty[u] = true;
+			}
+			for (Shortcut s : shortcuts){
+				out.put(s.from, s.to, s.weight, s.middle);
+				in.put(s.to, s.from, s.weight, s.middle);
+			}
+			contracted[v] = true;
+		}
+
+		private ContractionHierarchy freeze(){
+			int[] upOffsets = new int[n + 1];
+			int[] downOffsets = new int[n + 1];
+			for (int v = 0; v < n; v++){
+				upOffsets[v + 1] = upOffsets[v] + upEnds[v].length;
+				downOffsets[v + 1] = downOffsets[v] + downEnds[v].length;
+			}
+			int[] upTargets = new int[upOffsets[n]];
+			double[] upWeightArray = new double[upOffsets[n]];
+			int[] upMiddleArray = new int[upOffsets[n]];
+			int[] downSources = new int[downOffsets[n]];
+			double[] downWeightArray = new double[downOffsets[n]];
+			int[] downMiddleArray = new int[downOffsets[n]];
+			for (int v = 0; v < n; v++){
+				System.arraycopy(upEnds[v], 0, upTargets, upOffsets[v], upEnds[v].length);
+				System.arraycopy(upWeights[v], 0, upWeightArray, upOffsets[v], upEnds[v].length);
+				System.arraycopy(upMiddles[v], 0, upMiddleArray, upOffsets[v], upEnds[v].length);
+				System.arraycopy(downEnds[v], 0, downSources, downOffsets[v], downEnds[v].length);
+				System.arraycopy(downWeights[v], 0, downWeightArray, downOffsets[v], downEnds[v].length);
+				System.arraycopy(downMiddles[v], 0, downMiddleArray, downOffsets[v], downEnds[v].length);
+			}
+			return new ContractionHierarchy(rank, upOffsets, upTargets, upWeightArray, upMiddleArray,
+					downOffsets, downSources, downWeightArray, downMiddleArray);
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Dijkstra's algorithm over a CompactGraph.  All search state lives 
+ * in a SearchState whose primitive arrays are allocated once and 
+ * reused by every call to run, so the relaxation loop does not 
+ * allocate and starting a new run is O(1).
+ * 
+ * A CsrDijkstras object is not thread-safe; use one per thread.
+ */
+public class CsrDijkstras {
+	private final CompactGraph graph;
+	private final SearchState state;
+	
+	public CsrDijkstras(CompactGraph graph){
+		this(graph, 2);
+	}
+	
+	public CsrDijkstras(CompactGraph graph, int heapArity){
+		this.graph = graph;
+		state = new SearchState(heapArity);
+	}
+	
+	/*
+	 * The state left by the last run.
+	 */
+	public SearchState getState(){
+		return state;
+	}
+	
+	public CompactGraph getGraph(){
+		return graph;
+	}
+	
+	/*
+	 * Compute the distance from source to every vertex.
+	 */
+	public void run(int source){
+		long start = Instrumentation.ENABLED ? System.nanoTime() : 0;
+		state.reset(graph.numVertices());
+		state.relax(source, 0, -1);
+		IndexedMinHeap pq = state.heap();
+		
+		while (!pq.isEmpty()){
+			int u = pq.pollMin();
+			double du = state.getDistance(u);
+			for (int e = graph.edgeBegin(u), end = graph.edgeEnd(u); e < end; e++){
+				state.relax(graph.target(e), du + graph.weight(e), u);
+			}
+		}
+		if (Instrumentation.ENABLED){
+			Instrumentation.record("csr", start, source, -1, 0, state);
+		}
+	}
+	
+	/*
+	 * Distance found by the last run, or infinity if v is unreachable.
+	 */
+	public double getDistance(int v){
+		return state.getDistance(v);
+	}
+	
+	/*
+	 * The vertex before v on the shortest path found by the last run,
+	 * or -1 for the source and unreachable vertices.
+	 */
+	public int getParent(int v){
+		return state.getParent(v);
+	}
+}
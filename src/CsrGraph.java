@@ -0,0 +1,280 @@
+/*
+ * CsrGraph implements CompactGraph in compressed sparse row form.
+ * The edges of vertex v are stored in targets/weights from 
+ * offsets[v] up to offsets[v+1].  This costs 12 bytes per edge 
+ * instead of a HashMap entry and a boxed Double in Vertex.
+ * 
+ * A CsrGraph is built once, either from an AdjListGraph or with a
+ * Builder, and never changes afterwards.
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+public final class CsrGraph implements CompactGraph {
+	private final boolean isDirected;
+	private final String[] names;
+	private final int[] offsets;
+	private final int[] targets;
+	private final double[] weights;
+	// name -> vertex id, for indexOf.
+	private final HashMap<String, Integer> nameIds;
+	// The transposed graph, built the first time reverse is called.
+	private volatile CsrGraph reverse;
+	
+	CsrGraph(boolean directed, String[] names, int[] offsets, int[] targets, double[] weights){
+		this.isDirected = directed;
+		this.names = names;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		nameIds = new HashMap<String, Integer>();
+		for (int v = 0; v < names.length; v++){
+			nameIds.putIfAbsent(names[v], v);
+		}
+	}
+	
+	/*
+	 * Freeze an AdjListGraph.  Vertex ids are the same as the ids in
+	 * the AdjListGraph.
+	 */
+	public static CsrGraph from(AdjListGraph graph){
+		ArrayList<Vertex> vertices = graph.getVertices();
+		int n = vertices.size();
+		String[] names = new String[n];
+		int[] offsets = new int[n + 1];
+		for (int v = 0; v < n; v++){
+			Vertex vertex = vertices.get(v);
+			names[v] = vertex.getName();
+			offsets[v + 1] = offsets[v] + vertex.getAdjacentVertices().size();
+		}
+		int[] targets = new int[offsets[n]];
+		double[] weights = new double[offsets[n]];
+		for (int v = 0; v < n; v++){
+			Vertex vertex = vertices.get(v);
+			int e = offsets[v];
+			for (Vertex j : vertex.getAdjacentVertices()){
+				targets[e] = graph.indexOf(j);
+				weights[e] = vertex.getEdgeWeight(j);
+				e++;
+			}
+		}
+		return new CsrGraph(graph.isDirected(), names, offsets, targets, weights);
+	}
+	
+	public int numVertices(){
+		return names.length;
+	}
+	
+	public int numArcs(){
+		return targets.length;
+	}
+	
+	public boolean isDirected(){
+		return isDirected;
+	}
+	
+	public int edgeBegin(int v){
+		return offsets[v];
+	}
+	
+	public int edgeEnd(int v){
+		return offsets[v + 1];
+	}
+	
+	public int target(int e){
+		return targets[e];
+	}
+	
+	public double weight(int e){
+		return weights[e];
+	}
+	
+	public String getName(int v){
+		return names[v];
+	}
+	
+	public int outDegree(int v){
+		return offsets[v + 1] - offsets[v];
+	}
+	
+	/*
+	 * The transposed graph.  Directed graphs build it once, on the 
+	 * first call; undirected graphs return themselves.
+	 */
+	public CsrGraph reverse(){
+		if (!isDirected){
+			return this;
+		}
+		CsrGraph result = reverse;
+		if (result == null){
+			synchronized (this){
+				result = reverse;
+				if (result == null){
+					result = transpose();
+					reverse = result;
+				}
+			}
+		}
+		return result;
+	}
+	
+	private CsrGraph transpose(){
+		int n = names.length;
+		int[] reverseOffsets = new int[n + 1];
+		for (int e = 0; e < targets.length; e++){
+			reverseOffsets[targets[e] + 1]++;
+		}
+		for (int v = 0; v < n; v++){
+			reverseOffsets[v + 1] += reverseOffsets[v];
+		}
+		int[] next = Arrays.copyOf(reverseOffsets, n);
+		int[] reverseTargets = new int[targets.length];
+		double[] reverseWeights = new double[targets.length];
+		for (int u = 0; u < n; u++){
+			for (int e = offsets[u]; e < offsets[u + 1]; e++){
+				int slot = next[targets[e]]++;
+				reverseTargets[slot] = u;
+				reverseWeights[slot] = weights[e];
+			}
+		}
+		CsrGraph result = new CsrGraph(true, names, reverseOffsets, reverseTargets, reverseWeights);
+		result.reverse = this;
+		return result;
+	}
+	
+	/*
+	 * Returns the id of the vertex with the given name, or -1.
+	 */
+	public int indexOf(String name){
+		Integer id = nameIds.get(name);
+		return id == null ? -1 : id;
+	}
+	
+	/*
+	 * Collects edges in any order and lays them out in CSR form when
+	 * build is called.  For undirected graphs each edge is stored in
+	 * both directions.
+	 * 
+	 * A Builder made without names takes its vertex count from the 
+	 * largest id it sees, and names each vertex after its id.
+	 */
+	public static final class Builder {
+		private final boolean isDirected;
+		private final String[] names;
+		private int numVertices;
+		private int[] sources = new int[16];
+		private int[] targets = new int[16];
+		private double[] weights = new double[16];
+		private int size;
+		
+		public Builder(boolean directed, String[] names){
+			this.isDirected = directed;
+			this.names = names.clone();
+			numVertices = names.length;
+		}
+		
+		public Builder(boolean directed){
+			this.isDirected = directed;
+			this.names = null;
+		}
+		
+		/*
+		 * Make sure ids 0 to count-1 exist even if no edge touches them.
+		 * Only for builders made without names.
+		 */
+		public Builder ensureVertices(int count){
+			if (names != null && count > names.length){
+				throw new IllegalVertexException("ensureVertices failed.");
+			}
+			numVertices = Math.max(numVertices, count);
+			return this;
+		}
+		
+		public Builder addEdge(int i, int j, double weight){
+			if (i < 0 || j < 0 || (names != null && (i >= names.length || j >= names.length))){
+				throw new IllegalVertexException("Add edge failed.");
+			}
+			numVertices = Math.max(numVertices, Math.max(i, j) + 1);
+			add(i, j, weight);
+			if (!isDirected && i != j){
+				add(j, i, weight);
+			}
+			return this;
+		}
+		
+		private void add(int i, int j, double weight){
+			if (size == sources.length){
+				int capacity = size * 2;
+				sources = Arrays.copyOf(sources, capacity);
+				targets = Arrays.copyOf(targets, capacity);
+				weights = Arrays.copyOf(weights, capacity);
+			}
+			sources[size] = i;
+			targets[size] = j;
+			weights[size] = weight;
+			size++;
+		}
+		
+		/*
+		 * Lays the edges out in CSR form.  Like Vertex.addEdge, adding
+		 * the same edge twice keeps only the last weight.
+		 */
+		public CsrGraph build(){
+			int n = numVertices;
+			// Count the edges of each vertex, turn the counts into 
+			// offsets, then drop every edge into its slot.
+			int[] offsets = new int[n + 1];
+			for (int k = 0; k < size; k++){
+				offsets[sources[k] + 1]++;
+			}
+			for (int v = 0; v < n; v++){
+				offsets[v + 1] += offsets[v];
+			}
+			int[] next = Arrays.copyOf(offsets, n);
+			int[] csrTargets = new int[size];
+			double[] csrWeights = new double[size];
+			for (int k = 0; k < size; k++){
+				int e = next[sources[k]]++;
+				csrTargets[e] = targets[k];
+				csrWeights[e] = weights[k];
+			}
+			
+			// Squeeze out repeated edges.  slotOf[j] is where the edge to j
+			// was kept for the vertex named in ownerOf[j].
+			int[] slotOf = new int[n];
+			int[] ownerOf = new int[n];
+			Arrays.fill(ownerOf, -1);
+			int kept = 0;
+			for (int v = 0; v < n; v++){
+				int begin = offsets[v];
+				offsets[v] = kept;
+				for (int e = begin; e < offsets[v + 1]; e++){
+					int j = csrTargets[e];
+					if (ownerOf[j] == v){
+						csrWeights[slotOf[j]] = csrWeights[e];
+					}
+					else{
+						ownerOf[j] = v;
+						slotOf[j] = kept;
+						csrTargets[kept] = j;
+						csrWeights[kept] = csrWeights[e];
+						kept++;
+					}
+				}
+			}
+			offsets[n] = kept;
+			if (kept < size){
+				csrTargets = Arrays.copyOf(csrTargets, kept);
+				csrWeights = Arrays.copyOf(csrWeights, kept);
+			}
+			String[] vertexNames = names != null ? names.clone() : new String[n];
+			if (names == null){
+				for (int v = 0; v < n; v++){
+					vertexNames[v] = Integer.toString(v);
+				}
+			}
+			return new CsrGraph(isDirected, vertexNames, offsets, csrTargets, csrWeights);
+		}
+	}
+}
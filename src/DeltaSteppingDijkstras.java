@@ -0,0 +1,284 @@
+/*
+ * Parallel single source shortest paths by delta-stepping (Meyer and 
+ * Sanders).  Tentative distances are grouped into buckets of width 
+ * delta.  The smallest non-empty bucket is emptied by relaxing the 
+ * light edges (weight <= delta) of all its vertices in parallel, 
+ * repeating until no vertex falls back into it, and then relaxing the
+ * heavy edges of everything that passed through it, also in parallel.
+ * 
+ * Distances are updated with compare-and-set, so the order in which 
+ * threads relax edges does not matter and the final distances are 
+ * exactly those of CsrDijkstras.  Parents are filled in afterwards by
+ * a parallel breadth-first pass from the source over the tight edges,
+ * those with d(u) + w == d(v).  Each vertex is claimed once, by a
+ * vertex of an earlier level, so even with zero-weight edges the
+ * parents form a tree.
+ * 
+ * A DeltaSteppingDijkstras object runs one search at a time.
+ */
+import java.util.Arrays;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class DeltaSteppingDijkstras {
+	// Below this many vertices a piece of the frontier is relaxed on 
+	// one thread.
+	private static final int SPLIT_THRESHOLD = 256;
+	
+	private final CompactGraph graph;
+	private final ForkJoinPool pool;
+	private final double delta;
+	// Distances as raw double bits.  For non-negative doubles the bits 
+	// sort the same way as the values, so a CAS loop on longs keeps 
+	// the minimum.
+	private final AtomicLongArray distance;
+	// -1 until fillParents claims the vertex.
+	private final AtomicIntegerArray parent;
+	// Bucket each vertex is listed in, or -1; older entries are stale.
+	private final long[] bucketOf;
+	private final int[] settledRound;
+	
+	public DeltaSteppingDijkstras(CompactGraph graph){
+		this(graph, ForkJoinPool.commonPool(), pickDelta(graph));
+	}
+	
+	public DeltaSteppingDijkstras(CompactGraph graph, ForkJoinPool pool, double delta){
+		if (!(delta > 0)){
+			throw new IllegalArgumentException("Delta must be positive.");
+		}
+		this.graph = graph;
+		this.pool = pool;
+		this.delta = delta;
+		int n = graph.numVertices();
+		distance = new AtomicLongArray(n);
+		parent = new AtomicIntegerArray(n);
+		bucketOf = new long[n];
+		settledRound = new int[n];
+	}
+	
+	/*
+	 * The usual choice of delta: the largest edge weight divided by the
+	 * average out-degree, so a bucket holds about one edge's worth of 
+	 * distance per neighbor.
+	 */
+	public static double pickDelta(CompactGraph graph){
+		double maxWeight = 0;
+		for (int e = 0; e < graph.numArcs(); e++){
+			maxWeight = Math.max(maxWeight, graph.weight(e));
+		}
+		double averageDegree = Math.max(1.0, (double)graph.numArcs() / Math.max(1, graph.numVertices()));
+		double delta = maxWeight / averageDegree;
+		return delta > 0 ? delta : 1;
+	}
+	
+	public double getDelta(){
+		return delta;
+	}
+	
+	public double getDistance(int v){
+		return Double.longBitsToDouble(distance.get(v));
+	}
+	
+	public int getParent(int v){
+		return parent.get(v);
+	}
+	
+	public void run(int source){
+		int n = graph.numVertices();
+		if (source < 0 || source >= n){
+			throw new IllegalVertexException("run failed.");
+		}
+		long infinity = Double.doubleToLongBits(Double.POSITIVE_INFINITY);
+		for (int v = 0; v < n; v++){
+			distance.set(v, infinity);
+		}
+		Arrays.fill(bucketOf, -1);
+		Arrays.fill(settledRound, -1);
+		// Only the non-empty buckets, by number, so a small delta costs
+		// nothing for the empty stretches between distances.
+		TreeMap<Long, IntList> buckets = new TreeMap<Long, IntList>();
+		
+		distance.set(source, Double.doubleToLongBits(0));
+		place(buckets, source);
+		
+		int round = 0;
+		while (!buckets.isEmpty()){
+			long i = buckets.firstKey();
+			IntList settled = new IntList();
+			while (buckets.containsKey(i)){
+				int[] frontier = take(buckets, i);
+				for (int v : frontier){
+					if (settledRound[v] != round){
+						settledRound[v] = round;
+						settled.add(v);
+					}
+				}
+				IntList improved = pool.invoke(new Relax(frontier, 0, frontier.length, true));
+				placeAll(buckets, improved);
+			}
+			if (settled.size() > 0){
+				int[] all = settled.toArray();
+				placeAll(buckets, pool.invoke(new Relax(all, 0, all.length, false)));
+			}
+			round++;
+		}
+		fillParents(source);
+	}
+	
+	// Take the live entries out of bucket i.
+	private int[] take(TreeMap<Long, IntList> buckets, long i){
+		IntList bucket = buckets.remove(i);
+		IntList live = new IntList();
+		for (int k = 0; k < bucket.size(); k++){
+			int v = bucket.get(k);
+			if (bucketOf[v] == i){
+				bucketOf[v] = -1;
+				live.add(v);
+			}
+		}
+		return live.toArray();
+	}
+	
+	private void placeAll(TreeMap<Long, IntList> buckets, IntList vertices){
+		for (int k = 0; k < vertices.size(); k++){
+			place(buckets, vertices.get(k));
+		}
+	}
+	
+	// File v under the bucket of its current distance.
+	private void place(TreeMap<Long, IntList> buckets, int v){
+		long b = (long)(getDistance(v) / delta);
+		if (bucketOf[v] == b){
+			return;
+		}
+		IntList bucket = buckets.get(b);
+		if (bucket == null){
+			bucket = new IntList();
+			buckets.put(b, bucket);
+		}
+		bucket.add(v);
+		bucketOf[v] = b;
+	}
+	
+	// Lower v's distance to d if that is smaller.  Returns true if it was.
+	private boolean lower(int v, double d){
+		long bits = Double.doubleToLongBits(d);
+		while (true){
+			long current = distance.get(v);
+			if (bits >= current){
+				return false;
+			}
+			if (distance.compareAndSet(v, current, bits)){
+				return true;
+			}
+		}
+	}
+	
+	// Breadth-first over the tight edges, one level at a time.
+	private void fillParents(int source){
+		int n = graph.numVertices();
+		for (int v = 0; v < n; v++){
+			parent.set(v, -1);
+		}
+		// The source claims itself so nothing else does, and gives it
+		// back at the end.
+		parent.set(source, source);
+		int[] level = {source};
+		while (level.length > 0){
+			level = pool.invoke(new Claim(level, 0, level.length)).toArray();
+		}
+		parent.set(source, -1);
+	}
+	
+	/*
+	 * Relax the light or heavy edges of vertices[from..to) and return the
+	 * vertices whose distance went down.
+	 */
+	private final class Relax extends RecursiveTask<IntList> {
+		private static final long serialVersionUID = 1L;
+		
+		private final int[] vertices;
+		private final int from;
+		private final int to;
+		private final boolean light;
+		
+		Relax(int[] vertices, int from, int to, boolean light){
+			this.vertices = vertices;
+			this.from = from;
+			this.to = to;
+			this.light = light;
+		}
+		
+		protected IntList compute(){
+			if (to - from > SPLIT_THRESHOLD){
+				int middle = (from + to) >>> 1;
+				Relax left = new Relax(vertices, from, middle, light);
+				left.fork();
+				IntList right = new Relax(vertices, middle, to, light).compute();
+				IntList result = left.join();
+				result.addAll(right);
+				return result;
+			}
+			IntList improved = new IntList(8);
+			for (int k = from; k < to; k++){
+				int u = vertices[k];
+				double du = getDistance(u);
+				for (int e = graph.edgeBegin(u), end = graph.edgeEnd(u); e < end; e++){
+					double w = graph.weight(e);
+					if ((w <= delta) == light){
+						int v = graph.target(e);
+						if (lower(v, du + w)){
+							improved.add(v);
+						}
+					}
+				}
+			}
+			return improved;
+		}
+	}
+	
+	/*
+	 * Claim the unclaimed targets of the tight edges out of
+	 * vertices[from..to) and return them.
+	 */
+	private final class Claim extends RecursiveTask<IntList> {
+		private static final long serialVersionUID = 1L;
+		
+		private final int[] vertices;
+		private final int from;
+		private final int to;
+		
+		Claim(int[] vertices, int from, int to){
+			this.vertices = vertices;
+			this.from = from;
+			this.to = to;
+		}
+		
+		protected IntList compute(){
+			if (to - from > SPLIT_THRESHOLD){
+				int middle = (from + to) >>> 1;
+				Claim left = new Claim(vertices, from, middle);
+				left.fork();
+				IntList right = new Claim(vertices, middle, to).compute();
+				IntList result = left.join();
+				result.addAll(right);
+				return result;
+			}
+			IntList claimed = new IntList(8);
+			for (int k = from; k < to; k++){
+				int u = vertices[k];
+				double du = getDistance(u);
+				for (int e = graph.edgeBegin(u), end = graph.edgeEnd(u); e < end; e++){
+					int v = graph.target(e);
+					if (du + graph.weight(e) == getDistance(v) && parent.compareAndSet(v, -1, u)){
+						claimed.add(v);
+					}
+				}
+			}
+			return claimed;
+		}
+	}
+}
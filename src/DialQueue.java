@@ -0,0 +1,115 @@
+/*
+ * Dial's bucket queue: a MonotoneQueue for keys that are never more
+ * than maxStep above the last key polled, as in Dijkstra's algorithm
+ * when no edge weighs more than maxStep.  There is a circular array of
+ * maxStep+1 buckets, and key k lives in bucket k mod (maxStep+1), so
+ * all the keys in a bucket are equal.  Insert and decrease-key are
+ * O(1) list operations; pollMin walks forward to the next non-empty
+ * bucket, which costs at most maxStep+1 steps and in total no more
+ * than the largest distance.
+ *
+ * Buckets are doubly linked lists threaded through next and prev
+ * arrays indexed by id, so the queue never allocates after it is
+ * made.
+ */
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public final class DialQueue implements MonotoneQueue {
+	private final int[] head;
+	private final int[] next;
+	private final int[] prev;
+	// The key of each id in the queue; -1 for ids that are not.
+	private final long[] keys;
+	private long current;
+	private int size;
+
+	public DialQueue(int capacity, int maxStep){
+		if (maxStep < 0 || maxStep == Integer.MAX_VALUE){
+			throw new IllegalArgumentException("Bad maximum step " + maxStep + ".");
+		}
+		head = new int[maxStep + 1];
+		next = new int[capacity];
+		prev = new int[capacity];
+		keys = new long[capacity];
+		Arrays.fill(head, -1);
+		Arrays.fill(keys, -1);
+	}
+
+	public void insertOrDecrease(int id, long key){
+		long old = keys[id];
+		if (old >= 0 && key >= old){
+			return;
+		}
+		// Check before changing anything, so a bad key leaves the queue
+		// as it was.
+		if (key < current || key - current >= head.length){
+			throw new IllegalArgumentException("Key " + key + " is outside " + current + " to "
+					+ (current + head.length - 1) + ".");
+		}
+		if (old >= 0){
+			unlink(id, old);
+		}
+		else{
+			size++;
+		}
+		keys[id] = key;
+		int bucket = (int)(key % head.length);
+		next[id] = head[bucket];
+		prev[id] = -1;
+		if (head[bucket] >= 0){
+			prev[head[bucket]] = id;
+		}
+		head[bucket] = id;
+	}
+
+	private void unlink(int id, long key){
+		if (prev[id] >= 0){
+			next[prev[id]] = next[id];
+		}
+		else{
+			head[(int)(key % head.length)] = next[id];
+		}
+		if (next[id] >= 0){
+			prev[next[id]] = prev[id];
+		}
+	}
+
+	public int pollMin(){
+		if (size == 0){
+			throw new NoSuchElementException("Queue is empty.");
+		}
+		int bucket = (int)(current % head.length);
+		while (head[bucket] < 0){
+			current++;
+			bucket = bucket + 1 == head.length ? 0 : bucket + 1;
+		}
+		int id = head[bucket];
+		unlink(id, current);
+		keys[id] = -1;
+		size--;
+		return id;
+	}
+
+	public long lastKey(){
+		return current;
+	}
+
+	public boolean isEmpty(){
+		return size == 0;
+	}
+
+	public void clear(){
+		// Ids are only left behind when a search stops early.
+		if (size > 0){
+			for (int bucket = 0; bucket < head.length; bucket++){
+				for (int id = head[bucket]; id >= 0; id = next[id]){
+					keys[id] = -1;
+				}
+				head[bucket] = -1;
+			}
+			size = 0;
+		}
+		current = 0;
+	}
+}
@@ -1,28 +1,14 @@
-/* Subclass of Vertex specific to Dijkstra. Adds a distance
- * field and the ability to compare to DijkstraVertex objects.
+/* Subclass of Vertex specific to Dijkstra.  It used to carry the 
+ * distance of the current search, but search state now lives in a
+ * SearchState so that one graph can serve concurrent queries.
  * 
  * @author sspurlock
  * @version 2019-10-21
  */
 
-public class DijkstraVertex extends Vertex implements Comparable<DijkstraVertex> {
-	private double distance;
+public class DijkstraVertex extends Vertex {
 	
 	public DijkstraVertex(String name) {
 		super(name);	
 	}
-	
-	public void setDistance(double dist){
-		distance = dist;
-	}
-	
-	public double getDistance(){
-		return distance;
-	}
-	
-	public int compareTo(DijkstraVertex j) {
-		if(this.distance < j.distance) return -1;
-		else if (this.distance > j.distance) return 1;
-		else return 0;
-	}
 }
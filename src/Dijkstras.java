@@ -9,22 +9,50 @@
  * @version 2019-10-21
  */
 
-import java.util.HashMap;
-import java.util.PriorityQueue;
+import java.util.ArrayList;
+import java.util.Map;
 import java.util.Scanner;
 
 public class Dijkstras {
-	HashMap<DijkstraVertex, DijkstraVertex> parent = new HashMap<DijkstraVertex, DijkstraVertex>();
+	// Priority queue configuration.  The arity picks between a binary
+	// heap (2) and a d-ary heap; lazy insertion only adds vertices to
+	// the heap once they are reached.  Both can also be set with the
+	// dijkstras.heapArity and dijkstras.lazyInsertion system properties.
+	private int heapArity;
+	private boolean lazyInsertion;
+	// Whether runShortestPath may use BucketDijkstras on graphs with
+	// whole number weights; -Ddijkstras.bucketQueue=false turns it off.
+	private boolean useBucketQueue = !"false".equals(System.getProperty("dijkstras.bucketQueue"));
 
 	// Constructor: prompt user to enter file name, then
 	// call runShortestPath with the file name.
 	public Dijkstras() {
+		this(Integer.getInteger("dijkstras.heapArity", 2),
+				Boolean.getBoolean("dijkstras.lazyInsertion"));
 		Scanner scnr = new Scanner(System.in);
 		System.out.println("Enter the file name");
 		String fileName = scnr.next();
 		runShortestPath(fileName);
 		scnr.close();
 	}
+	
+	// Constructor that only sets up the priority queue, so shortestPath 
+	// can be called directly without prompting.
+	public Dijkstras(int heapArity, boolean lazyInsertion) {
+		if (heapArity < 2) {
+			throw new IllegalArgumentException("Heap arity must be at least 2.");
+		}
+		this.heapArity = heapArity;
+		this.lazyInsertion = lazyInsertion;
+	}
+	
+	public int getHeapArity() {
+		return heapArity;
+	}
+	
+	public boolean isLazyInsertion() {
+		return lazyInsertion;
+	}
 
 	// Make a graph and run Dijkstra's algorithm.
 	public void runShortestPath(String fileName){
@@ -48,97 +76,88 @@ public class Dijkstras {
 		
 		scnr.close();
 		
-		// Call the shortestPath method with the graph and the source Vertex.
-		// TODO
-		DijkstraVertex sourceVertex = null;
-		DijkstraVertex endingVertex = null;
-		
-		for (Vertex v : graph.getVertices()) {
-			if (v.getName().equals(startVertex)) {
-				sourceVertex = (DijkstraVertex)v;
+		// Run a query that stops once the ending vertex is settled.  When
+		// every weight is a whole number a bucket queue replaces the heap.
+		PathResult result;
+		String[] names;
+		if (graphMaker.hasIntegerWeights() && useBucketQueue) {
+			CsrGraph csr = CsrGraph.from(graph);
+			int source = csr.indexOf(startVertex);
+			int target = csr.indexOf(endVertex);
+			if (source < 0 || target < 0) {
+				throw new IllegalVertexException("No vertex named " + (source < 0 ? startVertex : endVertex) + ".");
 			}
-			else if (v.getName().equals(endVertex)) {
-				endingVertex = (DijkstraVertex)v;
+			result = new BucketDijkstras(csr).query(source, target);
+			names = new String[result.length()];
+			for (int k = 0; k < names.length; k++) {
+				names[k] = csr.getName(result.getVertex(k));
 			}
 		}
+		else {
+			ShortestPathQuery query = new ShortestPathQuery(graph, heapArity, lazyInsertion);
+			result = query.query(startVertex, endVertex);
+			names = query.getNames(result);
+		}
 		
-		shortestPath(graph, sourceVertex);
 		// Get the distance to the destination Vertex and print it out.
-		// TODO
-		System.out.println("The shortest path is " + endingVertex.getDistance());
-		
-		// Find and print the path by following back from the destination Vertex to each
-		// parent. Note that, in the shortestPath method, you'll have stored 
-		// the parent for each Vertex in the HashMap declared at the top of this file).
-		// TODO
-		System.out.print(sourceVertex.getName());
-		DijkstraVertex tempVertex = sourceVertex;
+		System.out.println("The shortest path is " + result.getDistance());
 		
-		while (tempVertex != endingVertex) {
-			for (DijkstraVertex v : parent.keySet()) {
-				if (v.equals(tempVertex)) {
-					System.out.print("::" + parent.get(v).getName());
-					tempVertex = parent.get(v);
-				}
-			}
-		}
+		// Print the path, which the query rebuilt by following the parent 
+		// of each vertex back from the destination.
+		System.out.print(String.join("::", names));
 	}
 
 	// Given the graph and source vertex, run Dijkstra's algorithm.
-	public void shortestPath(AdjListGraph graph, DijkstraVertex source){
-		// Initialize the distance to all the vertices in the graph to infinity,
-		// except the source vertex, which should be 0.
-		// TODO
-		
-		// Make a PriorityQueue (imported above in Java.Util.PriorityQueue)
-		// of DijkstraVertex objects and add all the vertices.
-		// TODO
+	// The distance and parent of every vertex are returned in a new 
+	// SearchState rather than stored in the vertices, so several threads 
+	// can run shortestPath on the same graph at once.
+	public SearchState shortestPath(AdjListGraph graph, DijkstraVertex source){
+		// The graph's vertex ids are dense, so they double as heap ids.
+		ArrayList<Vertex> vertices = graph.getVertices();
+		int sourceId = graph.indexOf(source);
+		if (sourceId < 0) {
+			throw new IllegalVertexException("shortestPath failed.");
+		}
 		
-		PriorityQueue<DijkstraVertex> pq = new PriorityQueue<>();
+		// Initialize the distance to all the vertices in the graph to infinity,
+		// except the source vertex, which should be 0. A vertex that was 
+		// never set reads as infinity.
+		// In lazy mode only the source starts in the heap; other vertices
+		// are inserted the first time an edge reaches them.
+		long start = Instrumentation.ENABLED ? System.nanoTime() : 0;
+		SearchState state = new SearchState(heapArity);
+		state.reset(vertices.size());
+		IndexedMinHeap pq = state.heap();
 		
-		for (Vertex i : graph.getVertices()) {
-			DijkstraVertex vertex = (DijkstraVertex)i;
-			if (vertex.equals(source)) {
-				vertex.setDistance(0);
-			}
-			else {
-				vertex.setDistance(Double.POSITIVE_INFINITY);
+		state.relax(sourceId, 0, -1);
+		if (!lazyInsertion) {
+			for (int id = 0; id < vertices.size(); id++) {
+				if (id != sourceId) {
+					state.set(id, Double.POSITIVE_INFINITY, -1);
+					pq.insert(id, Double.POSITIVE_INFINITY);
+				}
 			}
-			pq.add(vertex);
 		}
 		
-		// Keep looping as long as the priorty queue is not empty, doing the following:
+		// Keep looping as long as the priority queue is not empty, doing the following:
 		// - get the next closest Vertex from the priority queue
 		// - get its adjacent vertices
 		// - for each adjacent vertex, check if the distance to get there from the 
-		//   current vertex would be shorter than its current distance. If so, remove
-		//   it from the priority queue, update its distance, and re-add it. Keep track
-		//   of which vertex led to this vertex using the parent HashMap declared
-		//   at the top of the file.
-		// TODO
+		//   current vertex would be shorter than its current distance. If so, 
+		//   decrease its key in the heap (inserting it if this is the first 
+		//   time it was reached) and record the current vertex as its parent.
 		
 		while (!pq.isEmpty()) {
-			DijkstraVertex closestVertex = pq.poll();
+			int closest = pq.pollMin();
+			double closestDistance = state.getDistance(closest);
 			
-			double temp = Double.MAX_VALUE;
-			for (Vertex i : closestVertex.getAdjacentVertices()) {
-				DijkstraVertex v = (DijkstraVertex)i;
-				
-				if (closestVertex.getDistance() + closestVertex.getEdgeWeight(i) < v.getDistance()) {
-					pq.remove(v);
-					v.setDistance(closestVertex.getDistance() + closestVertex.getEdgeWeight(v));
-					if (graph.isDirected()) {
-						parent.put(closestVertex, v);
-					}
-					else {
-						if (v.getDistance() < temp) {
-							temp = v.getDistance();
-							parent.put(closestVertex, v);
-						}
-					}
-					pq.add(v);
-				}
+			for (Map.Entry<Vertex, Double> edge : vertices.get(closest).getEdges()) {
+				state.relax(graph.indexOf(edge.getKey()), closestDistance + edge.getValue(), closest);
 			}
 		}
+		if (Instrumentation.ENABLED) {
+			Instrumentation.record("dijkstras", start, sourceId, -1, 0, state);
+		}
+		return state;
 	}
 }
@@ -0,0 +1,178 @@
+/*
+ * Many-to-many shortest path distances: given N sources and M targets,
+ * the N x M table of distances between them, as one flat row-major
+ * array (the distance from sources[i] to targets[j] is at i * M + j).
+ * Unreachable pairs are infinity.
+ *
+ * Instead of a full shortestPath per source, each source gets one
+ * search that stops as soon as every target is settled.  When there
+ * are fewer targets than sources it turns around: one search per
+ * target over the reverse graph, stopping once every source is
+ * settled, so the number of searches is min(N, M).  Searches run in
+ * parallel on a ForkJoinPool, each thread reusing its own SearchState
+ * from one search to the next.
+ *
+ * For large graphs with a ContractionHierarchy, ChDistanceTable
+ * does the same job with far smaller searches.
+ *
+ * Usage: java DistanceTable <graph file> [sources] [targets]
+ */
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+public class DistanceTable {
+	private final CompactGraph graph;
+	private final ForkJoinPool pool;
+
+	public DistanceTable(CompactGraph graph){
+		this(graph, ForkJoinPool.commonPool());
+	}
+
+	public DistanceTable(CompactGraph graph, ForkJoinPool pool){
+		this.graph = graph;
+		this.pool = pool;
+	}
+
+	public CompactGraph getGraph(){
+		return graph;
+	}
+
+	/*
+	 * The distance table, searching from whichever side has fewer
+	 * vertices.
+	 */
+	public double[] compute(int[] sources, int[] targets) throws IllegalVertexException{
+		return targets.length < sources.length ? computeReverse(sources, targets) : computeForward(sources, targets);
+	}
+
+	/*
+	 * The distance table, with one search per source.
+	 */
+	public double[] computeForward(int[] sources, int[] targets) throws IllegalVertexException{
+		double[] table = new double[sources.length * targets.length];
+		int columns = targets.length;
+		searchAll(graph, sources, targets, (i, j, distance) -> table[i * columns + j] = distance);
+		return table;
+	}
+
+	/*
+	 * The distance table, with one search per target over the reverse
+	 * graph.
+	 */
+	public double[] computeReverse(int[] sources, int[] targets) throws IllegalVertexException{
+		double[] table = new double[sources.length * targets.length];
+		int columns = targets.length;
+		searchAll(graph.reverse(), targets, sources, (j, i, distance) -> table[i * columns + j] = distance);
+		return table;
+	}
+
+	// Where a search writes the distance from its start (origin k) to
+	// one of its ends (end j).
+	private interface Cell {
+		void set(int k, int j, double distance);
+	}
+
+	// One search per origin over g, each stopping once every end is
+	// settled.
+	private void searchAll(CompactGraph g, int[] origins, int[] ends, Cell cell){
+		int n = g.numVertices();
+		check(origins, n);
+		check(ends, n);
+		// A vertex listed more than once among the ends is only waited
+		// for once.
+		boolean[] isEnd = new boolean[n];
+		int distinct = 0;
+		for (int v : ends){
+			if (!isEnd[v]){
+				isEnd[v] = true;
+				distinct++;
+			}
+		}
+		int distinctEnds = distinct;
+		pool.submit(() -> IntStream.range(0, origins.length).parallel().forEach(k -> {
+			SearchState state = SearchState.local();
+			state.reset(n);
+			state.relax(origins[k], 0, -1);
+			IndexedMinHeap pq = state.heap();
+			int pending = distinctEnds;
+			while (pending > 0 && !pq.isEmpty()){
+				int u = pq.pollMin();
+				if (isEnd[u]){
+					pending--;
+				}
+				double du = state.getDistance(u);
+				for (int e = g.edgeBegin(u), end = g.edgeEnd(u); e < end; e++){
+					state.relax(g.target(e), du + g.weight(e), u);
+				}
+			}
+			for (int j = 0; j < ends.length; j++){
+				cell.set(k, j, state.getDistance(ends[j]));
+			}
+		})).join();
+	}
+
+	private static void check(int[] vertices, int n){
+		for (int v : vertices){
+			if (v < 0 || v >= n){
+				throw new IllegalVertexException("No vertex " + v + ".");
+			}
+		}
+	}
+
+	public static void main(String[] args){
+		if (args.length < 1){
+			System.out.println("Usage: java DistanceTable <graph file> [sources] [targets]");
+			return;
+		}
+		CsrGraph graph = new GraphMaker().makeCsrGraphFromFile(args[0]);
+		int n = graph.numVertices();
+		int sourceCount = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		int targetCount = args.length > 2 ? Integer.parseInt(args[2]) : sourceCount;
+		Random random = new Random(42);
+		int[] sources = random.ints(sourceCount, 0, n).toArray();
+		int[] targets = random.ints(targetCount, 0, n).toArray();
+		DistanceTable table = new DistanceTable(graph);
+
+		// One full search per source, as shortestPath would do.
+		CsrDijkstras full = new CsrDijkstras(graph);
+		double[] expected = new double[sourceCount * targetCount];
+		Supplier<double[]> fullSearches = () -> {
+			for (int i = 0; i < sourceCount; i++){
+				full.run(sources[i]);
+				for (int j = 0; j < targetCount; j++){
+					expected[i * targetCount + j] = full.getDistance(targets[j]);
+				}
+			}
+			return expected;
+		};
+		report("full searches", fullSearches, expected);
+		report("forward", () -> table.computeForward(sources, targets), expected);
+		report("reverse", () -> table.computeReverse(sources, targets), expected);
+
+		long start = System.nanoTime();
+		ChDistanceTable buckets = new ChDistanceTable(ContractionHierarchy.build(graph));
+		System.out.printf("%-14s %10.1f ms%n", "ch build", (System.nanoTime() - start) / 1e6);
+		report("ch buckets", () -> buckets.compute(sources, targets), expected);
+	}
+
+	// Time the best of a few runs, and count the cells that differ from
+	// expected.
+	private static void report(String name, Supplier<double[]> run, double[] expected){
+		double best = Double.POSITIVE_INFINITY;
+		double[] table = null;
+		for (int round = 0; round < 3; round++){
+			long start = System.nanoTime();
+			table = run.get();
+			best = Math.min(best, (System.nanoTime() - start) / 1e6);
+		}
+		int wrong = 0;
+		for (int k = 0; k < table.length; k++){
+			if (table[k] != expected[k] && Math.abs(table[k] - expected[k]) > 1e-9 * Math.abs(expected[k])){
+				wrong++;
+			}
+		}
+		System.out.printf("%-14s %10.1f ms%s%n", name, best, wrong == 0 ? "" : "  " + wrong + " cells differ");
+	}
+}
@@ -0,0 +1,248 @@
+/*
+ * Keeps the shortest path tree from one source up to date while an
+ * AdjListGraph changes, instead of rerunning Dijkstra's algorithm
+ * after every change.  It listens to the graph and, in the style of
+ * Ramalingam and Reps, repairs only the part of the tree the changes
+ * touch:
+ *
+ *  - An edge of the tree that got longer or was removed cuts off the
+ *    subtree below it.  Those vertices forget their distances, take the
+ *    best offer from an incoming edge outside the subtree, and go into
+ *    a heap.
+ *  - An edge that got shorter or was added goes into the heap if it
+ *    now gives its target a shorter path.
+ *  - Dijkstra's algorithm then runs from the heap only, so it stops as
+ *    soon as no more distances change.
+ *
+ * Changes are queued and repaired together the next time a distance is
+ * asked for (or when repair is called), so a batch of weight updates
+ * costs one repair.  Removing a vertex changes ids, so that triggers a
+ * full recomputation.
+ *
+ * The graph must be changed through AdjListGraph, not through Vertex.
+ * Not thread-safe.
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+public class DynamicShortestPaths implements GraphListener {
+	private final AdjListGraph graph;
+	private final Vertex source;
+	private double[] distance;
+	private int[] parent;
+	private IndexedMinHeap heap;
+	// Edges changed since the last repair, as (from, to) pairs.
+	private final ArrayList<Vertex> changedFrom = new ArrayList<Vertex>();
+	private final ArrayList<Vertex> changedTo = new ArrayList<Vertex>();
+	private boolean needsRecompute;
+	// Vertices whose distance was looked at by the last repair.
+	private int touched;
+
+	public DynamicShortestPaths(AdjListGraph graph, Vertex source) throws IllegalVertexException{
+		if (!graph.containsVertex(source)){
+			throw new IllegalVertexException("DynamicShortestPaths failed.");
+		}
+		this.graph = graph;
+		this.source = source;
+		recompute();
+		graph.addGraphListener(this);
+	}
+
+	/*
+	 * Stop following the graph.
+	 */
+	public void detach(){
+		graph.removeGraphListener(this);
+	}
+
+	public Vertex getSource(){
+		return source;
+	}
+
+	public double getDistance(Vertex v) throws IllegalVertexException{
+		int id = graph.indexOf(v);
+		if (id < 0){
+			throw new IllegalVertexException("getDistance failed.");
+		}
+		return getDistance(id);
+	}
+
+	public double getDistance(int v){
+		repair();
+		return distance[v];
+	}
+
+	/*
+	 * The id of v's parent in the tree, or -1.
+	 */
+	public int getParent(int v){
+		repair();
+		return parent[v];
+	}
+
+	public PathResult toPath(int target){
+		repair();
+		int s = graph.indexOf(source);
+		double dist = distance[target];
+		if (s < 0 || dist == Double.POSITIVE_INFINITY){
+			return new PathResult(s, target, Double.POSITIVE_INFINITY, new int[0]);
+		}
+		int length = 1;
+		for (int v = target; v != s; v = parent[v]){
+			length++;
+		}
+		int[] path = new int[length];
+		for (int v = target, k = length - 1; k >= 0; v = parent[v], k--){
+			path[k] = v;
+		}
+		return new PathResult(s, target, dist, path);
+	}
+
+	/*
+	 * Number of vertices the last repair had to look at.
+	 */
+	public int getTouchedCount(){
+		return touched;
+	}
+
+	public void edgeChanged(Vertex from, Vertex to, double oldWeight, double newWeight){
+		if (from != to){
+			changedFrom.add(from);
+			changedTo.add(to);
+		}
+	}
+
+	public void vertexAdded(Vertex v){
+		int n = graph.numVertices();
+		if (n > distance.length){
+			int size = Math.max(n, distance.length * 2);
+			int old = distance.length;
+			distance = Arrays.copyOf(distance, size);
+			parent = Arrays.copyOf(parent, size);
+			Arrays.fill(distance, old, size, Double.POSITIVE_INFINITY);
+			Arrays.fill(parent, old, size, -1);
+			heap = new IndexedMinHeap(size);
+		}
+	}
+
+	public void vertexRemoved(Vertex v){
+		needsRecompute = true;
+	}
+
+	/*
+	 * Bring the tree up to date with every change queued so far.
+	 */
+	public void repair(){
+		if (needsRecompute){
+			recompute();
+			return;
+		}
+		if (changedFrom.isEmpty()){
+			return;
+		}
+		touched = 0;
+
+		// Edges of the tree that got longer or disappeared: everything
+		// below them loses its distance.
+		ArrayList<Integer> cut = new ArrayList<Integer>();
+		for (int k = 0; k < changedFrom.size(); k++){
+			int u = graph.indexOf(changedFrom.get(k));
+			int v = graph.indexOf(changedTo.get(k));
+			if (parent[v] == u && distance[v] != Double.POSITIVE_INFINITY
+					&& distance[u] + changedFrom.get(k).getEdgeWeight(changedTo.get(k)) > distance[v]){
+				cutSubtree(v, cut);
+			}
+		}
+		// Each cut vertex takes the best incoming edge from outside.
+		for (int a : cut){
+			double best = Double.POSITIVE_INFINITY;
+			int bestParent = -1;
+			for (Map.Entry<Vertex, Double> edge : graph.getVertex(a).getIncomingEdges()){
+				int x = graph.indexOf(edge.getKey());
+				double d = distance[x] + edge.getValue();
+				if (d < best){
+					best = d;
+					bestParent = x;
+				}
+			}
+			if (bestParent >= 0){
+				distance[a] = best;
+				parent[a] = bestParent;
+				heap.insertOrDecrease(a, best);
+			}
+		}
+		// Edges that got shorter or appeared.
+		for (int k = 0; k < changedFrom.size(); k++){
+			Vertex from = changedFrom.get(k);
+			Vertex to = changedTo.get(k);
+			relax(graph.indexOf(from), graph.indexOf(to), distance[graph.indexOf(from)] + from.getEdgeWeight(to));
+		}
+		changedFrom.clear();
+		changedTo.clear();
+		propagate();
+		touched += cut.size();
+	}
+
+	// Mark v and all of its descendants in the tree as unreached.  The
+	// children of a vertex are among its out-neighbours, so no child
+	// lists are needed.
+	private void cutSubtree(int v, ArrayList<Integer> cut){
+		if (distance[v] == Double.POSITIVE_INFINITY){
+			return;
+		}
+		int start = cut.size();
+		distance[v] = Double.POSITIVE_INFINITY;
+		cut.add(v);
+		for (int k = start; k < cut.size(); k++){
+			int x = cut.get(k);
+			for (Vertex child : graph.getVertex(x).getAdjacentVertices()){
+				int c = graph.indexOf(child);
+				if (parent[c] == x && distance[c] != Double.POSITIVE_INFINITY){
+					distance[c] = Double.POSITIVE_INFINITY;
+					cut.add(c);
+				}
+			}
+			parent[x] = -1;
+		}
+	}
+
+	private void relax(int u, int v, double d){
+		if (d < distance[v]){
+			distance[v] = d;
+			parent[v] = u;
+			heap.insertOrDecrease(v, d);
+		}
+	}
+
+	// Dijkstra's algorithm from whatever is in the heap.
+	private void propagate(){
+		while (!heap.isEmpty()){
+			int u = heap.pollMin();
+			touched++;
+			double du = distance[u];
+			for (Map.Entry<Vertex, Double> edge : graph.getVertex(u).getEdges()){
+				relax(u, graph.indexOf(edge.getKey()), du + edge.getValue());
+			}
+		}
+	}
+
+	private void recompute(){
+		int n = graph.numVertices();
+		distance = new double[Math.max(n, 1)];
+		parent = new int[distance.length];
+		heap = new IndexedMinHeap(distance.length);
+		Arrays.fill(distance, Double.POSITIVE_INFINITY);
+		Arrays.fill(parent, -1);
+		changedFrom.clear();
+		changedTo.clear();
+		needsRecompute = false;
+		touched = 0;
+		int s = graph.indexOf(source);
+		if (s >= 0){
+			distance[s] = 0;
+			heap.insert(s, 0);
+			propagate();
+		}
+	}
+}
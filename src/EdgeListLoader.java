@@ -0,0 +1,196 @@
+/*
+ * Loads sparse graphs from edge list files through a memory-mapped
+ * ByteParser, so no String is built per token.  Two formats are read:
+ * 
+ * Edge lists (any extension but .gr), one edge per line as
+ *     source target [weight]
+ * with vertex ids counted from 0 and a weight of 1 if left out.  Lines
+ * starting with '#' or '%' are comments, except that a header line
+ * "# directed" or "# undirected" says which kind of graph it is.
+ * Without one the graph is directed.
+ * 
+ * DIMACS shortest path files (.gr): a "p sp <vertices> <edges>" line
+ * and "a <source> <target> <weight>" lines with ids counted from 1.
+ * These graphs are always directed, and vertices keep their DIMACS 
+ * numbers as names.
+ * 
+ * setDirected overrides whatever the file says.
+ */
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class EdgeListLoader {
+	private Boolean directed;
+	
+	/*
+	 * Force the graph to be directed or undirected, ignoring the file.
+	 */
+	public void setDirected(boolean directed){
+		this.directed = directed;
+	}
+	
+	public static boolean isEdgeListFile(String fileName){
+		return fileName.endsWith(".gr") || fileName.endsWith(".el") || fileName.endsWith(".edges");
+	}
+	
+	public CsrGraph loadCsr(String fileName) throws IOException{
+		CsrSink sink = new CsrSink();
+		read(fileName, sink);
+		return sink.builder.build();
+	}
+	
+	/*
+	 * Load the file as an AdjListGraph of DijkstraVertex objects, with 
+	 * the same vertex ids and names as loadCsr gives.
+	 */
+	public AdjListGraph load(String fileName) throws IOException{
+		AdjListSink sink = new AdjListSink();
+		read(fileName, sink);
+		return sink.graph;
+	}
+	
+	private void read(String fileName, EdgeSink sink) throws IOException{
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)){
+			ByteParser parser = new ByteParser(channel, 0, channel.size());
+			if (fileName.endsWith(".gr")){
+				readDimacs(parser, sink);
+			}
+			else{
+				readEdgeList(parser, sink);
+			}
+		}
+	}
+	
+	// Where the parsers put what they read, so a file goes straight into
+	// whichever graph is wanted.  start is called once, before any edge;
+	// null names means each vertex is named after its id.
+	private interface EdgeSink {
+		void start(boolean isDirected, String[] names);
+		
+		void addEdge(int source, int target, double weight);
+	}
+	
+	private static final class CsrSink implements EdgeSink {
+		CsrGraph.Builder builder;
+		
+		public void start(boolean isDirected, String[] names){
+			builder = names != null ? new CsrGraph.Builder(isDirected, names) : new CsrGraph.Builder(isDirected);
+		}
+		
+		public void addEdge(int source, int target, double weight){
+			builder.addEdge(source, target, weight);
+		}
+	}
+	
+	// Vertices are added in id order as edges reach them, so the ids 
+	// match the CsrGraph's.
+	private static final class AdjListSink implements EdgeSink {
+		AdjListGraph graph;
+		Vertex[] vertices = new Vertex[16];
+		int numVertices;
+		boolean isNamed;
+		
+		public void start(boolean isDirected, String[] names){
+			graph = new AdjListGraph(isDirected);
+			isNamed = names != null;
+			if (isNamed){
+				vertices = new Vertex[names.length];
+				for (String name : names){
+					vertices[numVertices++] = graph.addVertex(new DijkstraVertex(name));
+				}
+			}
+		}
+		
+		public void addEdge(int source, int target, double weight){
+			int max = Math.max(source, target);
+			if (source < 0 || target < 0 || (isNamed && max >= numVertices)){
+				throw new IllegalVertexException("Add edge failed.");
+			}
+			if (max >= vertices.length){
+				vertices = Arrays.copyOf(vertices, Math.max(max + 1, vertices.length * 2));
+			}
+			while (numVertices <= max){
+				vertices[numVertices] = graph.addVertex(new DijkstraVertex(Integer.toString(numVertices)));
+				numVertices++;
+			}
+			graph.addEdge(vertices[source], vertices[target], weight);
+		}
+	}
+	
+	private void readEdgeList(ByteParser parser, EdgeSink sink){
+		boolean isDirected = true;
+		boolean isStarted = false;
+		while (parser.hasMore()){
+			if (parser.atLineEnd()){
+				parser.skipLine();
+				continue;
+			}
+			int first = parser.peek();
+			if (first == '#' || first == '%'){
+				// Only headers before the first edge count.
+				if (!isStarted){
+					parser.nextToken();
+					String word = parser.nextToken();
+					if ("directed".equalsIgnoreCase(word)){
+						isDirected = true;
+					}
+					else if ("undirected".equalsIgnoreCase(word)){
+						isDirected = false;
+					}
+				}
+				parser.skipLine();
+				continue;
+			}
+			if (!isStarted){
+				sink.start(directed != null ? directed : isDirected, null);
+				isStarted = true;
+			}
+			int source = parser.nextInt();
+			int target = parser.nextInt();
+			double weight = parser.atLineEnd() ? 1 : parser.nextDouble();
+			sink.addEdge(source, target, weight);
+			parser.skipLine();
+		}
+		if (!isStarted){
+			sink.start(directed != null ? directed : isDirected, null);
+		}
+	}
+	
+	private void readDimacs(ByteParser parser, EdgeSink sink){
+		boolean isStarted = false;
+		while (parser.hasMore()){
+			if (parser.atLineEnd()){
+				parser.skipLine();
+				continue;
+			}
+			int kind = parser.peek();
+			if (kind == 'p'){
+				parser.nextToken();
+				parser.nextToken();
+				int n = parser.nextInt();
+				String[] names = new String[n];
+				for (int v = 0; v < n; v++){
+					names[v] = Integer.toString(v + 1);
+				}
+				sink.start(directed != null ? directed : true, names);
+				isStarted = true;
+			}
+			else if (kind == 'a'){
+				if (!isStarted){
+					throw new NumberFormatException("DIMACS arc before the problem line.");
+				}
+				parser.nextToken();
+				int source = parser.nextInt() - 1;
+				int target = parser.nextInt() - 1;
+				sink.addEdge(source, target, parser.nextDouble());
+			}
+			parser.skipLine();
+		}
+		if (!isStarted){
+			throw new NumberFormatException("DIMACS file has no problem line.");
+		}
+	}
+}
@@ -0,0 +1,451 @@
+/*
+ * All-pairs shortest paths for dense graphs: Floyd-Warshall over one
+ * flat row-major V x V distance array, so the distance from i to j is
+ * at i * V + j.  A matrix file in GraphMaker's format is parsed
+ * straight into that array, without building a graph first.
+ *
+ * The matrix is cut into square blocks and every round of the
+ * algorithm (one block of pivots) runs in three phases:
+ *
+ *  1. the diagonal block, through its own pivots;
+ *  2. the rest of the pivot block row and column, which only need the
+ *     diagonal block, each block in parallel;
+ *  3. every other block, which only needs the blocks of phase 2, each
+ *     block in parallel.
+ *
+ * Blocks are small enough that the three in play stay in cache.  Phase
+ * 3 does nearly all of the work, and since none of its inputs change
+ * it is a BlockKernel.  When the jdk.incubator.vector module is present
+ * (java --add-modules jdk.incubator.vector) that is the SIMD
+ * VectorBlockKernel from src/vector; otherwise it is a scalar loop.
+ *
+ * Paths come from a next-hop matrix: next[i][j] is the vertex after i
+ * on the shortest path from i to j, or -1 if j can't be reached.  With
+ * edges of weight 0 the blocked pivot order can leave the next hops of
+ * equally short paths going round in a circle, so such graphs also
+ * count hops and break ties in distance by taking fewer hops.  That
+ * needs the scalar loops.
+ *
+ * Usage: java FloydWarshall <matrix or edge list file> [block size]
+ */
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+public class FloydWarshall {
+	public static final int DEFAULT_BLOCK_SIZE = 128;
+
+	private static final BlockKernel SCALAR_KERNEL = FloydWarshall::relaxScalar;
+	// Null when the vector module isn't there.
+	private static final BlockKernel VECTOR_KERNEL = loadVectorKernel();
+
+	private final String[] names;
+	private final int n;
+	private final double[] dist;
+	private final int[] next;
+	// Hops along each path, or null if every edge is heavier than 0.
+	private final int[] hops;
+	private int blockSize = DEFAULT_BLOCK_SIZE;
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+	private BlockKernel kernel = VECTOR_KERNEL != null ? VECTOR_KERNEL : SCALAR_KERNEL;
+
+	/*
+	 * Relaxes the block of rows rowStart to rowEnd and columns from to
+	 * (all ends excluded) of an n x n matrix through the pivots
+	 * pivotStart to pivotEnd: wherever d[i][k] + d[k][j] is less than
+	 * d[i][j], store it and set next[i][j] to next[i][k].  The block
+	 * must not share a row or column with the pivots, so none of the
+	 * d[i][k] and d[k][j] change while it runs.
+	 */
+	interface BlockKernel {
+		void relax(double[] dist, int[] next, int n, int rowStart, int rowEnd, int pivotStart, int pivotEnd,
+				int from, int to);
+	}
+
+	/*
+	 * Takes over weights, a flat row-major V x V array with
+	 * weights[i * V + j] the weight of the edge from i to j, or infinity
+	 * if there is none.  The array is not copied; it becomes the distance
+	 * matrix.
+	 */
+	public FloydWarshall(String[] names, double[] weights){
+		n = names.length;
+		if ((long)n * n != weights.length){
+			throw new IllegalArgumentException("Expected " + ((long)n * n) + " weights, not " + weights.length + ".");
+		}
+		this.names = names;
+		dist = weights;
+		next = new int[weights.length];
+		boolean hasTies = false;
+		for (int i = 0; i < n; i++){
+			int row = i * n;
+			for (int j = 0; j < n; j++){
+				double w = dist[row + j];
+				if (i == j){
+					dist[row + j] = 0;
+					next[row + j] = i;
+				}
+				else if (w < Double.POSITIVE_INFINITY){
+					next[row + j] = j;
+					hasTies |= w <= 0;
+				}
+				else{
+					dist[row + j] = Double.POSITIVE_INFINITY;
+					next[row + j] = -1;
+				}
+			}
+		}
+		hops = hasTies ? new int[weights.length] : null;
+		if (hasTies){
+			// One hop for each edge; none from a vertex to itself.
+			for (int i = 0; i < n; i++){
+				for (int j = 0, row = i * n; j < n; j++){
+					hops[row + j] = i != j && next[row + j] >= 0 ? 1 : 0;
+				}
+			}
+		}
+	}
+
+	/*
+	 * Parse a matrix file (a vertex count, the names, then one row per
+	 * vertex starting with its name) into the distance array.  As in
+	 * GraphMaker, an entry that is not positive means no edge.
+	 */
+	public static FloydWarshall fromMatrixFile(String fileName) throws IOException{
+		LoadEvent event = Instrumentation.beginLoad(fileName, "FloydWarshall matrix");
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)){
+			ByteParser parser = new ByteParser(channel, 0, channel.size());
+			parser.skipEmptyLines();
+			int count = parser.nextInt();
+			String[] names = new String[count];
+			for (int i = 0; i < count; i++){
+				names[i] = nextToken(parser);
+			}
+			double[] weights = new double[checkedSize(count)];
+			long arcs = 0;
+			for (int i = 0; i < count; i++){
+				// The row's name.
+				nextToken(parser);
+				for (int j = 0, row = i * count; j < count; j++){
+					parser.skipEmptyLines();
+					if (!parser.atNumber()){
+						throw new NumberFormatException("File is not in the correct format");
+					}
+					double weight = parser.nextDouble();
+					if (weight > 0){
+						weights[row + j] = weight;
+						arcs++;
+					}
+					else{
+						weights[row + j] = Double.POSITIVE_INFINITY;
+					}
+				}
+			}
+			FloydWarshall result = new FloydWarshall(names, weights);
+			Instrumentation.endLoad(event, count, arcs);
+			return result;
+		}
+	}
+
+	/*
+	 * The distance matrix of a CompactGraph, keeping the lightest of any
+	 * parallel edges.  Edges of weight 0 are kept.
+	 */
+	public static FloydWarshall fromGraph(CompactGraph graph){
+		int count = graph.numVertices();
+		String[] names = new String[count];
+		double[] weights = new double[checkedSize(count)];
+		Arrays.fill(weights, Double.POSITIVE_INFINITY);
+		for (int u = 0; u < count; u++){
+			names[u] = graph.getName(u);
+			for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++){
+				int cell = u * count + graph.target(e);
+				weights[cell] = Math.min(weights[cell], graph.weight(e));
+			}
+		}
+		return new FloydWarshall(names, weights);
+	}
+
+	private static int checkedSize(int count){
+		if ((long)count * count > Integer.MAX_VALUE - 8){
+			throw new IllegalArgumentException(count + " vertices are too many for one matrix.");
+		}
+		return count * count;
+	}
+
+	private static String nextToken(ByteParser parser){
+		parser.skipEmptyLines();
+		String token = parser.nextToken();
+		if (token == null){
+			throw new NumberFormatException("File is not in the correct format");
+		}
+		return token;
+	}
+
+	private static BlockKernel loadVectorKernel(){
+		try {
+			return (BlockKernel)Class.forName("VectorBlockKernel").getDeclaredConstructor().newInstance();
+		}
+		catch (ReflectiveOperationException | LinkageError e){
+			return null;
+		}
+	}
+
+	public static boolean isVectorAvailable(){
+		return VECTOR_KERNEL != null;
+	}
+
+	/*
+	 * Use the SIMD kernel if it is available (the default), or the
+	 * scalar one.  Graphs with edges of weight 0 always use the scalar
+	 * loops.
+	 */
+	public void setVectorized(boolean vectorized){
+		kernel = vectorized && VECTOR_KERNEL != null ? VECTOR_KERNEL : SCALAR_KERNEL;
+	}
+
+	public boolean isVectorized(){
+		return hops == null && kernel != SCALAR_KERNEL;
+	}
+
+	public void setBlockSize(int blockSize){
+		if (blockSize < 1){
+			throw new IllegalArgumentException("Bad block size " + blockSize + ".");
+		}
+		this.blockSize = blockSize;
+	}
+
+	public void setPool(ForkJoinPool pool){
+		this.pool = pool;
+	}
+
+	public int numVertices(){
+		return n;
+	}
+
+	public String getName(int v){
+		return names[v];
+	}
+
+	/*
+	 * Turn the edge weights into shortest path distances.  Call it once;
+	 * until then the getters see the edges themselves.
+	 */
+	public void run(){
+		int blocks = (n + blockSize - 1) / blockSize;
+		for (int k = 0; k < blocks; k++){
+			int pivot = k;
+			relaxBlock(pivot, pivot, pivot);
+			if (blocks == 1){
+				continue;
+			}
+			// The other blocks of the pivot row, then of the pivot column.
+			pool.submit(() -> IntStream.range(0, 2 * (blocks - 1)).parallel().forEach(t -> {
+				int other = t % (blocks - 1);
+				other += other >= pivot ? 1 : 0;
+				if (t < blocks - 1){
+					relaxBlock(pivot, other, pivot);
+				}
+				else{
+					relaxBlock(other, pivot, pivot);
+				}
+			})).join();
+			pool.submit(() -> IntStream.range(0, (blocks - 1) * (blocks - 1)).parallel().forEach(t -> {
+				int row = t / (blocks - 1);
+				int column = t % (blocks - 1);
+				relaxBlock(row + (row >= pivot ? 1 : 0), column + (column >= pivot ? 1 : 0), pivot);
+			})).join();
+		}
+	}
+
+	// Relax block (row, column) through the pivots of block pivot.
+	private void relaxBlock(int row, int column, int pivot){
+		int rowStart = row * blockSize, rowEnd = Math.min(n, rowStart + blockSize);
+		int from = column * blockSize, to = Math.min(n, from + blockSize);
+		int pivotStart = pivot * blockSize, pivotEnd = Math.min(n, pivotStart + blockSize);
+		if (hops != null){
+			relaxCountingHops(rowStart, rowEnd, pivotStart, pivotEnd, from, to);
+			return;
+		}
+		if (row != pivot && column != pivot){
+			kernel.relax(dist, next, n, rowStart, rowEnd, pivotStart, pivotEnd, from, to);
+			return;
+		}
+		// The block is one of its own inputs, so pivots go in order.
+		for (int k = pivotStart; k < pivotEnd; k++){
+			int rowK = k * n;
+			for (int i = rowStart; i < rowEnd; i++){
+				int rowI = i * n;
+				double dik = dist[rowI + k];
+				if (i == k || dik == Double.POSITIVE_INFINITY){
+					continue;
+				}
+				int nik = next[rowI + k];
+				for (int j = from; j < to; j++){
+					double candidate = dik + dist[rowK + j];
+					if (candidate < dist[rowI + j]){
+						dist[rowI + j] = candidate;
+						next[rowI + j] = nik;
+					}
+				}
+			}
+		}
+	}
+
+	// relaxBlock for graphs with ties: a path as short as the one kept
+	// wins if it has fewer hops.  Pivots go in order, which also suits
+	// the blocks on the pivot row and column.
+	private void relaxCountingHops(int rowStart, int rowEnd, int pivotStart, int pivotEnd, int from, int to){
+		for (int k = pivotStart; k < pivotEnd; k++){
+			int rowK = k * n;
+			for (int i = rowStart; i < rowEnd; i++){
+				int rowI = i * n;
+				double dik = dist[rowI + k];
+				if (i == k || dik == Double.POSITIVE_INFINITY){
+					continue;
+				}
+				int nik = next[rowI + k];
+				int hik = hops[rowI + k];
+				for (int j = from; j < to; j++){
+					double candidate = dik + dist[rowK + j];
+					double current = dist[rowI + j];
+					if (candidate < current || (candidate == current && candidate < Double.POSITIVE_INFINITY
+							&& hik + hops[rowK + j] < hops[rowI + j])){
+						dist[rowI + j] = candidate;
+						next[rowI + j] = nik;
+						hops[rowI + j] = hik + hops[rowK + j];
+					}
+				}
+			}
+		}
+	}
+
+	// The scalar BlockKernel.  Each row takes every pivot while it is in
+	// cache.
+	static void relaxScalar(double[] dist, int[] next, int n, int rowStart, int rowEnd, int pivotStart, int pivotEnd,
+			int from, int to){
+		for (int i = rowStart; i < rowEnd; i++){
+			int rowI = i * n;
+			for (int k = pivotStart; k < pivotEnd; k++){
+				double dik = dist[rowI + k];
+				if (dik == Double.POSITIVE_INFINITY){
+					continue;
+				}
+				int rowK = k * n;
+				int nik = next[rowI + k];
+				for (int j = from; j < to; j++){
+					double candidate = dik + dist[rowK + j];
+					if (candidate < dist[rowI + j]){
+						dist[rowI + j] = candidate;
+						next[rowI + j] = nik;
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * The distance from source to target, infinity if there is no path.
+	 */
+	public double getDistance(int source, int target) throws IllegalVertexException{
+		check(source, target, "getDistance failed.");
+		return dist[source * n + target];
+	}
+
+	/*
+	 * The vertex after source on the shortest path to target: target
+	 * itself for an edge, source when they are the same, -1 if there is
+	 * no path.
+	 */
+	public int getNextHop(int source, int target) throws IllegalVertexException{
+		check(source, target, "getNextHop failed.");
+		return next[source * n + target];
+	}
+
+	/*
+	 * Follow the next hops from source to target.
+	 */
+	public PathResult toPath(int source, int target) throws IllegalVertexException{
+		check(source, target, "toPath failed.");
+		double d = dist[source * n + target];
+		if (d == Double.POSITIVE_INFINITY){
+			return new PathResult(source, target, d, new int[0]);
+		}
+		int length = 1;
+		for (int v = source; v != target; v = next[v * n + target]){
+			if (++length > n){
+				throw new IllegalStateException("Next hops from " + source + " to " + target + " go round in a circle.");
+			}
+		}
+		int[] path = new int[length];
+		path[0] = source;
+		for (int v = source, k = 1; v != target; k++){
+			v = next[v * n + target];
+			path[k] = v;
+		}
+		return new PathResult(source, target, d, path);
+	}
+
+	private void check(int source, int target, String message){
+		if (source < 0 || source >= n || target < 0 || target >= n){
+			throw new IllegalVertexException(message);
+		}
+	}
+
+	public static void main(String[] args) throws IOException{
+		if (args.length < 1){
+			System.out.println("Usage: java FloydWarshall <matrix or edge list file> [block size]");
+			return;
+		}
+		int blockSize = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_BLOCK_SIZE;
+		CsrGraph graph = new GraphMaker().makeCsrGraphFromFile(args[0]);
+		FloydWarshall input = EdgeListLoader.isEdgeListFile(args[0]) ? fromGraph(graph) : fromMatrixFile(args[0]);
+		int n = input.numVertices();
+		System.out.println(n + " vertices, vector kernel " + (isVectorAvailable() ? "available" : "not available"
+				+ " (run with --add-modules jdk.incubator.vector)"));
+
+		// One full search per source as the reference.
+		long start = System.nanoTime();
+		CsrDijkstras dijkstras = new CsrDijkstras(graph);
+		double[] expected = new double[n * n];
+		for (int s = 0; s < n; s++){
+			dijkstras.run(s);
+			for (int t = 0; t < n; t++){
+				expected[s * n + t] = dijkstras.getDistance(t);
+			}
+		}
+		System.out.printf("%-8s %10.1f ms%n", "dijkstra", (System.nanoTime() - start) / 1e6);
+
+		FloydWarshall last = null;
+		for (boolean vectorized : isVectorAvailable() ? new boolean[] {false, true} : new boolean[] {false}){
+			double best = Double.POSITIVE_INFINITY;
+			for (int round = 0; round < 3; round++){
+				last = new FloydWarshall(input.names, input.dist.clone());
+				last.setBlockSize(blockSize);
+				last.setVectorized(vectorized);
+				start = System.nanoTime();
+				last.run();
+				best = Math.min(best, (System.nanoTime() - start) / 1e6);
+			}
+			int wrong = 0;
+			for (int k = 0; k < expected.length; k++){
+				if (last.dist[k] != expected[k] && Math.abs(last.dist[k] - expected[k]) > 1e-9 * Math.abs(expected[k])){
+					wrong++;
+				}
+			}
+			System.out.printf("%-8s %10.1f ms%s%n", vectorized ? "vector" : "scalar", best,
+					wrong == 0 ? "" : "  " + wrong + " cells differ");
+		}
+
+		PathResult path = last.toPath(0, n - 1);
+		StringBuilder text = new StringBuilder();
+		for (int v : path.getPath()){
+			text.append(text.length() == 0 ? "" : "::").append(last.getName(v));
+		}
+		System.out.println(last.getName(0) + " to " + last.getName(n - 1) + ": " + path.getDistance() + " " + text);
+	}
+}
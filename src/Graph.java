@@ -189,6 +189,19 @@ public interface Graph<V> {
      */
     Collection<V> getAdjacentVertices(V vertex)
 	throws IllegalVertexException;
+
+    /**
+     *
+     * Get a collection of the vertices that have an edge to the 
+     * given vertex.  In an undirected graph these are the same as
+     * the adjacent vertices.
+     * @param i a vertex in this Graph.
+     *
+     * @throws IllegalVertexException if vertex i does not
+     *         exist in this Graph.
+     */
+    Collection<V> getIncomingVertices(V vertex)
+	throws IllegalVertexException;
  
     /**
      * Get a collection of the vertices in the graph..
@@ -0,0 +1,26 @@
+/*
+ * Gets told about changes made to an AdjListGraph, after they happen.
+ * Register with AdjListGraph.addGraphListener.
+ */
+public interface GraphListener {
+
+	/*
+	 * The edge from one vertex to another was added, removed or given a
+	 * new weight.  A missing edge has weight infinity, so a new edge has
+	 * an old weight of infinity and a removed edge a new weight of
+	 * infinity.  In an undirected graph this is called once for each
+	 * direction.
+	 */
+	void edgeChanged(Vertex from, Vertex to, double oldWeight, double newWeight);
+
+	/*
+	 * A vertex was added.  It has the last id.
+	 */
+	void vertexAdded(Vertex v);
+
+	/*
+	 * A vertex was removed, along with all of its edges.  The vertex
+	 * that had the last id now has the removed vertex's id.
+	 */
+	void vertexRemoved(Vertex v);
+}
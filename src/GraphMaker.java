@@ -1,6 +1,10 @@
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
 
 /*
  * The GraphMaker handles making a graph by reading from a file.
@@ -11,67 +15,234 @@ import java.util.Scanner;
  * edge weight between vertices i and j. 
  * The two provided files are in this format.
  * 
+ * A matrix that is symmetric is read as an undirected graph, and any 
+ * other matrix as a directed graph, unless the caller says otherwise.
+ * Files ending in .gr, .el or .edges are sparse edge lists instead and
+ * are read by EdgeListLoader.
+ * 
+ * After each graph it makes, the GraphMaker remembers whether all of
+ * its weights were whole numbers, so callers can pick BucketDijkstras.
+ * 
  * @author sspurlock
  * @version 2019-10-21
  */
 public class GraphMaker {
+	// The largest weight of the last graph made if every weight was a
+	// whole number BucketDijkstras can take, and -1 otherwise.
+	private long maxIntegerWeight = -1;
 	
 	public AdjListGraph makeGraphFromFile(String fileName) {
-		// Create a new directed AdjListGraph and read from the file to
+		return makeGraphFromFile(fileName, null);
+	}
+	
+	/*
+	 * Make the graph, forcing it to be directed or undirected.  A null
+	 * directed lets the file decide.
+	 */
+	public AdjListGraph makeGraphFromFile(String fileName, Boolean directed) {
+		LoadEvent event = Instrumentation.beginLoad(fileName, "GraphMaker");
+		AdjListGraph graph = readGraph(fileName, directed);
+		Instrumentation.endLoad(event, graph.numVertices(), graph.numEdges());
+		maxIntegerWeight = maxIntegerWeight(graph);
+		return graph;
+	}
+	
+	private static long maxIntegerWeight(AdjListGraph graph) {
+		long max = 0;
+		for (Vertex vertex : graph.getVertices()) {
+			for (Map.Entry<Vertex, Double> edge : vertex.getEdges()) {
+				double weight = edge.getValue();
+				if (!(weight >= 0 && weight <= Integer.MAX_VALUE) || weight != Math.rint(weight)) {
+					return -1;
+				}
+				max = Math.max(max, (long)weight);
+			}
+		}
+		return max;
+	}
+	
+	/*
+	 * True if every weight of the last graph made is a whole number from
+	 * 0 to Integer.MAX_VALUE, so BucketDijkstras can search it.
+	 */
+	public boolean hasIntegerWeights() {
+		return maxIntegerWeight >= 0;
+	}
+	
+	/*
+	 * The largest weight of the last graph made, or -1 unless
+	 * hasIntegerWeights.
+	 */
+	public long getMaxIntegerWeight() {
+		return maxIntegerWeight;
+	}
+	
+	private AdjListGraph readGraph(String fileName, Boolean directed) {
+		if (EdgeListLoader.isEdgeListFile(fileName)) {
+			try {
+				return edgeListLoader(directed).load(fileName);
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		// Create a new AdjListGraph and read from the file to
 		// add DijkstraVertex and Edge object to the graph.
-		// TODO...
-		boolean isDirected = true;
-		if (fileName.equals("JapanCities.txt")){ 								// Because Japan is an unDirected graph and 
-			isDirected = false; 												// routers is directed, check if JapanCities is the 
-		}																		// input file
-		
-		AdjListGraph graph = new AdjListGraph(isDirected);
-		
-		
-		Scanner scnr;
-		try {
-			scnr = new Scanner(new File(fileName));
-		
-			int vertexNum = 0;
-		
-			vertexNum = Integer.parseInt(scnr.next());
+		Matrix matrix = readMatrix(fileName);
+		AdjListGraph graph = new AdjListGraph(directed != null ? directed : !matrix.isSymmetric());
+		Vertex[] vertices = new Vertex[matrix.names.length];
 		
-			Vertex[] vertices = new Vertex[vertexNum]; 							// create array of vertex, w/ a size at the top of the file
-		
-			for (int i = 0; i < vertices.length; i++) {
-				vertices[i] = graph.addVertex(new DijkstraVertex(scnr.next())); // add vertices to array & graph;
+		for (int i = 0; i < vertices.length; i++) {
+			vertices[i] = graph.addVertex(new DijkstraVertex(matrix.names[i])); // add vertices to array & graph;
+		}
+		for (int k = 0; k < matrix.size; k++) {
+			graph.addEdge(vertices[matrix.rows[k]], vertices[matrix.columns[k]], matrix.weights[k]);
+		}
+		return graph;
+	}
+	
+	/*
+	 * Reads the same file format straight into a CsrGraph, without
+	 * building Vertex objects first.
+	 */
+	public CsrGraph makeCsrGraphFromFile(String fileName) {
+		return makeCsrGraphFromFile(fileName, null);
+	}
+	
+	public CsrGraph makeCsrGraphFromFile(String fileName, Boolean directed) {
+		LoadEvent event = Instrumentation.beginLoad(fileName, "GraphMaker CSR");
+		CsrGraph graph = readCsrGraph(fileName, directed);
+		Instrumentation.endLoad(event, graph.numVertices(), graph.numArcs());
+		maxIntegerWeight = BucketDijkstras.maxIntegerWeight(graph);
+		return graph;
+	}
+	
+	private CsrGraph readCsrGraph(String fileName, Boolean directed) {
+		if (EdgeListLoader.isEdgeListFile(fileName)) {
+			try {
+				return edgeListLoader(directed).loadCsr(fileName);
 			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		Matrix matrix = readMatrix(fileName);
+		CsrGraph.Builder builder = new CsrGraph.Builder(directed != null ? directed : !matrix.isSymmetric(), matrix.names);
+		for (int k = 0; k < matrix.size; k++) {
+			builder.addEdge(matrix.rows[k], matrix.columns[k], matrix.weights[k]);
+		}
+		return builder.build();
+	}
+	
+	private EdgeListLoader edgeListLoader(Boolean directed) {
+		EdgeListLoader loader = new EdgeListLoader();
+		if (directed != null) {
+			loader.setDirected(directed);
+		}
+		return loader;
+	}
+	
+	// The vertex names and the non-zero entries of a matrix file.
+	private static final class Matrix {
+		String[] names;
+		int[] rows = new int[16];
+		int[] columns = new int[16];
+		double[] weights = new double[16];
+		int size;
 		
-			int vertexA = -1; 													// because the way the file is formated, vertexAs index will
-			int vertexB = 0;													// start at -1 and then is immediately incremented once in
-			boolean isOnVertex = false;											// while loop
+		void add(int row, int column, double weight) {
+			if (size == rows.length) {
+				rows = Arrays.copyOf(rows, size * 2);
+				columns = Arrays.copyOf(columns, size * 2);
+				weights = Arrays.copyOf(weights, size * 2);
+			}
+			rows[size] = row;
+			columns[size] = column;
+			weights[size] = weight;
+			size++;
+		}
 		
-			while (scnr.hasNext()) {
-				String next = scnr.next();
-				double edgeWeight = 0;
-				try {															// if parseInt fails, the graph is on a new line, at a 
-					edgeWeight = Double.parseDouble(next);						// vertex
-					isOnVertex = false;
+		// A symmetric matrix has entry (j,i) for every entry (i,j), with
+		// the same weight.
+		boolean isSymmetric() {
+			int n = names.length;
+			double[][] byRow = new double[n][];
+			int[][] columnsByRow = new int[n][];
+			int[] counts = new int[n];
+			for (int k = 0; k < size; k++) {
+				counts[rows[k]]++;
+			}
+			for (int i = 0; i < n; i++) {
+				byRow[i] = new double[counts[i]];
+				columnsByRow[i] = new int[counts[i]];
+				counts[i] = 0;
+			}
+			for (int k = 0; k < size; k++) {
+				int i = rows[k];
+				columnsByRow[i][counts[i]] = columns[k];
+				byRow[i][counts[i]++] = weights[k];
+			}
+			for (int k = 0; k < size; k++) {
+				int j = columns[k];
+				boolean found = false;
+				for (int c = 0; c < columnsByRow[j].length && !found; c++) {
+					found = columnsByRow[j][c] == rows[k] && byRow[j][c] == weights[k];
+				}
+				if (!found) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+	
+	// Each row starts with a label, which is any token that isn't a
+	// number; the entries after it are the row's weights.
+	private Matrix readMatrix(String fileName) {
+		Matrix matrix = new Matrix();
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			ByteParser parser = new ByteParser(channel, 0, channel.size());
+			parser.skipEmptyLines();
+			matrix.names = new String[parser.nextInt()];
+			for (int i = 0; i < matrix.names.length; i++) {
+				parser.skipEmptyLines();
+				matrix.names[i] = parser.nextToken();
+				if (matrix.names[i] == null) {
+					throw new NumberFormatException();
 				}
-				catch (NumberFormatException e) {								// vertexA is incremented, vertexB is reset to 0
-					vertexA++;													// isOnVertex is used to easily tell its namesake
-					isOnVertex = true;
-					vertexB = 0;
+			}
+			int row = -1;
+			int column = 0;
+			while (parser.hasMore()) {
+				if (parser.atLineEnd()) {
+					parser.skipLine();
 				}
-			
-				if (!isOnVertex) {												// if not on vertex and edgeWeight > 0, the edge is added to
-					if (edgeWeight > 0) {										// the graph with its edgeWeight
-						graph.addEdge(vertices[vertexA], vertices[vertexB], edgeWeight);
+				else if (parser.atNumber()) {
+					double weight = parser.nextDouble();
+					if (row < 0 || column >= matrix.names.length) {
+						throw new NumberFormatException();
+					}
+					if (weight > 0) {
+						matrix.add(row, column, weight);
+					}
+					column++;
+				}
+				else {
+					parser.nextToken();
+					row++;
+					column = 0;
+					if (row >= matrix.names.length) {
+						throw new NumberFormatException();
 					}
-					vertexB++;													// vertexB is incremented outside of if statement
 				}
 			}
-		} 
-		catch (FileNotFoundException e) {} 
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
 		catch (NumberFormatException e) {
 			throw new NumberFormatException("File is not in the correct format");
 		}
-		
-		return graph;
+		return matrix;
 	}
 }
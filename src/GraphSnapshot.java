@@ -0,0 +1,229 @@
+/*
+ * Writes and opens binary graph snapshots, so a process can start 
+ * without re-parsing the text input.  A snapshot holds the vertex 
+ * names, the CSR offsets, targets and weights, the directed flag and,
+ * for directed graphs, the reverse CSR arrays too.
+ * 
+ * open memory-maps the file and returns a MappedCsrGraph that reads 
+ * straight from the mapped pages.  Nothing is copied onto the heap,
+ * so opening is fast whatever the graph's size, and processes on the
+ * same host that open the same snapshot share its pages in the OS 
+ * page cache.
+ * 
+ * Layout (little-endian): a 96 byte header with the magic number, the
+ * format version, flags, the vertex and edge counts and the file 
+ * offset of every section, then the sections, each 8-byte aligned.
+ * 
+ * Usage: java GraphSnapshot <graph file> <snapshot file>
+ */
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public final class GraphSnapshot {
+	static final int MAGIC = 0x534b4a44; // "DJKS"
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 96;
+	static final int FLAG_DIRECTED = 1;
+	
+	// Index of each section's offset in the header, after the counts.
+	static final int OFFSETS = 0;
+	static final int TARGETS = 1;
+	static final int WEIGHTS = 2;
+	static final int NAME_OFFSETS = 3;
+	static final int NAME_BYTES = 4;
+	static final int REVERSE_OFFSETS = 5;
+	static final int REVERSE_TARGETS = 6;
+	static final int REVERSE_WEIGHTS = 7;
+	static final int SECTIONS = 8;
+	// Sections start at byte 24 of the header, one long each.
+	static final int SECTION_TABLE = 24;
+	
+	private GraphSnapshot(){
+	}
+	
+	public static void write(AdjListGraph graph, Path file) throws IOException{
+		write(CsrGraph.from(graph), file);
+	}
+	
+	public static void write(CompactGraph graph, Path file) throws IOException{
+		int n = graph.numVertices();
+		int m = graph.numArcs();
+		byte[][] names = new byte[n][];
+		long nameBytes = 0;
+		for (int v = 0; v < n; v++){
+			names[v] = graph.getName(v).getBytes(StandardCharsets.UTF_8);
+			nameBytes += names[v].length;
+		}
+		
+		long[] sectionBytes = new long[SECTIONS];
+		sectionBytes[OFFSETS] = 4L * (n + 1);
+		sectionBytes[TARGETS] = 4L * m;
+		sectionBytes[WEIGHTS] = 8L * m;
+		sectionBytes[NAME_OFFSETS] = 8L * (n + 1);
+		sectionBytes[NAME_BYTES] = nameBytes;
+		if (graph.isDirected()){
+			sectionBytes[REVERSE_OFFSETS] = 4L * (n + 1);
+			sectionBytes[REVERSE_TARGETS] = 4L * m;
+			sectionBytes[REVERSE_WEIGHTS] = 8L * m;
+		}
+		long[] sectionStart = new long[SECTIONS];
+		long position = HEADER_BYTES;
+		for (int s = 0; s < SECTIONS; s++){
+			sectionStart[s] = position;
+			position = align(position + sectionBytes[s]);
+		}
+		
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, 
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(graph.isDirected() ? FLAG_DIRECTED : 0)
+					.putInt(n).putInt(m).putInt(0);
+			for (int s = 0; s < SECTIONS; s++){
+				header.putLong(sectionStart[s]);
+			}
+			header.flip();
+			writeFully(channel, header, 0);
+			
+			SectionWriter out = new SectionWriter(channel);
+			writeCsr(out, graph, sectionStart[OFFSETS], sectionStart[TARGETS], sectionStart[WEIGHTS]);
+			
+			out.seek(sectionStart[NAME_OFFSETS]);
+			long nameOffset = 0;
+			for (int v = 0; v < n; v++){
+				out.putLong(nameOffset);
+				nameOffset += names[v].length;
+			}
+			out.putLong(nameOffset);
+			out.seek(sectionStart[NAME_BYTES]);
+			for (int v = 0; v < n; v++){
+				out.putBytes(names[v]);
+			}
+			
+			if (graph.isDirected()){
+				writeCsr(out, graph.reverse(), sectionStart[REVERSE_OFFSETS], 
+						sectionStart[REVERSE_TARGETS], sectionStart[REVERSE_WEIGHTS]);
+			}
+			out.flush();
+			// Empty sections at the end start past the last byte written,
+			// and a read-only map there can't extend the file.
+			if (channel.size() < position){
+				writeFully(channel, ByteBuffer.allocate((int)(position - channel.size())), channel.size());
+			}
+		}
+	}
+	
+	/*
+	 * Map a snapshot written by write.
+	 */
+	public static MappedCsrGraph open(Path file) throws IOException{
+		LoadEvent event = Instrumentation.beginLoad(file.toString(), "GraphSnapshot");
+		MappedCsrGraph graph = new MappedCsrGraph(file);
+		Instrumentation.endLoad(event, graph.numVertices(), graph.numArcs());
+		return graph;
+	}
+	
+	private static void writeCsr(SectionWriter out, CompactGraph graph, long offsets, long targets, long weights) 
+			throws IOException{
+		int n = graph.numVertices();
+		out.seek(offsets);
+		for (int v = 0; v < n; v++){
+			out.putInt(graph.edgeBegin(v));
+		}
+		out.putInt(n == 0 ? 0 : graph.edgeEnd(n - 1));
+		out.seek(targets);
+		for (int e = 0; e < graph.numArcs(); e++){
+			out.putInt(graph.target(e));
+		}
+		out.seek(weights);
+		for (int e = 0; e < graph.numArcs(); e++){
+			out.putDouble(graph.weight(e));
+		}
+	}
+	
+	static long align(long position){
+		return (position + 7) & ~7L;
+	}
+	
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException{
+		while (buffer.hasRemaining()){
+			position += channel.write(buffer, position);
+		}
+	}
+	
+	// Buffers writes to the channel in 1MB pieces.
+	private static final class SectionWriter {
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+		private long position;
+		
+		SectionWriter(FileChannel channel){
+			this.channel = channel;
+		}
+		
+		void seek(long newPosition) throws IOException{
+			flush();
+			position = newPosition;
+		}
+		
+		private void ensure(int bytes) throws IOException{
+			if (buffer.remaining() < bytes){
+				flush();
+			}
+		}
+		
+		void putInt(int value) throws IOException{
+			ensure(4);
+			buffer.putInt(value);
+		}
+		
+		void putLong(long value) throws IOException{
+			ensure(8);
+			buffer.putLong(value);
+		}
+		
+		void putDouble(double value) throws IOException{
+			ensure(8);
+			buffer.putDouble(value);
+		}
+		
+		void putBytes(byte[] bytes) throws IOException{
+			for (int k = 0; k < bytes.length; ){
+				ensure(1);
+				int count = Math.min(buffer.remaining(), bytes.length - k);
+				buffer.put(bytes, k, count);
+				k += count;
+			}
+		}
+		
+		void flush() throws IOException{
+			buffer.flip();
+			while (buffer.hasRemaining()){
+				position += channel.write(buffer, position);
+			}
+			buffer.clear();
+		}
+	}
+	
+	public static void main(String[] args) throws IOException{
+		if (args.length < 2){
+			System.out.println("Usage: java GraphSnapshot <graph file> <snapshot file>");
+			return;
+		}
+		long start = System.nanoTime();
+		CsrGraph graph = new GraphMaker().makeCsrGraphFromFile(args[0]);
+		long loaded = System.nanoTime();
+		write(graph, Paths.get(args[1]));
+		long written = System.nanoTime();
+		MappedCsrGraph mapped = open(Paths.get(args[1]));
+		long opened = System.nanoTime();
+		System.out.printf("%,d vertices, %,d edges: parsed in %.1f ms, written in %.1f ms, opened in %.3f ms%n",
+				mapped.numVertices(), mapped.numArcs(), (loaded - start) / 1e6, 
+				(written - loaded) / 1e6, (opened - written) / 1e6);
+	}
+}
@@ -0,0 +1,237 @@
+/*
+ * An indexed d-ary min heap of int ids keyed by double priorities.
+ * Ids must be dense (0 to capacity-1).  Because the heap remembers
+ * where each id lives, decreaseKey and contains are cheap, unlike
+ * java.util.PriorityQueue where remove is a linear scan.
+ * An arity of 2 gives the usual binary heap.  Larger arities make
+ * the heap shallower, which helps when there are many decreaseKeys.
+ * When Instrumentation is on, the heap also counts its operations.
+ */
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public class IndexedMinHeap {
+	private final int arity;
+	// heap[k] is the id stored at heap slot k.
+	private final int[] heap;
+	// position[id] is the heap slot of id, or -1 if not in the heap.
+	private final int[] position;
+	private final double[] keys;
+	private int size;
+	// Operation counts since the last resetCounts, kept only when
+	// Instrumentation is on.
+	private long inserts;
+	private long decreaseKeys;
+	private long polls;
+	private int highWater;
+
+	public IndexedMinHeap(int capacity){
+		this(capacity, 2);
+	}
+
+	public IndexedMinHeap(int capacity, int arity){
+		if (arity < 2){
+			throw new IllegalArgumentException("Heap arity must be at least 2.");
+		}
+		this.arity = arity;
+		heap = new int[capacity];
+		position = new int[capacity];
+		keys = new double[capacity];
+		Arrays.fill(position, -1);
+	}
+
+	public int arity(){
+		return arity;
+	}
+
+	public int capacity(){
+		return heap.length;
+	}
+
+	public int size(){
+		return size;
+	}
+
+	public boolean isEmpty(){
+		return size == 0;
+	}
+
+	public boolean contains(int id){
+		return position[id] >= 0;
+	}
+
+	/*
+	 * Returns the key of an id that is currently in the heap.
+	 */
+	public double getKey(int id){
+		if (position[id] < 0){
+			throw new NoSuchElementException("Id " + id + " is not in the heap.");
+		}
+		return keys[id];
+	}
+
+	/*
+	 * Add an id that is not in the heap yet.
+	 */
+	public void insert(int id, double key){
+		if (position[id] >= 0){
+			throw new IllegalArgumentException("Id " + id + " is already in the heap.");
+		}
+		keys[id] = key;
+		heap[size] = id;
+		position[id] = size;
+		siftUp(size++);
+		if (Instrumentation.ENABLED){
+			inserts++;
+			highWater = Math.max(highWater, size);
+		}
+	}
+
+	/*
+	 * Lower the key of an id already in the heap.  Keys that are not
+	 * smaller than the current key are ignored.
+	 */
+	public void decreaseKey(int id, double key){
+		int slot = position[id];
+		if (slot < 0){
+			throw new NoSuchElementException("Id " + id + " is not in the heap.");
+		}
+		if (key < keys[id]){
+			keys[id] = key;
+			siftUp(slot);
+			if (Instrumentation.ENABLED){
+				decreaseKeys++;
+			}
+		}
+	}
+
+	/*
+	 * Insert the id if it is new, otherwise decrease its key.
+	 */
+	public void insertOrDecrease(int id, double key){
+		if (position[id] < 0){
+			insert(id, key);
+		}
+		else{
+			decreaseKey(id, key);
+		}
+	}
+
+	public int peekMin(){
+		if (size == 0){
+			throw new NoSuchElementException("Heap is empty.");
+		}
+		return heap[0];
+	}
+
+	public double peekMinKey(){
+		return keys[peekMin()];
+	}
+
+	/*
+	 * Remove and return the id with the smallest key.
+	 */
+	public int pollMin(){
+		int min = peekMin();
+		position[min] = -1;
+		size--;
+		if (Instrumentation.ENABLED){
+			polls++;
+		}
+		if (size > 0){
+			int last = heap[size];
+			heap[0] = last;
+			position[last] = 0;
+			siftDown(0);
+		}
+		return min;
+	}
+
+	/*
+	 * Empty the heap.  Only the slots that were in use are touched, so
+	 * this is cheap when a search only reached part of the graph.
+	 */
+	public void clear(){
+		for (int k = 0; k < size; k++){
+			position[heap[k]] = -1;
+		}
+		size = 0;
+	}
+
+	public long getInserts(){
+		return inserts;
+	}
+
+	public long getDecreaseKeys(){
+		return decreaseKeys;
+	}
+
+	/*
+	 * Number of pollMin calls, which for a search is the number of
+	 * settled vertices.
+	 */
+	public long getPolls(){
+		return polls;
+	}
+
+	/*
+	 * The most ids the heap has held at once.
+	 */
+	public int getHighWater(){
+		return highWater;
+	}
+
+	public void resetCounts(){
+		inserts = 0;
+		decreaseKeys = 0;
+		polls = 0;
+		highWater = size;
+	}
+
+	private void siftUp(int slot){
+		int id = heap[slot];
+		double key = keys[id];
+		while (slot > 0){
+			int parentSlot = (slot - 1) / arity;
+			int parent = heap[parentSlot];
+			if (keys[parent] <= key){
+				break;
+			}
+			heap[slot] = parent;
+			position[parent] = slot;
+			slot = parentSlot;
+		}
+		heap[slot] = id;
+		position[id] = slot;
+	}
+
+	private void siftDown(int slot){
+		int id = heap[slot];
+		double key = keys[id];
+		while (true){
+			int firstChild = slot * arity + 1;
+			if (firstChild >= size){
+				break;
+			}
+			int lastChild = Math.min(firstChild + arity, size);
+			int best = firstChild;
+			double bestKey = keys[heap[firstChild]];
+			for (int c = firstChild + 1; c < lastChild; c++){
+				double childKey = keys[heap[c]];
+				if (childKey < bestKey){
+					best = c;
+					bestKey = childKey;
+				}
+			}
+			if (bestKey >= key){
+				break;
+			}
+			int child = heap[best];
+			heap[slot] = child;
+			position[child] = slot;
+			slot = best;
+		}
+		heap[slot] = id;
+		position[id] = slot;
+	}
+}
@@ -0,0 +1,211 @@
+/*
+ * Optional counters and latency histograms for the search loops, to
+ * tell why a query was slow: too many settled vertices, too many heap
+ * operations, or a big heap.
+ *
+ * Turn it on with -Ddijkstras.instrument=true.  ENABLED is a static
+ * final, so when it is off the JIT drops every "if (ENABLED)" block
+ * and the searches run exactly as before.  When it is on:
+ *
+ *  - IndexedMinHeap counts inserts, decrease-keys and polls (settled
+ *    vertices) and its high-water mark, and SearchState counts edge
+ *    relaxations, all per search;
+ *  - each finished query is added to the totals and the latency
+ *    histogram of its query type, and emitted as a QueryEvent for JFR;
+ *  - the totals are published over JMX as
+ *    dijkstras:type=Instrumentation.
+ *
+ * Graph loads are always emitted as LoadEvents; JFR makes that free
+ * when it is not recording.
+ */
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public final class Instrumentation implements InstrumentationMXBean {
+	public static final boolean ENABLED = Boolean.getBoolean("dijkstras.instrument");
+
+	private static final Instrumentation INSTANCE = new Instrumentation();
+	private static final ConcurrentHashMap<String, Totals> TOTALS = new ConcurrentHashMap<String, Totals>();
+
+	static {
+		if (ENABLED){
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE,
+						new ObjectName("dijkstras:type=Instrumentation"));
+			}
+			catch (JMException e){
+				// Another copy of the class already registered; its numbers
+				// are visible instead.
+			}
+		}
+	}
+
+	// Everything recorded for one query type.
+	private static final class Totals {
+		final LatencyHistogram latency = new LatencyHistogram();
+		final LongAdder settled = new LongAdder();
+		final LongAdder relaxations = new LongAdder();
+		final LongAdder inserts = new LongAdder();
+		final LongAdder decreaseKeys = new LongAdder();
+		final LongAccumulator heapHighWater = new LongAccumulator(Math::max, 0);
+
+		void reset(){
+			latency.reset();
+			settled.reset();
+			relaxations.reset();
+			inserts.reset();
+			decreaseKeys.reset();
+			heapHighWater.reset();
+		}
+	}
+
+	private Instrumentation(){
+	}
+
+	public static InstrumentationMXBean get(){
+		return INSTANCE;
+	}
+
+	/*
+	 * Record a finished query that started at startNanos (from
+	 * System.nanoTime) and searched with the given states.  A target of
+	 * -1 means a search to every vertex.  Only call this when ENABLED.
+	 */
+	public static void record(String queryType, long startNanos, int source, int target, double distance,
+			SearchState... states){
+		long latency = System.nanoTime() - startNanos;
+		long settled = 0;
+		long relaxations = 0;
+		long inserts = 0;
+		long decreaseKeys = 0;
+		long highWater = 0;
+		for (SearchState state : states){
+			IndexedMinHeap heap = state.heap();
+			settled += heap.getPolls();
+			inserts += heap.getInserts();
+			decreaseKeys += heap.getDecreaseKeys();
+			highWater = Math.max(highWater, heap.getHighWater());
+			relaxations += state.getRelaxations();
+		}
+		Totals totals = TOTALS.computeIfAbsent(queryType, type -> new Totals());
+		totals.latency.record(latency);
+		totals.settled.add(settled);
+		totals.relaxations.add(relaxations);
+		totals.inserts.add(inserts);
+		totals.decreaseKeys.add(decreaseKeys);
+		totals.heapHighWater.accumulate(highWater);
+
+		QueryEvent event = new QueryEvent();
+		if (event.shouldCommit()){
+			event.queryType = queryType;
+			event.source = source;
+			event.target = target;
+			event.distance = distance;
+			event.latency = latency;
+			event.settled = settled;
+			event.relaxations = relaxations;
+			event.inserts = inserts;
+			event.decreaseKeys = decreaseKeys;
+			event.heapHighWater = highWater;
+			event.commit();
+		}
+	}
+
+	/*
+	 * Start timing a load.  Pass the result to endLoad when the graph is
+	 * built.
+	 */
+	static LoadEvent beginLoad(String file, String loader){
+		LoadEvent event = new LoadEvent();
+		event.begin();
+		event.file = file;
+		event.loader = loader;
+		return event;
+	}
+
+	static void endLoad(LoadEvent event, int vertices, long edges){
+		event.end();
+		if (event.shouldCommit()){
+			event.vertices = vertices;
+			event.edges = edges;
+			event.commit();
+		}
+	}
+
+	/*
+	 * A table with a line per query type.
+	 */
+	public static String summary(){
+		StringBuilder table = new StringBuilder(String.format("%-16s %10s %10s %10s %10s %10s %12s %12s %12s %10s%n",
+				"query", "count", "mean us", "p50 us", "p99 us", "max us", "settled", "relaxed", "decrease", "heap max"));
+		for (Map.Entry<String, Totals> entry : new TreeMap<String, Totals>(TOTALS).entrySet()){
+			Totals totals = entry.getValue();
+			long count = Math.max(1, totals.latency.getCount());
+			table.append(String.format("%-16s %10d %10.1f %10.1f %10.1f %10.1f %12.1f %12.1f %12.1f %10d%n",
+					entry.getKey(), totals.latency.getCount(), totals.latency.getMean() / 1e3,
+					totals.latency.getPercentile(50) / 1e3, totals.latency.getPercentile(99) / 1e3,
+					totals.latency.getMax() / 1e3, totals.settled.sum() / (double)count,
+					totals.relaxations.sum() / (double)count, totals.decreaseKeys.sum() / (double)count,
+					totals.heapHighWater.get()));
+		}
+		return table.toString();
+	}
+
+	public boolean isEnabled(){
+		return ENABLED;
+	}
+
+	public String[] getQueryTypes(){
+		return new TreeMap<String, Totals>(TOTALS).keySet().toArray(new String[0]);
+	}
+
+	public String getSummary(){
+		return summary();
+	}
+
+	// Totals for a type that has not been seen read as zero.
+	private static Totals totals(String queryType){
+		Totals totals = TOTALS.get(queryType);
+		return totals != null ? totals : new Totals();
+	}
+
+	public long getQueryCount(String queryType){
+		return totals(queryType).latency.getCount();
+	}
+
+	public double getLatencyPercentile(String queryType, double percentile){
+		return totals(queryType).latency.getPercentile(percentile) / 1e3;
+	}
+
+	public double getMeanLatency(String queryType){
+		return totals(queryType).latency.getMean() / 1e3;
+	}
+
+	public long getSettledVertices(String queryType){
+		return totals(queryType).settled.sum();
+	}
+
+	public long getEdgeRelaxations(String queryType){
+		return totals(queryType).relaxations.sum();
+	}
+
+	public long getDecreaseKeys(String queryType){
+		return totals(queryType).decreaseKeys.sum();
+	}
+
+	public long getHeapHighWater(String queryType){
+		return totals(queryType).heapHighWater.get();
+	}
+
+	public void reset(){
+		for (Totals totals : TOTALS.values()){
+			totals.reset();
+		}
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ * The JMX view of Instrumentation, registered as
+ * dijkstras:type=Instrumentation when instrumentation is on.
+ * Latencies are in microseconds.
+ */
+public interface InstrumentationMXBean {
+
+	boolean isEnabled();
+
+	/*
+	 * The query types seen so far, e.g. "csr" or "bidirectional".
+	 */
+	String[] getQueryTypes();
+
+	/*
+	 * A table of every query type, as Instrumentation.summary gives.
+	 */
+	String getSummary();
+
+	long getQueryCount(String queryType);
+
+	double getLatencyPercentile(String queryType, double percentile);
+
+	double getMeanLatency(String queryType);
+
+	long getSettledVertices(String queryType);
+
+	long getEdgeRelaxations(String queryType);
+
+	long getDecreaseKeys(String queryType);
+
+	long getHeapHighWater(String queryType);
+
+	void reset();
+}
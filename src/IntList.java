@@ -0,0 +1,53 @@
+/*
+ * A growable array of ints, for frontiers, stacks and paths where an
+ * ArrayList<Integer> would box every element.
+ */
+import java.util.Arrays;
+
+final class IntList {
+	private int[] values;
+	private int size;
+	
+	IntList(){
+		this(16);
+	}
+	
+	IntList(int capacity){
+		values = new int[Math.max(1, capacity)];
+	}
+	
+	void add(int value){
+		if (size == values.length){
+			values = Arrays.copyOf(values, size * 2);
+		}
+		values[size++] = value;
+	}
+	
+	void addAll(IntList other){
+		if (size + other.size > values.length){
+			values = Arrays.copyOf(values, Math.max(size + other.size, size * 2));
+		}
+		System.arraycopy(other.values, 0, values, size, other.size);
+		size += other.size;
+	}
+	
+	int pop(){
+		return values[--size];
+	}
+	
+	int get(int k){
+		return values[k];
+	}
+	
+	int size(){
+		return size;
+	}
+	
+	void clear(){
+		size = 0;
+	}
+	
+	int[] toArray(){
+		return Arrays.copyOf(values, size);
+	}
+}
@@ -0,0 +1,295 @@
+/*
+ * Landmark distance tables for ALT (A*, landmarks and the triangle 
+ * inequality).  For every landmark L we keep d(L,v) and d(v,L) for 
+ * all vertices v.  By the triangle inequality
+ *     d(v,t) >= d(L,t) - d(L,v)   and   d(v,t) >= d(v,L) - d(t,L),
+ * so the largest of these over all landmarks is a lower bound on the
+ * distance from v to t that A* can use as its heuristic.
+ * 
+ * Tables are computed with CsrDijkstras and can be saved to and 
+ * loaded from a file so they do not have to be recomputed.
+ */
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public final class Landmarks {
+	private static final int MAGIC = 0x414c5431; // "ALT1"
+	
+	private final int numVertices;
+	private final int[] landmarks;
+	// fromLandmark[k][v] = d(L_k, v), toLandmark[k][v] = d(v, L_k).
+	// For undirected graphs these are the same arrays.
+	private final double[][] fromLandmark;
+	private final double[][] toLandmark;
+	
+	private Landmarks(int numVertices, int[] landmarks, double[][] fromLandmark, double[][] toLandmark){
+		this.numVertices = numVertices;
+		this.landmarks = landmarks;
+		this.fromLandmark = fromLandmark;
+		this.toLandmark = toLandmark;
+	}
+	
+	/*
+	 * Compute the tables for the given landmark vertices.  The searches
+	 * for different landmarks run in parallel.
+	 */
+	public static Landmarks compute(CompactGraph graph, int[] landmarks){
+		int k = landmarks.length;
+		double[][] from = new double[k][];
+		double[][] to = graph.isDirected() ? new double[k][] : from;
+		IntStream.range(0, k).parallel().forEach(i -> {
+			from[i] = distancesFrom(graph, landmarks[i]);
+			if (graph.isDirected()){
+				to[i] = distancesFrom(graph.reverse(), landmarks[i]);
+			}
+		});
+		return new Landmarks(graph.numVertices(), landmarks.clone(), from, to);
+	}
+	
+	/*
+	 * Farthest-first selection: start from a random vertex, then keep 
+	 * adding the vertex that is farthest from all landmarks so far.
+	 */
+	public static Landmarks selectFarthest(CompactGraph graph, int count, long seed){
+		int n = graph.numVertices();
+		count = Math.min(count, n);
+		int[] chosen = new int[count];
+		if (count == 0){
+			return compute(graph, chosen);
+		}
+		// closest[v] = distance from v to the nearest landmark so far, 
+		// measured both ways so it also works for directed graphs.
+		double[] closest = new double[n];
+		Arrays.fill(closest, Double.POSITIVE_INFINITY);
+		int next = new Random(seed).nextInt(n);
+		for (int i = 0; i < count; i++){
+			chosen[i] = next;
+			double[] from = distancesFrom(graph, next);
+			double[] to = graph.isDirected() ? distancesFrom(graph.reverse(), next) : from;
+			double farthest = -1;
+			for (int v = 0; v < n; v++){
+				closest[v] = Math.min(closest[v], from[v] + to[v]);
+				// Ignore vertices no landmark can reach; they would 
+				// always look farthest but give no useful bounds.
+				if (closest[v] != Double.POSITIVE_INFINITY && closest[v] > farthest){
+					farthest = closest[v];
+					next = v;
+				}
+			}
+		}
+		return compute(graph, chosen);
+	}
+	
+	/*
+	 * Avoid selection (Goldberg and Werneck): grow a shortest path tree 
+	 * from a random root, weigh every vertex by how badly the current
+	 * landmarks bound its distance from the root, and walk down the 
+	 * heaviest subtrees that hold no landmark yet.  The leaf reached 
+	 * becomes the next landmark.
+	 */
+	public static Landmarks selectAvoid(CompactGraph graph, int count, long seed){
+		int n = graph.numVertices();
+		count = Math.min(count, n);
+		Random random = new Random(seed);
+		int[] chosen = new int[0];
+		Landmarks current = compute(graph, chosen);
+		CsrDijkstras sssp = new CsrDijkstras(graph);
+		
+		while (chosen.length < count){
+			int root = random.nextInt(n);
+			sssp.run(root);
+			
+			// Children of every vertex in the tree, in CSR form.
+			int[] childOffsets = new int[n + 1];
+			for (int v = 0; v < n; v++){
+				int p = sssp.getParent(v);
+				if (p >= 0){
+					childOffsets[p + 1]++;
+				}
+			}
+			for (int v = 0; v < n; v++){
+				childOffsets[v + 1] += childOffsets[v];
+			}
+			int[] children = new int[childOffsets[n]];
+			int[] fill = Arrays.copyOf(childOffsets, n);
+			for (int v = 0; v < n; v++){
+				int p = sssp.getParent(v);
+				if (p >= 0){
+					children[fill[p]++] = v;
+				}
+			}
+			
+			// Sizes are summed bottom-up, i.e. in order of falling distance.
+			Integer[] order = IntStream.range(0, n)
+					.filter(v -> sssp.getDistance(v) != Double.POSITIVE_INFINITY)
+					.boxed().toArray(Integer[]::new);
+			Arrays.sort(order, (a, b) -> Double.compare(sssp.getDistance(b), sssp.getDistance(a)));
+			double[] size = new double[n];
+			boolean[] hasLandmark = new boolean[n];
+			for (int v : chosen){
+				hasLandmark[v] = true;
+			}
+			for (int v : order){
+				if (hasLandmark[v]){
+					size[v] = 0;
+				}
+				else{
+					size[v] += sssp.getDistance(v) - current.lowerBound(root, v);
+				}
+				int p = sssp.getParent(v);
+				if (p >= 0){
+					if (hasLandmark[v]){
+						hasLandmark[p] = true;
+					}
+					size[p] += size[v];
+				}
+			}
+			
+			int leaf = root;
+			while (childOffsets[leaf] < childOffsets[leaf + 1]){
+				int best = children[childOffsets[leaf]];
+				for (int c = childOffsets[leaf] + 1; c < childOffsets[leaf + 1]; c++){
+					if (size[children[c]] > size[best]){
+						best = children[c];
+					}
+				}
+				leaf = best;
+			}
+			if (hasLandmark[leaf] || contains(chosen, leaf)){
+				// The root's tree is already covered; try another root.
+				if (contains(chosen, root)){
+					continue;
+				}
+				leaf = root;
+			}
+			chosen = Arrays.copyOf(chosen, chosen.length + 1);
+			chosen[chosen.length - 1] = leaf;
+			current = compute(graph, chosen);
+		}
+		return current;
+	}
+	
+	private static boolean contains(int[] values, int value){
+		for (int v : values){
+			if (v == value){
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private static double[] distancesFrom(CompactGraph graph, int source){
+		CsrDijkstras sssp = new CsrDijkstras(graph);
+		sssp.run(source);
+		double[] result = new double[graph.numVertices()];
+		for (int v = 0; v < result.length; v++){
+			result[v] = sssp.getDistance(v);
+		}
+		return result;
+	}
+	
+	public int count(){
+		return landmarks.length;
+	}
+	
+	public int getLandmark(int k){
+		return landmarks[k];
+	}
+	
+	// The size of the graph the tables were computed for, which may
+	// have no landmarks at all.
+	public int numVertices(){
+		return numVertices;
+	}
+	
+	/*
+	 * A lower bound on d(v,t).  Returns infinity when the tables prove
+	 * that t cannot be reached from v.
+	 */
+	public double lowerBound(int v, int t){
+		double bound = 0;
+		for (int k = 0; k < landmarks.length; k++){
+			// Both differences are NaN when neither vertex is connected 
+			// to the landmark; the comparisons skip them.
+			double forward = fromLandmark[k][t] - fromLandmark[k][v];
+			if (forward > bound){
+				bound = forward;
+			}
+			double backward = toLandmark[k][v] - toLandmark[k][t];
+			if (backward > bound){
+				bound = backward;
+			}
+		}
+		return bound;
+	}
+	
+	public void save(String fileName) throws IOException{
+		boolean directed = toLandmark != fromLandmark;
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(fileName)))){
+			out.writeInt(MAGIC);
+			out.writeInt(numVertices());
+			out.writeInt(landmarks.length);
+			out.writeBoolean(directed);
+			for (int k = 0; k < landmarks.length; k++){
+				out.writeInt(landmarks[k]);
+				writeDistances(out, fromLandmark[k]);
+				if (directed){
+					writeDistances(out, toLandmark[k]);
+				}
+			}
+		}
+	}
+	
+	/*
+	 * Load tables saved by save.  Throws IOException if the file is not
+	 * a landmark file or was computed for a graph of a different size.
+	 */
+	public static Landmarks load(String fileName, CompactGraph graph) throws IOException{
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(fileName)))){
+			if (in.readInt() != MAGIC){
+				throw new IOException(fileName + " is not a landmark file.");
+			}
+			int n = in.readInt();
+			int k = in.readInt();
+			boolean directed = in.readBoolean();
+			if (n != graph.numVertices() || directed != graph.isDirected()){
+				throw new IOException(fileName + " does not match the graph.");
+			}
+			int[] landmarks = new int[k];
+			double[][] from = new double[k][];
+			double[][] to = directed ? new double[k][] : from;
+			for (int i = 0; i < k; i++){
+				landmarks[i] = in.readInt();
+				from[i] = readDistances(in, n);
+				if (directed){
+					to[i] = readDistances(in, n);
+				}
+			}
+			return new Landmarks(n, landmarks, from, to);
+		}
+	}
+	
+	private static void writeDistances(DataOutputStream out, double[] distances) throws IOException{
+		for (double d : distances){
+			out.writeDouble(d);
+		}
+	}
+	
+	private static double[] readDistances(DataInputStream in, int n) throws IOException{
+		double[] distances = new double[n];
+		for (int v = 0; v < n; v++){
+			distances[v] = in.readDouble();
+		}
+		return distances;
+	}
+}
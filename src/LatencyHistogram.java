@@ -0,0 +1,102 @@
+/*
+ * A histogram of latencies in nanoseconds, in the style of
+ * HdrHistogram: every power of two is split into 32 equal buckets, so
+ * any value is off by at most about 3% and the whole range of a long
+ * fits in under 2000 counters.  Recording is one atomic increment and
+ * never allocates, so many threads can record at once.
+ */
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class LatencyHistogram {
+	// Linear buckets per power of two, as a power of two.
+	private static final int SUB_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	public void record(long nanos){
+		if (nanos < 0){
+			nanos = 0;
+		}
+		counts.incrementAndGet(bucket(nanos));
+		count.increment();
+		sum.add(nanos);
+		max.accumulate(nanos);
+	}
+
+	// Values below 32 get a bucket each.  Above that, the top bit picks
+	// the power of two and the next SUB_BITS bits the bucket within it.
+	private static int bucket(long value){
+		if (value < SUB_BUCKETS){
+			return (int)value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int)(value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	// The smallest value that falls in a bucket.
+	private static long lowest(int bucket){
+		if (bucket < SUB_BUCKETS){
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		long sub = bucket % SUB_BUCKETS;
+		return (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+	}
+
+	public long getCount(){
+		return count.sum();
+	}
+
+	public long getMax(){
+		return max.get();
+	}
+
+	public double getMean(){
+		long n = count.sum();
+		return n == 0 ? 0 : sum.sum() / (double)n;
+	}
+
+	/*
+	 * The latency that the given percentage (0 to 100) of recorded
+	 * values are at or below, to within a bucket.
+	 */
+	public long getPercentile(double percentile){
+		long total = 0;
+		long[] snapshot = new long[BUCKETS];
+		for (int b = 0; b < BUCKETS; b++){
+			snapshot[b] = counts.get(b);
+			total += snapshot[b];
+		}
+		if (total == 0){
+			return 0;
+		}
+		long rank = Math.max(1, (long)Math.ceil(percentile / 100 * total));
+		long seen = 0;
+		for (int b = 0; b < BUCKETS; b++){
+			seen += snapshot[b];
+			if (seen >= rank){
+				// Report the top of the bucket, but never above the max.
+				long top = b + 1 < BUCKETS ? lowest(b + 1) - 1 : Long.MAX_VALUE;
+				return Math.min(top, getMax());
+			}
+		}
+		return getMax();
+	}
+
+	public void reset(){
+		for (int b = 0; b < BUCKETS; b++){
+			counts.set(b, 0);
+		}
+		count.reset();
+		sum.reset();
+		max.reset();
+	}
+}
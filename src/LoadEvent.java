@@ -0,0 +1,27 @@
+/*
+ * A JFR event covering the load of one graph file.  The event's own
+ * duration is the load time.
+ */
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("dijkstras.Load")
+@Label("Graph Load")
+@Category("Dijkstras")
+@Description("Reading a graph file")
+class LoadEvent extends Event {
+	@Label("File")
+	String file;
+
+	@Label("Loader")
+	String loader;
+
+	@Label("Vertices")
+	int vertices;
+
+	@Label("Edges")
+	long edges;
+}
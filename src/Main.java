@@ -1,13 +1,27 @@
 /* The driver for the program.
+ * 
+ * With no arguments it asks for a file and two vertices.  Given a graph
+ * file and a query file it answers every query in the file instead; 
+ * see BatchQueryRunner for the arguments.  "serve" followed by a graph
+ * file starts a QueryServer instead; see QueryServer for the rest.
  * 
  * @author sspurlock
  * @version 2019-10-21
  */
-
+import java.io.IOException;
+import java.util.Arrays;
 
 
 public class Main {
-	public static void main(String[] args){
+	public static void main(String[] args) throws IOException{
+		if (args.length >= 2 && args[0].equals("serve")){
+			QueryServer.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length >= 2){
+			BatchQueryRunner.main(args);
+			return;
+		}
 
 		// Main method should create a Dijkstras object,
 		// which will start things going in its constructor.
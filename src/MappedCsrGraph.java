@@ -0,0 +1,150 @@
+/*
+ * A CompactGraph served straight from a memory-mapped GraphSnapshot.
+ * Offsets, targets and weights are read from the mapped pages on every
+ * call, so the graph takes almost no heap and opens in about the time
+ * it takes to map the file.  Each section is mapped on its own, which
+ * limits one section to 2GB (about 268 million edges).
+ * 
+ * Vertex names are decoded from the file when asked for.  indexOf 
+ * builds a name table on the heap the first time it is called.
+ */
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+
+public final class MappedCsrGraph implements CompactGraph {
+	private final boolean isDirected;
+	private final int numVertices;
+	private final int numArcs;
+	private final IntBuffer offsets;
+	private final IntBuffer targets;
+	private final DoubleBuffer weights;
+	private final LongBuffer nameOffsets;
+	private final ByteBuffer nameBytes;
+	private final MappedCsrGraph reverse;
+	private volatile HashMap<String, Integer> nameIds;
+	
+	MappedCsrGraph(Path file) throws IOException{
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			if (channel.size() < GraphSnapshot.HEADER_BYTES){
+				throw new IOException(file + " is not a graph snapshot.");
+			}
+			ByteBuffer header = map(channel, 0, GraphSnapshot.HEADER_BYTES);
+			if (header.getInt(0) != GraphSnapshot.MAGIC){
+				throw new IOException(file + " is not a graph snapshot.");
+			}
+			if (header.getInt(4) != GraphSnapshot.VERSION){
+				throw new IOException(file + " has snapshot version " + header.getInt(4) 
+						+ ", expected " + GraphSnapshot.VERSION + ".");
+			}
+			isDirected = (header.getInt(8) & GraphSnapshot.FLAG_DIRECTED) != 0;
+			numVertices = header.getInt(12);
+			numArcs = header.getInt(16);
+			long[] start = new long[GraphSnapshot.SECTIONS];
+			for (int s = 0; s < start.length; s++){
+				start[s] = header.getLong(GraphSnapshot.SECTION_TABLE + 8 * s);
+			}
+			
+			offsets = map(channel, start[GraphSnapshot.OFFSETS], 4L * (numVertices + 1)).asIntBuffer();
+			targets = map(channel, start[GraphSnapshot.TARGETS], 4L * numArcs).asIntBuffer();
+			weights = map(channel, start[GraphSnapshot.WEIGHTS], 8L * numArcs).asDoubleBuffer();
+			nameOffsets = map(channel, start[GraphSnapshot.NAME_OFFSETS], 8L * (numVertices + 1)).asLongBuffer();
+			nameBytes = map(channel, start[GraphSnapshot.NAME_BYTES], nameOffsets.get(numVertices));
+			
+			if (isDirected){
+				IntBuffer reverseOffsets = map(channel, start[GraphSnapshot.REVERSE_OFFSETS], 4L * (numVertices + 1)).asIntBuffer();
+				IntBuffer reverseTargets = map(channel, start[GraphSnapshot.REVERSE_TARGETS], 4L * numArcs).asIntBuffer();
+				DoubleBuffer reverseWeights = map(channel, start[GraphSnapshot.REVERSE_WEIGHTS], 8L * numArcs).asDoubleBuffer();
+				reverse = new MappedCsrGraph(this, reverseOffsets, reverseTargets, reverseWeights);
+			}
+			else{
+				reverse = this;
+			}
+		}
+	}
+	
+	// The reverse of a directed snapshot: its own CSR arrays, but the 
+	// names of the forward graph.
+	private MappedCsrGraph(MappedCsrGraph forward, IntBuffer offsets, IntBuffer targets, DoubleBuffer weights){
+		isDirected = true;
+		numVertices = forward.numVertices;
+		numArcs = forward.numArcs;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		nameOffsets = forward.nameOffsets;
+		nameBytes = forward.nameBytes;
+		reverse = forward;
+	}
+	
+	private static MappedByteBuffer map(FileChannel channel, long position, long size) throws IOException{
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		return buffer;
+	}
+	
+	public int numVertices(){
+		return numVertices;
+	}
+	
+	public int numArcs(){
+		return numArcs;
+	}
+	
+	public boolean isDirected(){
+		return isDirected;
+	}
+	
+	public int edgeBegin(int v){
+		return offsets.get(v);
+	}
+	
+	public int edgeEnd(int v){
+		return offsets.get(v + 1);
+	}
+	
+	public int target(int e){
+		return targets.get(e);
+	}
+	
+	public double weight(int e){
+		return weights.get(e);
+	}
+	
+	public String getName(int v){
+		int from = (int)nameOffsets.get(v);
+		int length = (int)(nameOffsets.get(v + 1) - from);
+		byte[] bytes = new byte[length];
+		nameBytes.get(from, bytes, 0, length);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	public MappedCsrGraph reverse(){
+		return reverse;
+	}
+	
+	/*
+	 * Returns the id of the vertex with the given name, or -1.
+	 */
+	public int indexOf(String name){
+		HashMap<String, Integer> ids = nameIds;
+		if (ids == null){
+			ids = new HashMap<String, Integer>();
+			for (int v = 0; v < numVertices; v++){
+				ids.putIfAbsent(getName(v), v);
+			}
+			nameIds = ids;
+		}
+		Integer id = ids.get(name);
+		return id == null ? -1 : id;
+	}
+}
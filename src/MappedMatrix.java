@@ -0,0 +1,142 @@
+/*
+ * A square matrix stored in a file and accessed through memory maps,
+ * so matrices far larger than the heap can be written and read.  The
+ * file holds a 16 byte header (magic, size, element type) followed by
+ * the rows in order.  A single map cannot pass 2GB, so the file is
+ * mapped in chunks of whole rows.
+ * 
+ * Different threads may write different cells at the same time.
+ */
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public final class MappedMatrix implements AutoCloseable {
+	public static final int FLOAT = 0;
+	public static final int DOUBLE = 1;
+	public static final int INT = 2;
+	
+	private static final int MAGIC = 0x4d545831; // "MTX1"
+	private static final int HEADER_BYTES = 16;
+	private static final long CHUNK_BYTES = 1L << 30;
+	
+	private final FileChannel channel;
+	private final int size;
+	private final int type;
+	private final int elementBytes;
+	private final int rowsPerChunk;
+	private final MappedByteBuffer header;
+	private final MappedByteBuffer[] chunks;
+	
+	private MappedMatrix(FileChannel channel, int size, int type, boolean writable) throws IOException{
+		this.channel = channel;
+		this.size = size;
+		this.type = type;
+		elementBytes = type == DOUBLE ? 8 : 4;
+		long rowBytes = (long)size * elementBytes;
+		rowsPerChunk = (int)Math.max(1, Math.min(size, CHUNK_BYTES / Math.max(1, rowBytes)));
+		FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+		header = channel.map(mode, 0, HEADER_BYTES);
+		int chunkCount = size == 0 ? 0 : (size + rowsPerChunk - 1) / rowsPerChunk;
+		chunks = new MappedByteBuffer[chunkCount];
+		for (int c = 0; c < chunkCount; c++){
+			int rows = Math.min(rowsPerChunk, size - c * rowsPerChunk);
+			chunks[c] = channel.map(mode, HEADER_BYTES + c * rowsPerChunk * rowBytes, rows * rowBytes);
+			chunks[c].order(ByteOrder.nativeOrder());
+		}
+	}
+	
+	/*
+	 * Create (or overwrite) a size x size matrix file.
+	 */
+	public static MappedMatrix create(Path file, int size, int type) throws IOException{
+		if (type != FLOAT && type != DOUBLE && type != INT){
+			throw new IllegalArgumentException("Unknown matrix type " + type + ".");
+		}
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, 
+				StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		MappedMatrix matrix = new MappedMatrix(channel, size, type, true);
+		matrix.header.putInt(0, MAGIC);
+		matrix.header.putInt(4, size);
+		matrix.header.putInt(8, type);
+		return matrix;
+	}
+	
+	/*
+	 * Open an existing matrix file for reading.
+	 */
+	public static MappedMatrix open(Path file) throws IOException{
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+		if (header.getInt(0) != MAGIC){
+			channel.close();
+			throw new IOException(file + " is not a matrix file.");
+		}
+		return new MappedMatrix(channel, header.getInt(4), header.getInt(8), false);
+	}
+	
+	public int size(){
+		return size;
+	}
+	
+	public int type(){
+		return type;
+	}
+	
+	private MappedByteBuffer chunk(int row){
+		return chunks[row / rowsPerChunk];
+	}
+	
+	private int offset(int row, int column){
+		return ((row % rowsPerChunk) * size + column) * elementBytes;
+	}
+	
+	public double getDouble(int row, int column){
+		switch (type){
+			case FLOAT: return chunk(row).getFloat(offset(row, column));
+			case DOUBLE: return chunk(row).getDouble(offset(row, column));
+			default: return chunk(row).getInt(offset(row, column));
+		}
+	}
+	
+	public int getInt(int row, int column){
+		return type == INT ? chunk(row).getInt(offset(row, column)) : (int)getDouble(row, column);
+	}
+	
+	public void setDouble(int row, int column, double value){
+		switch (type){
+			case FLOAT: chunk(row).putFloat(offset(row, column), (float)value); break;
+			case DOUBLE: chunk(row).putDouble(offset(row, column), value); break;
+			default: chunk(row).putInt(offset(row, column), (int)value);
+		}
+	}
+	
+	public void setInt(int row, int column, int value){
+		if (type == INT){
+			chunk(row).putInt(offset(row, column), value);
+		}
+		else{
+			setDouble(row, column, value);
+		}
+	}
+	
+	/*
+	 * Write any changes through to the file.
+	 */
+	public void flush(){
+		if (!header.isReadOnly()){
+			header.force();
+			for (MappedByteBuffer chunk : chunks){
+				chunk.force();
+			}
+		}
+	}
+	
+	public void close() throws IOException{
+		flush();
+		channel.close();
+	}
+}
@@ -0,0 +1,46 @@
+/**
+ * Interface for a priority queue of dense int ids keyed by
+ * non-negative long priorities, where the keys taken out never
+ * decrease: every key inserted is at least the key of the last id
+ * polled.  Dijkstra's algorithm with non-negative integer weights
+ * only ever uses a queue this way, and that lets a queue bucket its
+ * keys instead of comparing them.
+ */
+public interface MonotoneQueue {
+
+    /**
+     * Add an id with the given key, or lower its key if it is already
+     * in the queue.  A key that is not lower than the current one is
+     * ignored.
+     *
+     * @param id  an id from 0 to capacity-1.
+     * @param key a key no smaller than the last key polled.
+     */
+    void insertOrDecrease(int id, long key);
+
+    /**
+     * Remove and return an id with the smallest key.
+     *
+     * @return the id.
+     */
+    int pollMin();
+
+    /**
+     * Get the key of the id last returned by pollMin.
+     *
+     * @return the smallest key polled so far.
+     */
+    long lastKey();
+
+    /**
+     * Determine if the queue holds no ids.
+     *
+     * @return true if the queue is empty.
+     */
+    boolean isEmpty();
+
+    /**
+     * Remove every id, ready for a new search starting from key 0.
+     */
+    void clear();
+}
@@ -0,0 +1,125 @@
+/*
+ * A fixed-size block of memory outside the Java heap, addressed by a
+ * long index, that holds ints, longs, doubles or bytes.  It is backed
+ * by direct or memory-mapped ByteBuffers of up to 1GB each, so one
+ * array can be larger than the 2GB a single ByteBuffer can address.
+ * Elements never straddle two buffers because every buffer but the
+ * last is a whole number of 8-byte words.
+ *
+ * An array should hold one element type; the index of getInt is in
+ * ints, the index of getDouble in doubles, and so on.
+ *
+ * Direct memory is freed when the array is garbage collected.  The
+ * Java object itself is a few dozen bytes however much memory it
+ * holds.
+ */
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+final class OffHeapArray {
+	private static final int CHUNK_BITS = 30;
+	private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+	private final ByteBuffer[] chunks;
+	private final long byteSize;
+
+	private OffHeapArray(ByteBuffer[] chunks, long byteSize){
+		this.chunks = chunks;
+		this.byteSize = byteSize;
+	}
+
+	/*
+	 * Allocate bytes of zeroed direct memory.
+	 */
+	static OffHeapArray allocate(long bytes){
+		ByteBuffer[] chunks = new ByteBuffer[chunkCount(bytes)];
+		for (int k = 0; k < chunks.length; k++){
+			chunks[k] = ByteBuffer.allocateDirect(chunkSize(bytes, k)).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		return new OffHeapArray(chunks, bytes);
+	}
+
+	/*
+	 * Map bytes of a file starting at position.  The mapping stays
+	 * valid after the channel is closed.
+	 */
+	static OffHeapArray map(FileChannel channel, FileChannel.MapMode mode, long position, long bytes)
+			throws IOException{
+		ByteBuffer[] chunks = new ByteBuffer[chunkCount(bytes)];
+		for (int k = 0; k < chunks.length; k++){
+			chunks[k] = channel.map(mode, position + ((long)k << CHUNK_BITS), chunkSize(bytes, k))
+					.order(ByteOrder.LITTLE_ENDIAN);
+		}
+		return new OffHeapArray(chunks, bytes);
+	}
+
+	private static int chunkCount(long bytes){
+		return (int)((bytes + CHUNK_MASK) >>> CHUNK_BITS);
+	}
+
+	private static int chunkSize(long bytes, int k){
+		return (int)Math.min(1L << CHUNK_BITS, bytes - ((long)k << CHUNK_BITS));
+	}
+
+	long byteSize(){
+		return byteSize;
+	}
+
+	byte getByte(long index){
+		return chunks[(int)(index >>> CHUNK_BITS)].get((int)(index & CHUNK_MASK));
+	}
+
+	void setByte(long index, byte value){
+		chunks[(int)(index >>> CHUNK_BITS)].put((int)(index & CHUNK_MASK), value);
+	}
+
+	int getInt(long index){
+		long offset = index << 2;
+		return chunks[(int)(offset >>> CHUNK_BITS)].getInt((int)(offset & CHUNK_MASK));
+	}
+
+	void setInt(long index, int value){
+		long offset = index << 2;
+		chunks[(int)(offset >>> CHUNK_BITS)].putInt((int)(offset & CHUNK_MASK), value);
+	}
+
+	long getLong(long index){
+		long offset = index << 3;
+		return chunks[(int)(offset >>> CHUNK_BITS)].getLong((int)(offset & CHUNK_MASK));
+	}
+
+	void setLong(long index, long value){
+		long offset = index << 3;
+		chunks[(int)(offset >>> CHUNK_BITS)].putLong((int)(offset & CHUNK_MASK), value);
+	}
+
+	double getDouble(long index){
+		long offset = index << 3;
+		return chunks[(int)(offset >>> CHUNK_BITS)].getDouble((int)(offset & CHUNK_MASK));
+	}
+
+	void setDouble(long index, double value){
+		long offset = index << 3;
+		chunks[(int)(offset >>> CHUNK_BITS)].putDouble((int)(offset & CHUNK_MASK), value);
+	}
+
+	/*
+	 * Set length ints from index on to value.
+	 */
+	void fillInt(long index, long length, int value){
+		for (long k = index; k < index + length; k++){
+			setInt(k, value);
+		}
+	}
+
+	/*
+	 * Copy bytes out, starting at byte index, into destination.
+	 */
+	void getBytes(long index, byte[] destination){
+		for (int k = 0; k < destination.length; k++){
+			destination[k] = getByte(index + k);
+		}
+	}
+}
@@ -0,0 +1,256 @@
+/*
+ * Dijkstra's algorithm with all of its per-vertex state outside the
+ * Java heap: distances, parents, generation stamps and an indexed
+ * binary heap are OffHeapArrays.  Paired with an OffHeapGraph, the
+ * heap cost of a search is a handful of objects whatever the size of
+ * the graph, so graphs with more vertices than the heap could hold
+ * state for can still be searched.  It runs over any CompactGraph.
+ *
+ * Like SearchState, entries are stamped with the generation that
+ * wrote them, so starting a new search is O(1).  The heap is keyed by
+ * the distance array itself rather than a copy of the keys.
+ *
+ * An OffHeapDijkstras object is not thread-safe; use one per thread.
+ *
+ * Direct memory counts against -XX:MaxDirectMemorySize, which defaults
+ * to the maximum heap size, so raise it when the heap is kept small.
+ * Mapped snapshot files do not count against it.
+ *
+ * Usage: java OffHeapDijkstras <snapshot file> <source> <target>
+ */
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class OffHeapDijkstras {
+	private final CompactGraph graph;
+	private final int n;
+	private final OffHeapArray distance;
+	private final OffHeapArray parent;
+	private final OffHeapArray stamp;
+	// heap[k] is the vertex at heap slot k; position[v] is the slot of
+	// v, or -1 once v is settled.  position is only valid for vertices
+	// stamped with the current generation.
+	private final OffHeapArray heap;
+	private final OffHeapArray position;
+	private int size;
+	private int generation;
+
+	public OffHeapDijkstras(CompactGraph graph){
+		this.graph = graph;
+		n = graph.numVertices();
+		distance = OffHeapArray.allocate(8L * n);
+		parent = OffHeapArray.allocate(4L * n);
+		stamp = OffHeapArray.allocate(4L * n);
+		heap = OffHeapArray.allocate(4L * n);
+		position = OffHeapArray.allocate(4L * n);
+	}
+
+	public CompactGraph getGraph(){
+		return graph;
+	}
+
+	/*
+	 * Compute the distance from source to every vertex.
+	 */
+	public void run(int source) throws IllegalVertexException{
+		long start = Instrumentation.ENABLED ? System.nanoTime() : 0;
+		search(source, -1, "run failed.");
+		if (Instrumentation.ENABLED){
+			Instrumentation.record("offheap", start, source, -1, 0);
+		}
+	}
+
+	/*
+	 * Find the shortest path from source to target.  The search stops
+	 * as soon as the target is settled.
+	 */
+	public PathResult query(int source, int target) throws IllegalVertexException{
+		if (target < 0 || target >= n){
+			throw new IllegalVertexException("query failed.");
+		}
+		long start = Instrumentation.ENABLED ? System.nanoTime() : 0;
+		search(source, target, "query failed.");
+		PathResult result = toPath(source, target);
+		if (Instrumentation.ENABLED){
+			Instrumentation.record("offheap", start, source, target, result.getDistance());
+		}
+		return result;
+	}
+
+	private void search(int source, int target, String message){
+		if (source < 0 || source >= n){
+			throw new IllegalVertexException(message);
+		}
+		reset();
+		relax(source, 0, -1);
+		while (size > 0){
+			int u = pollMin();
+			if (u == target){
+				break;
+			}
+			double du = distance.getDouble(u);
+			for (int e = graph.edgeBegin(u), end = graph.edgeEnd(u); e < end; e++){
+				relax(graph.target(e), du + graph.weight(e), u);
+			}
+		}
+	}
+
+	private void reset(){
+		size = 0;
+		generation++;
+		if (generation == Integer.MAX_VALUE){
+			// Stamps are about to repeat, so clear them for real.
+			stamp.fillInt(0, n, 0);
+			generation = 1;
+		}
+	}
+
+	private void relax(int v, double d, int from){
+		if (stamp.getInt(v) != generation){
+			stamp.setInt(v, generation);
+			distance.setDouble(v, d);
+			parent.setInt(v, from);
+			heap.setInt(size, v);
+			position.setInt(v, size);
+			siftUp(size++, v, d);
+		}
+		else if (d < distance.getDouble(v)){
+			int slot = position.getInt(v);
+			if (slot >= 0){
+				distance.setDouble(v, d);
+				parent.setInt(v, from);
+				siftUp(slot, v, d);
+			}
+		}
+	}
+
+	private int pollMin(){
+		int min = heap.getInt(0);
+		position.setInt(min, -1);
+		size--;
+		if (size > 0){
+			int last = heap.getInt(size);
+			siftDown(0, last, distance.getDouble(last));
+		}
+		return min;
+	}
+
+	// Move v, with key d, up from slot until its parent is no larger.
+	private void siftUp(int slot, int v, double d){
+		while (slot > 0){
+			int up = (slot - 1) >>> 1;
+			int above = heap.getInt(up);
+			if (distance.getDouble(above) <= d){
+				break;
+			}
+			heap.setInt(slot, above);
+			position.setInt(above, slot);
+			slot = up;
+		}
+		heap.setInt(slot, v);
+		position.setInt(v, slot);
+	}
+
+	// Move v, with key d, down from slot until its children are no
+	// smaller.
+	private void siftDown(int slot, int v, double d){
+		while (true){
+			int child = 2 * slot + 1;
+			if (child >= size){
+				break;
+			}
+			double childKey = distance.getDouble(heap.getInt(child));
+			if (child + 1 < size){
+				double rightKey = distance.getDouble(heap.getInt(child + 1));
+				if (rightKey < childKey){
+					child++;
+					childKey = rightKey;
+				}
+			}
+			if (childKey >= d){
+				break;
+			}
+			int below = heap.getInt(child);
+			heap.setInt(slot, below);
+			position.setInt(below, slot);
+			slot = child;
+		}
+		heap.setInt(slot, v);
+		position.setInt(v, slot);
+	}
+
+	/*
+	 * Distance found by the last search, or infinity if v was not
+	 * reached.
+	 */
+	public double getDistance(int v){
+		return stamp.getInt(v) == generation ? distance.getDouble(v) : Double.POSITIVE_INFINITY;
+	}
+
+	/*
+	 * The vertex before v on the shortest path found by the last search,
+	 * or -1 for the source and unreached vertices.
+	 */
+	public int getParent(int v){
+		return stamp.getInt(v) == generation ? parent.getInt(v) : -1;
+	}
+
+	/*
+	 * The path to target found by the last search.
+	 */
+	public PathResult toPath(int source, int target){
+		double d = getDistance(target);
+		if (d == Double.POSITIVE_INFINITY){
+			return new PathResult(source, target, d, new int[0]);
+		}
+		int length = 0;
+		for (int v = target; v != -1; v = getParent(v)){
+			length++;
+		}
+		int[] path = new int[length];
+		for (int v = target, k = length - 1; v != -1; v = getParent(v), k--){
+			path[k] = v;
+		}
+		return new PathResult(source, target, d, path);
+	}
+
+	/*
+	 * The number of bytes of direct memory the search state uses.
+	 */
+	public long offHeapBytes(){
+		return distance.byteSize() + parent.byteSize() + stamp.byteSize() + heap.byteSize()
+				+ position.byteSize();
+	}
+
+	public static void main(String[] args) throws IOException{
+		if (args.length < 3){
+			System.out.println("Usage: java OffHeapDijkstras <snapshot file> <source> <target>");
+			return;
+		}
+		OffHeapGraph graph = OffHeapGraph.open(Paths.get(args[0]));
+		int source = graph.indexOf(args[1]);
+		int target = graph.indexOf(args[2]);
+		if (source < 0 || target < 0){
+			System.out.println("No vertex named " + (source < 0 ? args[1] : args[2]) + ".");
+			return;
+		}
+		OffHeapDijkstras engine = new OffHeapDijkstras(graph);
+		long start = System.nanoTime();
+		PathResult result = engine.query(source, target);
+		long elapsed = System.nanoTime() - start;
+		if (!result.isReachable()){
+			System.out.println(args[2] + " cannot be reached from " + args[1] + ".");
+		}
+		else{
+			StringBuilder path = new StringBuilder();
+			for (int k = 0; k < result.length(); k++){
+				path.append(k == 0 ? "" : " -> ").append(graph.getName(result.getVertex(k)));
+			}
+			System.out.println(path + " (" + result.getDistance() + ")");
+		}
+		Runtime runtime = Runtime.getRuntime();
+		System.out.printf("%,d vertices, %,d edges; searched in %.1f ms; %,d bytes off the heap, %,d bytes of heap in use%n",
+				graph.numVertices(), graph.numArcs(), elapsed / 1e6, graph.offHeapBytes() + engine.offHeapBytes(),
+				runtime.totalMemory() - runtime.freeMemory());
+	}
+}
@@ -0,0 +1,513 @@
+/*
+ * A read-only graph whose adjacency arrays, weights and vertex names
+ * all live outside the Java heap, for graphs bigger than the heap can
+ * hold.  It is laid out like CsrGraph but every array is an
+ * OffHeapArray, so the heap cost is a few objects however many
+ * vertices and edges there are.
+ *
+ * There are two ways to get one:
+ *
+ *  - open maps a GraphSnapshot file.  Nothing is read until it is
+ *    touched, the OS pages the graph in and out as needed, and the
+ *    graph can be far larger than physical memory.  Unlike
+ *    MappedCsrGraph, sections are not limited to 2GB.
+ *  - copyOf copies another graph into direct memory.
+ *
+ * It implements both Graph, with the dense ids 0 to numVertices()-1 as
+ * its vertices, and CompactGraph, so it can be searched with
+ * OffHeapDijkstras or any other CompactGraph engine.  The Graph methods
+ * that change the graph throw UnsupportedOperationException.
+ *
+ * The reverse of a graph copied with copyOf, and the name table behind
+ * indexOf, are built off the heap the first time they are needed.
+ */
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.List;
+
+public final class OffHeapGraph implements Graph<Integer>, CompactGraph {
+	private final boolean isDirected;
+	private final int numVertices;
+	private final int numArcs;
+	// Undirected self-loops, stored once rather than in each direction;
+	// -1 until counted.
+	private volatile int selfLoops;
+	private final OffHeapArray offsets;
+	private final OffHeapArray targets;
+	private final OffHeapArray weights;
+	private final Names names;
+	private volatile OffHeapGraph reverse;
+
+	// Vertex names as UTF-8, shared by a graph and its reverse.
+	private static final class Names {
+		// Byte offset of each name in bytes, plus one past the end.
+		final OffHeapArray offsets;
+		final OffHeapArray bytes;
+		// Open-addressed hash table of vertex id + 1 for indexOf, with 0
+		// for an empty slot; built on the first lookup.
+		volatile OffHeapArray table;
+
+		Names(OffHeapArray offsets, OffHeapArray bytes){
+			this.offsets = offsets;
+			this.bytes = bytes;
+		}
+	}
+
+	private OffHeapGraph(boolean directed, int numVertices, int numArcs, int selfLoops, OffHeapArray offsets,
+			OffHeapArray targets, OffHeapArray weights, Names names){
+		this.isDirected = directed;
+		this.numVertices = numVertices;
+		this.numArcs = numArcs;
+		this.selfLoops = selfLoops;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		this.names = names;
+		if (!directed){
+			reverse = this;
+		}
+	}
+
+	/*
+	 * Map a snapshot written by GraphSnapshot.write.
+	 */
+	public static OffHeapGraph open(Path file) throws IOException{
+		LoadEvent event = Instrumentation.beginLoad(file.toString(), "OffHeapGraph");
+		OffHeapGraph graph;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			if (channel.size() < GraphSnapshot.HEADER_BYTES){
+				throw new IOException(file + " is not a graph snapshot.");
+			}
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, GraphSnapshot.HEADER_BYTES)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			if (header.getInt(0) != GraphSnapshot.MAGIC){
+				throw new IOException(file + " is not a graph snapshot.");
+			}
+			if (header.getInt(4) != GraphSnapshot.VERSION){
+				throw new IOException(file + " has snapshot version " + header.getInt(4)
+						+ ", expected " + GraphSnapshot.VERSION + ".");
+			}
+			boolean directed = (header.getInt(8) & GraphSnapshot.FLAG_DIRECTED) != 0;
+			int n = header.getInt(12);
+			int m = header.getInt(16);
+			long[] start = new long[GraphSnapshot.SECTIONS];
+			for (int s = 0; s < start.length; s++){
+				start[s] = header.getLong(GraphSnapshot.SECTION_TABLE + 8 * s);
+			}
+
+			OffHeapArray nameOffsets = map(channel, start[GraphSnapshot.NAME_OFFSETS], 8L * (n + 1));
+			Names names = new Names(nameOffsets, map(channel, start[GraphSnapshot.NAME_BYTES], nameOffsets.getLong(n)));
+			graph = new OffHeapGraph(directed, n, m, -1, map(channel, start[GraphSnapshot.OFFSETS], 4L * (n + 1)),
+					map(channel, start[GraphSnapshot.TARGETS], 4L * m),
+					map(channel, start[GraphSnapshot.WEIGHTS], 8L * m), names);
+			if (directed){
+				OffHeapGraph reverse = new OffHeapGraph(true, n, m, 0,
+						map(channel, start[GraphSnapshot.REVERSE_OFFSETS], 4L * (n + 1)),
+						map(channel, start[GraphSnapshot.REVERSE_TARGETS], 4L * m),
+						map(channel, start[GraphSnapshot.REVERSE_WEIGHTS], 8L * m), names);
+				reverse.reverse = graph;
+				graph.reverse = reverse;
+			}
+		}
+		Instrumentation.endLoad(event, graph.numVertices(), graph.numArcs());
+		return graph;
+	}
+
+	private static OffHeapArray map(FileChannel channel, long position, long size) throws IOException{
+		return OffHeapArray.map(channel, FileChannel.MapMode.READ_ONLY, position, size);
+	}
+
+	/*
+	 * Copy a graph into direct memory.  Vertex ids are unchanged.
+	 */
+	public static OffHeapGraph copyOf(CompactGraph graph){
+		int n = graph.numVertices();
+		int m = graph.numArcs();
+		OffHeapArray offsets = OffHeapArray.allocate(4L * (n + 1));
+		OffHeapArray targets = OffHeapArray.allocate(4L * m);
+		OffHeapArray weights = OffHeapArray.allocate(8L * m);
+		int e = 0;
+		int selfLoops = 0;
+		for (int v = 0; v < n; v++){
+			offsets.setInt(v, e);
+			for (int k = graph.edgeBegin(v), end = graph.edgeEnd(v); k < end; k++, e++){
+				int target = graph.target(k);
+				if (target == v){
+					selfLoops++;
+				}
+				targets.setInt(e, target);
+				weights.setDouble(e, graph.weight(k));
+			}
+		}
+		offsets.setInt(n, e);
+
+		OffHeapArray nameOffsets = OffHeapArray.allocate(8L * (n + 1));
+		long nameBytes = 0;
+		for (int v = 0; v < n; v++){
+			nameOffsets.setLong(v, nameBytes);
+			nameBytes += graph.getName(v).getBytes(StandardCharsets.UTF_8).length;
+		}
+		nameOffsets.setLong(n, nameBytes);
+		OffHeapArray bytes = OffHeapArray.allocate(nameBytes);
+		for (int v = 0; v < n; v++){
+			byte[] name = graph.getName(v).getBytes(StandardCharsets.UTF_8);
+			long at = nameOffsets.getLong(v);
+			for (int k = 0; k < name.length; k++){
+				bytes.setByte(at + k, name[k]);
+			}
+		}
+		return new OffHeapGraph(graph.isDirected(), n, m, selfLoops, offsets, targets, weights, new Names(nameOffsets, bytes));
+	}
+
+	/*
+	 * Copy an AdjListGraph into direct memory.  Vertex ids are the same
+	 * as the ids in the AdjListGraph.
+	 */
+	public static OffHeapGraph copyOf(AdjListGraph graph){
+		return copyOf(CsrGraph.from(graph));
+	}
+
+	/*
+	 * The number of bytes of direct or mapped memory the graph uses,
+	 * counting its reverse if it has been built.
+	 */
+	public long offHeapBytes(){
+		long bytes = offsets.byteSize() + targets.byteSize() + weights.byteSize()
+				+ names.offsets.byteSize() + names.bytes.byteSize();
+		OffHeapArray table = names.table;
+		if (table != null){
+			bytes += table.byteSize();
+		}
+		OffHeapGraph other = reverse;
+		if (other != null && other != this){
+			bytes += other.offsets.byteSize() + other.targets.byteSize() + other.weights.byteSize();
+		}
+		return bytes;
+	}
+
+	// CompactGraph
+
+	public int numVertices(){
+		return numVertices;
+	}
+
+	public int numArcs(){
+		return numArcs;
+	}
+
+	public boolean isDirected(){
+		return isDirected;
+	}
+
+	public int edgeBegin(int v){
+		return offsets.getInt(v);
+	}
+
+	public int edgeEnd(int v){
+		return offsets.getInt(v + 1L);
+	}
+
+	public int target(int e){
+		return targets.getInt(e);
+	}
+
+	public double weight(int e){
+		return weights.getDouble(e);
+	}
+
+	public String getName(int v){
+		long from = names.offsets.getLong(v);
+		byte[] bytes = new byte[(int)(names.offsets.getLong(v + 1L) - from)];
+		names.bytes.getBytes(from, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/*
+	 * The transposed graph.  A mapped snapshot already holds it; a copy
+	 * builds it once, on the first call.  Undirected graphs return
+	 * themselves.
+	 */
+	public OffHeapGraph reverse(){
+		OffHeapGraph result = reverse;
+		if (result == null){
+			synchronized (this){
+				result = reverse;
+				if (result == null){
+					result = transpose();
+					reverse = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	private OffHeapGraph transpose(){
+		OffHeapArray reverseOffsets = OffHeapArray.allocate(4L * (numVertices + 1));
+		for (int e = 0; e < numArcs; e++){
+			long slot = targets.getInt(e) + 1L;
+			reverseOffsets.setInt(slot, reverseOffsets.getInt(slot) + 1);
+		}
+		// next[v] is where the next edge into v goes.
+		OffHeapArray next = OffHeapArray.allocate(4L * numVertices);
+		for (int v = 0; v < numVertices; v++){
+			int begin = reverseOffsets.getInt(v);
+			next.setInt(v, begin);
+			reverseOffsets.setInt(v + 1L, reverseOffsets.getInt(v + 1L) + begin);
+		}
+		OffHeapArray reverseTargets = OffHeapArray.allocate(4L * numArcs);
+		OffHeapArray reverseWeights = OffHeapArray.allocate(8L * numArcs);
+		for (int u = 0; u < numVertices; u++){
+			for (int e = edgeBegin(u), end = edgeEnd(u); e < end; e++){
+				int v = targets.getInt(e);
+				int slot = next.getInt(v);
+				next.setInt(v, slot + 1);
+				reverseTargets.setInt(slot, u);
+				reverseWeights.setDouble(slot, weights.getDouble(e));
+			}
+		}
+		OffHeapGraph result = new OffHeapGraph(true, numVertices, numArcs, selfLoops, reverseOffsets,
+				reverseTargets, reverseWeights, names);
+		result.reverse = this;
+		return result;
+	}
+
+	/*
+	 * Returns the id of the vertex with the given name, or -1.
+	 */
+	public int indexOf(String name){
+		OffHeapArray table = nameTable();
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		long mask = table.byteSize() / 4 - 1;
+		for (long slot = hash(bytes) & mask; ; slot = (slot + 1) & mask){
+			int entry = table.getInt(slot);
+			if (entry == 0){
+				return -1;
+			}
+			if (nameEquals(entry - 1, bytes)){
+				return entry - 1;
+			}
+		}
+	}
+
+	private OffHeapArray nameTable(){
+		OffHeapArray table = names.table;
+		if (table == null){
+			synchronized (names){
+				table = names.table;
+				if (table == null){
+					table = buildNameTable();
+					names.table = table;
+				}
+			}
+		}
+		return table;
+	}
+
+	// Linear probing in a power of two table at most half full.  A
+	// repeated name keeps the lowest id, as in CsrGraph.
+	private OffHeapArray buildNameTable(){
+		long slots = Long.highestOneBit(Math.max(1, 2L * numVertices - 1)) << 1;
+		OffHeapArray table = OffHeapArray.allocate(4 * slots);
+		long mask = slots - 1;
+		for (int v = 0; v < numVertices; v++){
+			long slot = nameHash(v) & mask;
+			while (table.getInt(slot) != 0 && !sameName(table.getInt(slot) - 1, v)){
+				slot = (slot + 1) & mask;
+			}
+			if (table.getInt(slot) == 0){
+				table.setInt(slot, v + 1);
+			}
+		}
+		return table;
+	}
+
+	// FNV-1a over the UTF-8 bytes of a name.
+	private static int hash(byte[] bytes){
+		int hash = 0x811c9dc5;
+		for (byte b : bytes){
+			hash = (hash ^ (b & 0xff)) * 0x01000193;
+		}
+		return hash;
+	}
+
+	private int nameHash(int v){
+		int hash = 0x811c9dc5;
+		for (long k = names.offsets.getLong(v), end = names.offsets.getLong(v + 1L); k < end; k++){
+			hash = (hash ^ (names.bytes.getByte(k) & 0xff)) * 0x01000193;
+		}
+		return hash;
+	}
+
+	private boolean nameEquals(int v, byte[] bytes){
+		long from = names.offsets.getLong(v);
+		if (names.offsets.getLong(v + 1L) - from != bytes.length){
+			return false;
+		}
+		for (int k = 0; k < bytes.length; k++){
+			if (names.bytes.getByte(from + k) != bytes[k]){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean sameName(int u, int v){
+		long uFrom = names.offsets.getLong(u);
+		long vFrom = names.offsets.getLong(v);
+		long length = names.offsets.getLong(u + 1L) - uFrom;
+		if (names.offsets.getLong(v + 1L) - vFrom != length){
+			return false;
+		}
+		for (long k = 0; k < length; k++){
+			if (names.bytes.getByte(uFrom + k) != names.bytes.getByte(vFrom + k)){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Graph
+
+	public int numEdges(){
+		if (isDirected){
+			return numArcs;
+		}
+		// An undirected edge is stored once in each direction, except
+		// a self-loop, which is stored once.
+		int loops = selfLoops;
+		if (loops < 0){
+			loops = 0;
+			for (int v = 0; v < numVertices; v++){
+				for (int e = offsets.getInt(v), end = offsets.getInt(v + 1); e < end; e++){
+					if (targets.getInt(e) == v){
+						loops++;
+					}
+				}
+			}
+			selfLoops = loops;
+		}
+		return (numArcs + loops) / 2;
+	}
+
+	private int check(Integer vertex, String message){
+		if (vertex == null || vertex < 0 || vertex >= numVertices){
+			throw new IllegalVertexException(message);
+		}
+		return vertex;
+	}
+
+	public void addEdge(Integer i, Integer j){
+		throw new UnsupportedOperationException("An OffHeapGraph cannot be changed.");
+	}
+
+	public void addEdge(Integer i, Integer j, double w){
+		throw new UnsupportedOperationException("An OffHeapGraph cannot be changed.");
+	}
+
+	public void removeEdge(Integer i, Integer j){
+		throw new UnsupportedOperationException("An OffHeapGraph cannot be changed.");
+	}
+
+	public Integer addVertex(Integer v){
+		throw new UnsupportedOperationException("An OffHeapGraph cannot be changed.");
+	}
+
+	public void removeVertex(Integer vertex){
+		throw new UnsupportedOperationException("An OffHeapGraph cannot be changed.");
+	}
+
+	public boolean edgeExists(Integer i, Integer j) throws IllegalVertexException{
+		return getWeight(i, j) != Double.POSITIVE_INFINITY;
+	}
+
+	public double getWeight(Integer i, Integer j) throws IllegalVertexException{
+		int from = check(i, "getWeight failed.");
+		int to = check(j, "getWeight failed.");
+		double weight = Double.POSITIVE_INFINITY;
+		for (int e = edgeBegin(from), end = edgeEnd(from); e < end; e++){
+			if (targets.getInt(e) == to){
+				weight = Math.min(weight, weights.getDouble(e));
+			}
+		}
+		return weight;
+	}
+
+	public int inDegree(Integer vertex) throws IllegalVertexException{
+		int v = check(vertex, "in Degree failed.");
+		CompactGraph incoming = reverse();
+		return incoming.edgeEnd(v) - incoming.edgeBegin(v);
+	}
+
+	public int outDegree(Integer vertex) throws IllegalVertexException{
+		int v = check(vertex, "out degree failed");
+		return edgeEnd(v) - edgeBegin(v);
+	}
+
+	/*
+	 * A view of the targets of the vertex's edges, read from the
+	 * off-heap arrays as it is iterated.
+	 */
+	public List<Integer> getAdjacentVertices(Integer vertex) throws IllegalVertexException{
+		return neighbours(this, check(vertex, "get Iterator failed"));
+	}
+
+	public List<Integer> getIncomingVertices(Integer vertex) throws IllegalVertexException{
+		return neighbours(reverse(), check(vertex, "get incoming failed"));
+	}
+
+	private static List<Integer> neighbours(OffHeapGraph graph, int v){
+		int begin = graph.edgeBegin(v);
+		int size = graph.edgeEnd(v) - begin;
+		return new AbstractList<Integer>(){
+			public Integer get(int k){
+				if (k < 0 || k >= size){
+					throw new IndexOutOfBoundsException("Index " + k + ", size " + size + ".");
+				}
+				return graph.targets.getInt(begin + k);
+			}
+
+			public int size(){
+				return size;
+			}
+		};
+	}
+
+	/*
+	 * A view of the ids 0 to numVertices()-1.
+	 */
+	public Collection<Integer> getVertices(){
+		return new AbstractList<Integer>(){
+			public Integer get(int k){
+				if (k < 0 || k >= numVertices){
+					throw new IndexOutOfBoundsException("Index " + k + ", size " + numVertices + ".");
+				}
+				return k;
+			}
+
+			public int size(){
+				return numVertices;
+			}
+		};
+	}
+
+	public void print(){
+		String direction = isDirected ? "directed" : "undirected";
+		System.out.println("This is a "+direction+ " graph.");
+		System.out.println("This graph has "+ numEdges()+" edges and "+numVertices()+ " vertices:");
+		for (int v = 0; v < numVertices; v++){
+			System.out.println(getName(v)+" in degree: "+inDegree(v)+ " out degree: "+outDegree(v));
+			System.out.print("\tEdges to: ");
+			for (int e = edgeBegin(v), end = edgeEnd(v); e < end; e++){
+				System.out.print(getName(targets.getInt(e)));
+			}
+			System.out.println();
+		}
+	}
+}
@@ -0,0 +1,455 @@
+/*
+ * Builds a CsrGraph from a large file using every core.  The file is
+ * cut into chunks at line boundaries, each chunk is parsed by its own
+ * ByteParser on a worker thread, and the edges are merged into CSR
+ * form by counting the edges of every vertex, turning the counts into
+ * offsets and then filling each vertex's slots in parallel.
+ *
+ * It reads the same formats as GraphMaker: matrix files (rows may be in
+ * any order, since each row is found by its label), edge lists and
+ * DIMACS .gr files.  Repeated edges are merged keeping the one that
+ * comes last in the file, as GraphMaker does, and every vertex's edges
+ * end up sorted by target, so the result does not depend on thread
+ * timing.
+ *
+ * Usage: java ParallelGraphLoader <graph file> [threads]
+ */
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+public class ParallelGraphLoader {
+	private static final int MATRIX = 0;
+	private static final int EDGE_LIST = 1;
+	private static final int DIMACS = 2;
+	// Chunks smaller than this are not worth a thread.
+	private static final long MIN_CHUNK_BYTES = 1L << 20;
+
+	private final ForkJoinPool pool;
+	private Boolean directed;
+	private long lastEdges;
+	private double lastSeconds;
+
+	public ParallelGraphLoader(){
+		this(ForkJoinPool.commonPool());
+	}
+
+	public ParallelGraphLoader(ForkJoinPool pool){
+		this.pool = pool;
+	}
+
+	/*
+	 * Force the graph to be directed or undirected, ignoring the file.
+	 */
+	public void setDirected(boolean directed){
+		this.directed = directed;
+	}
+
+	/*
+	 * Edges read per second by the last load.
+	 */
+	public double getEdgesPerSecond(){
+		return lastSeconds > 0 ? lastEdges / lastSeconds : 0;
+	}
+
+	public long getLastEdgeCount(){
+		return lastEdges;
+	}
+
+	public CsrGraph load(String fileName) throws IOException{
+		long start = System.nanoTime();
+		LoadEvent event = Instrumentation.beginLoad(fileName, "ParallelGraphLoader");
+		int format = fileName.endsWith(".gr") ? DIMACS
+				: EdgeListLoader.isEdgeListFile(fileName) ? EDGE_LIST : MATRIX;
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)){
+			Header header = readHeader(channel, format);
+			long[] bounds = chunkBounds(channel, header.dataStart, format);
+			int chunkCount = bounds.length - 1;
+
+			// Parse every chunk into its own edge buffer.
+			EdgeBuffer[] chunks = new EdgeBuffer[chunkCount];
+			run(() -> IntStream.range(0, chunkCount).parallel().forEach(c ->
+					chunks[c] = parseChunk(channel, bounds[c], bounds[c + 1], format, header)));
+
+			int n = header.names != null ? header.names.length : 0;
+			long edges = 0;
+			for (EdgeBuffer chunk : chunks){
+				n = Math.max(n, chunk.maxVertex + 1);
+				edges += chunk.size;
+			}
+			// Matrix rows already hold both directions of an undirected
+			// edge; other formats list each undirected edge once.  A matrix
+			// with no flag is undirected exactly when it is symmetric,
+			// which merge decides (null) once the rows are sorted.
+			Boolean isDirected = directed != null ? directed : format == MATRIX ? null : header.directed;
+			boolean mirror = isDirected != null && !isDirected && format != MATRIX;
+			CsrGraph graph = merge(chunks, n, isDirected, mirror, header.names);
+			lastEdges = edges;
+			lastSeconds = (System.nanoTime() - start) / 1e9;
+			Instrumentation.endLoad(event, graph.numVertices(), graph.numArcs());
+			return graph;
+		}
+	}
+
+	private void run(Runnable task) throws IOException{
+		try {
+			pool.submit(task).get();
+		}
+		catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new IOException("Load interrupted.", e);
+		}
+		catch (ExecutionException e){
+			// A parallel stream rethrows a worker's exception as a copy
+			// without the message, holding the original as its cause.
+			Throwable cause = e.getCause();
+			while (cause.getMessage() == null && cause.getCause() != null
+					&& cause.getCause().getClass() == cause.getClass()){
+				cause = cause.getCause();
+			}
+			if (cause instanceof RuntimeException){
+				throw (RuntimeException)cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	// What comes before the edges: names and size for matrices, the
+	// header lines of edge lists, the problem line of DIMACS files.
+	private static final class Header {
+		String[] names;
+		HashMap<String, Integer> nameIds;
+		boolean directed = true;
+		long dataStart;
+	}
+
+	private Header readHeader(FileChannel channel, int format) throws IOException{
+		Header header = new Header();
+		ByteParser parser = new ByteParser(channel, 0, channel.size());
+		if (format == MATRIX){
+			int n = parser.nextInt();
+			header.names = new String[n];
+			header.nameIds = new HashMap<String, Integer>();
+			for (int v = 0; v < n; v++){
+				while (parser.atLineEnd() && parser.hasMore()){
+					parser.skipLine();
+				}
+				header.names[v] = parser.nextToken();
+				header.nameIds.putIfAbsent(header.names[v], v);
+			}
+			header.directed = true;
+			header.dataStart = parser.position();
+			return header;
+		}
+		// Edge lists and DIMACS files: consume lines up to the first edge.
+		while (parser.hasMore()){
+			long lineStart = parser.position();
+			if (parser.atLineEnd()){
+				parser.skipLine();
+				continue;
+			}
+			int first = parser.peek();
+			if (format == EDGE_LIST && (first == '#' || first == '%')){
+				parser.nextToken();
+				String word = parser.nextToken();
+				if ("directed".equalsIgnoreCase(word)){
+					header.directed = true;
+				}
+				else if ("undirected".equalsIgnoreCase(word)){
+					header.directed = false;
+				}
+			}
+			else if (format == DIMACS && first == 'p'){
+				parser.nextToken();
+				parser.nextToken();
+				int n = parser.nextInt();
+				header.names = new String[n];
+				for (int v = 0; v < n; v++){
+					header.names[v] = Integer.toString(v + 1);
+				}
+			}
+			else if (format == EDGE_LIST || first == 'a'){
+				header.dataStart = lineStart;
+				return header;
+			}
+			parser.skipLine();
+		}
+		header.dataStart = channel.size();
+		return header;
+	}
+
+	// Split [dataStart, size) into about one chunk per thread.  Every
+	// chunk starts at the beginning of a line, and for matrices at a
+	// line that starts a new row.
+	private long[] chunkBounds(FileChannel channel, long dataStart, int format) throws IOException{
+		long size = channel.size();
+		long bytes = size - dataStart;
+		int chunkCount = (int)Math.max(1, Math.min(pool.getParallelism() * 4L, bytes / MIN_CHUNK_BYTES));
+		long[] bounds = new long[chunkCount + 1];
+		bounds[0] = dataStart;
+		for (int c = 1; c < chunkCount; c++){
+			long guess = Math.max(bounds[c - 1], dataStart + bytes * c / chunkCount);
+			ByteParser parser = new ByteParser(channel, guess, size);
+			if (guess > dataStart){
+				parser.skipLine();
+			}
+			while (format == MATRIX && parser.hasMore()){
+				long lineStart = parser.position();
+				if (!parser.atLineEnd() && !parser.atNumber()){
+					parser = new ByteParser(channel, lineStart, size);
+					break;
+				}
+				parser.skipLine();
+			}
+			bounds[c] = parser.position();
+		}
+		bounds[chunkCount] = size;
+		return bounds;
+	}
+
+	private EdgeBuffer parseChunk(FileChannel channel, long start, long end, int format, Header header){
+		EdgeBuffer edges = new EdgeBuffer();
+		ByteParser parser = new ByteParser(channel, start, end);
+		if (format == MATRIX){
+			int row = -1;
+			int column = 0;
+			while (parser.hasMore()){
+				if (parser.atLineEnd()){
+					parser.skipLine();
+				}
+				else if (parser.atNumber()){
+					double weight = parser.nextDouble();
+					if (row < 0 || column >= header.names.length){
+						throw new NumberFormatException("File is not in the correct format");
+					}
+					if (weight > 0){
+						edges.add(row, column, weight);
+					}
+					column++;
+				}
+				else{
+					String label = parser.nextToken();
+					Integer id = header.nameIds.get(label);
+					if (id == null){
+						throw new NumberFormatException("Unknown row label " + label + ".");
+					}
+					row = id;
+					column = 0;
+				}
+			}
+			return edges;
+		}
+		while (parser.hasMore()){
+			if (parser.atLineEnd()){
+				parser.skipLine();
+				continue;
+			}
+			int first = parser.peek();
+			if (format == EDGE_LIST && first != '#' && first != '%'){
+				int source = parser.nextInt();
+				int target = parser.nextInt();
+				edges.add(source, target, parser.atLineEnd() ? 1 : parser.nextDouble());
+			}
+			else if (format == DIMACS && first == 'a'){
+				parser.nextToken();
+				int source = parser.nextInt() - 1;
+				int target = parser.nextInt() - 1;
+				edges.add(source, target, parser.nextDouble());
+			}
+			parser.skipLine();
+		}
+		return edges;
+	}
+
+	/*
+	 * Count-then-fill: count the edges of every vertex, turn the counts
+	 * into offsets, then drop each edge into the next free slot of its
+	 * source.  Both passes run over the chunks in parallel, so each slot
+	 * also records the edge's place in the file for merging.
+	 */
+	private CsrGraph merge(EdgeBuffer[] chunks, int n, Boolean isDirected, boolean mirror, String[] names)
+			throws IOException{
+		AtomicIntegerArray counts = new AtomicIntegerArray(n + 1);
+		run(() -> Arrays.stream(chunks).parallel().forEach(chunk -> {
+			for (int k = 0; k < chunk.size; k++){
+				counts.incrementAndGet(chunk.sources[k] + 1);
+				if (mirror && chunk.sources[k] != chunk.targets[k]){
+					counts.incrementAndGet(chunk.targets[k] + 1);
+				}
+			}
+		}));
+		int[] offsets = new int[n + 1];
+		long total = 0;
+		for (int v = 0; v < n; v++){
+			total += counts.get(v + 1);
+			if (total > Integer.MAX_VALUE){
+				throw new IllegalStateException("Too many edges for a CsrGraph.");
+			}
+			offsets[v + 1] = (int)total;
+		}
+		long[] firstEdge = new long[chunks.length];
+		for (int c = 1; c < chunks.length; c++){
+			firstEdge[c] = firstEdge[c - 1] + chunks[c - 1].size;
+		}
+		AtomicIntegerArray next = new AtomicIntegerArray(offsets);
+		int[] targets = new int[offsets[n]];
+		double[] weights = new double[offsets[n]];
+		long[] order = new long[offsets[n]];
+		run(() -> IntStream.range(0, chunks.length).parallel().forEach(c -> {
+			EdgeBuffer chunk = chunks[c];
+			for (int k = 0; k < chunk.size; k++){
+				int slot = next.getAndIncrement(chunk.sources[k]);
+				targets[slot] = chunk.targets[k];
+				weights[slot] = chunk.weights[k];
+				order[slot] = firstEdge[c] + k;
+				if (mirror && chunk.sources[k] != chunk.targets[k]){
+					slot = next.getAndIncrement(chunk.targets[k]);
+					targets[slot] = chunk.sources[k];
+					weights[slot] = chunk.weights[k];
+					order[slot] = firstEdge[c] + k;
+				}
+			}
+		}));
+
+		// Sort each vertex's edges and merge parallel ones, in place, then
+		// squeeze the gaps out.
+		int[] kept = new int[n];
+		run(() -> IntStream.range(0, n).parallel().forEach(v ->
+				kept[v] = sortAndMerge(targets, weights, order, offsets[v], offsets[v + 1])));
+		int[] compactOffsets = new int[n + 1];
+		for (int v = 0; v < n; v++){
+			compactOffsets[v + 1] = compactOffsets[v] + kept[v];
+		}
+		int[] compactTargets = targets;
+		double[] compactWeights = weights;
+		if (compactOffsets[n] < offsets[n]){
+			compactTargets = new int[compactOffsets[n]];
+			compactWeights = new double[compactOffsets[n]];
+			for (int v = 0; v < n; v++){
+				System.arraycopy(targets, offsets[v], compactTargets, compactOffsets[v], kept[v]);
+				System.arraycopy(weights, offsets[v], compactWeights, compactOffsets[v], kept[v]);
+			}
+		}
+		if (names == null || names.length < n){
+			String[] all = new String[n];
+			for (int v = 0; v < n; v++){
+				all[v] = names != null && v < names.length ? names[v] : Integer.toString(v);
+			}
+			names = all;
+		}
+		if (isDirected == null){
+			isDirected = !isSymmetric(compactOffsets, compactTargets, compactWeights);
+		}
+		return new CsrGraph(isDirected, names, compactOffsets, compactTargets, compactWeights);
+	}
+
+	// Sort targets[from..to) (moving weights and order along) and merge
+	// repeated targets, keeping the weight that came last in the file.
+	// Returns how many are left.
+	private static int sortAndMerge(int[] targets, double[] weights, long[] order, int from, int to){
+		for (int i = from + 1; i < to; i++){
+			if (targets[i] < targets[i - 1]){
+				sort(targets, weights, order, from, to);
+				break;
+			}
+		}
+		int size = 0;
+		for (int i = from; i < to; i++){
+			int last = from + size - 1;
+			if (size > 0 && targets[last] == targets[i]){
+				if (order[i] > order[last]){
+					weights[last] = weights[i];
+					order[last] = order[i];
+				}
+			}
+			else{
+				targets[from + size] = targets[i];
+				weights[from + size] = weights[i];
+				order[from + size] = order[i];
+				size++;
+			}
+		}
+		return size;
+	}
+
+	private static void sort(int[] targets, double[] weights, long[] order, int from, int to){
+		long[] keys = new long[to - from];
+		for (int i = from; i < to; i++){
+			keys[i - from] = ((long)targets[i] << 32) | (i - from);
+		}
+		Arrays.sort(keys);
+		double[] sortedWeights = new double[to - from];
+		long[] sortedOrder = new long[to - from];
+		for (int k = 0; k < keys.length; k++){
+			sortedWeights[k] = weights[from + (int)keys[k]];
+			sortedOrder[k] = order[from + (int)keys[k]];
+		}
+		for (int k = 0; k < keys.length; k++){
+			targets[from + k] = (int)(keys[k] >>> 32);
+			weights[from + k] = sortedWeights[k];
+			order[from + k] = sortedOrder[k];
+		}
+	}
+
+	// Every edge (u,v) has an edge (v,u) with the same weight.  Each
+	// vertex's targets are sorted, so the reverse edge is a binary search.
+	private boolean isSymmetric(int[] offsets, int[] targets, double[] weights) throws IOException{
+		boolean[] result = new boolean[1];
+		run(() -> result[0] = IntStream.range(0, offsets.length - 1).parallel().allMatch(u -> {
+			for (int e = offsets[u]; e < offsets[u + 1]; e++){
+				int v = targets[e];
+				int back = Arrays.binarySearch(targets, offsets[v], offsets[v + 1], u);
+				if (back < 0 || weights[back] != weights[e]){
+					return false;
+				}
+			}
+			return true;
+		}));
+		return result[0];
+	}
+
+	// The edges parsed from one chunk.
+	private static final class EdgeBuffer {
+		int[] sources = new int[1024];
+		int[] targets = new int[1024];
+		double[] weights = new double[1024];
+		int size;
+		int maxVertex = -1;
+
+		void add(int source, int target, double weight){
+			if (source < 0 || target < 0){
+				throw new IllegalVertexException("Negative vertex id " + Math.min(source, target) + ".");
+			}
+			if (size == sources.length){
+				sources = Arrays.copyOf(sources, size * 2);
+				targets = Arrays.copyOf(targets, size * 2);
+				weights = Arrays.copyOf(weights, size * 2);
+			}
+			sources[size] = source;
+			targets[size] = target;
+			weights[size] = weight;
+			size++;
+			maxVertex = Math.max(maxVertex, Math.max(source, target));
+		}
+	}
+
+	public static void main(String[] args) throws IOException{
+		if (args.length < 1){
+			System.out.println("Usage: java ParallelGraphLoader <graph file> [threads]");
+			return;
+		}
+		ForkJoinPool pool = args.length > 1 ? new ForkJoinPool(Integer.parseInt(args[1])) : ForkJoinPool.commonPool();
+		ParallelGraphLoader loader = new ParallelGraphLoader(pool);
+		CsrGraph graph = loader.load(args[0]);
+		System.out.printf("%,d vertices, %,d edges (%s) loaded with %d threads: %,.0f edges/sec%n",
+				graph.numVertices(), graph.numArcs(), graph.isDirected() ? "directed" : "undirected",
+				pool.getParallelism(), loader.getEdgesPerSecond());
+	}
+}
@@ -0,0 +1,50 @@
+/*
+ * The answer to a single source to target query: the length of the
+ * shortest path and the ids of the vertices along it, source first.
+ * If the target cannot be reached the distance is infinity and the
+ * path is empty.
+ */
+public final class PathResult {
+	private final int source;
+	private final int target;
+	private final double distance;
+	private final int[] path;
+	
+	public PathResult(int source, int target, double distance, int[] path){
+		this.source = source;
+		this.target = target;
+		this.distance = distance;
+		this.path = path;
+	}
+	
+	public int getSource(){
+		return source;
+	}
+	
+	public int getTarget(){
+		return target;
+	}
+	
+	public double getDistance(){
+		return distance;
+	}
+	
+	public boolean isReachable(){
+		return distance != Double.POSITIVE_INFINITY;
+	}
+	
+	/*
+	 * Number of vertices on the path, including both ends.
+	 */
+	public int length(){
+		return path.length;
+	}
+	
+	public int getVertex(int k){
+		return path[k];
+	}
+	
+	public int[] getPath(){
+		return path.clone();
+	}
+}
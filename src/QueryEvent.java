@@ -0,0 +1,51 @@
+/*
+ * A JFR event for one shortest path query, with the work the search
+ * did.  Only emitted while Instrumentation is on (and JFR is
+ * recording).
+ */
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("dijkstras.Query")
+@Label("Shortest Path Query")
+@Category("Dijkstras")
+@Description("One shortest path search")
+@StackTrace(false)
+class QueryEvent extends Event {
+	@Label("Query Type")
+	String queryType;
+
+	@Label("Source")
+	int source;
+
+	@Label("Target")
+	@Description("Target vertex, or -1 for a search to every vertex")
+	int target;
+
+	@Label("Distance")
+	double distance;
+
+	@Label("Latency")
+	@Timespan(Timespan.NANOSECONDS)
+	long latency;
+
+	@Label("Settled Vertices")
+	long settled;
+
+	@Label("Edge Relaxations")
+	long relaxations;
+
+	@Label("Heap Inserts")
+	long inserts;
+
+	@Label("Decrease Keys")
+	long decreaseKeys;
+
+	@Label("Heap High Water")
+	long heapHighWater;
+}
@@ -0,0 +1,191 @@
+/*
+ * Drives a QueryServer as hard as it can and reports what it got: a
+ * number of client threads, each on one keep-alive connection, send
+ * /distance requests back to back for a while, cycling through the
+ * queries of a query file (the format BatchQueryRunner reads).
+ *
+ * The client speaks just enough HTTP/1.1 to do this, straight over a
+ * socket, so it costs little next to the server it measures.  Latency
+ * is from writing a request to reading the end of its response, and
+ * only 200 responses count towards QPS; 503s, 504s and other statuses
+ * are counted apart.
+ *
+ * Usage: java QueryLoadGenerator <host:port> <query file> [threads] [seconds]
+ */
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+public class QueryLoadGenerator {
+	private final String host;
+	private final int port;
+	private final byte[][] requests;
+
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LongAdder ok = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder timedOut = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private double seconds;
+
+	/*
+	 * Each query is a source and target name.
+	 */
+	public QueryLoadGenerator(String host, int port, ArrayList<String[]> queries){
+		if (queries.isEmpty()){
+			throw new IllegalArgumentException("Need at least one query.");
+		}
+		this.host = host;
+		this.port = port;
+		requests = new byte[queries.size()][];
+		for (int q = 0; q < requests.length; q++){
+			String[] query = queries.get(q);
+			requests[q] = ("GET /distance?from=" + URLEncoder.encode(query[0], StandardCharsets.UTF_8)
+					+ "&to=" + URLEncoder.encode(query[1], StandardCharsets.UTF_8) + " HTTP/1.1\r\nHost: "
+					+ host + "\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	/*
+	 * Send requests from the given number of threads for the given
+	 * number of seconds.
+	 */
+	public void run(int threads, double runSeconds) throws InterruptedException{
+		long start = System.nanoTime();
+		long end = start + (long)(runSeconds * 1e9);
+		Thread[] clients = new Thread[threads];
+		for (int c = 0; c < threads; c++){
+			int first = (int)((long)c * requests.length / threads);
+			clients[c] = new Thread(() -> client(first, end), "load-" + c);
+			clients[c].start();
+		}
+		for (Thread client : clients){
+			client.join();
+		}
+		seconds = (System.nanoTime() - start) / 1e9;
+	}
+
+	// One connection, reopened if the server closes it.
+	private void client(int next, long end){
+		byte[] buffer = new byte[8192];
+		while (System.nanoTime() < end){
+			try (Socket socket = new Socket(host, port)){
+				socket.setTcpNoDelay(true);
+				OutputStream out = socket.getOutputStream();
+				InputStream in = new BufferedInputStream(socket.getInputStream());
+				while (System.nanoTime() < end){
+					long sent = System.nanoTime();
+					out.write(requests[next]);
+					out.flush();
+					next = (next + 1) % requests.length;
+					int status = readResponse(in, buffer);
+					if (status == 200){
+						latency.record(System.nanoTime() - sent);
+						ok.increment();
+					}
+					else if (status == 503){
+						rejected.increment();
+					}
+					else if (status == 504){
+						timedOut.increment();
+					}
+					else{
+						failed.increment();
+					}
+				}
+			}
+			catch (IOException e){
+				failed.increment();
+			}
+		}
+	}
+
+	// Read one response, which must have a Content-Length, and return
+	// its status.
+	private static int readResponse(InputStream in, byte[] buffer) throws IOException{
+		String statusLine = readLine(in);
+		if (statusLine == null){
+			throw new IOException("Connection closed.");
+		}
+		int status = Integer.parseInt(statusLine.substring(9, 12));
+		int length = 0;
+		String line;
+		while ((line = readLine(in)) != null && !line.isEmpty()){
+			if (line.regionMatches(true, 0, "Content-Length:", 0, 15)){
+				length = Integer.parseInt(line.substring(15).trim());
+			}
+		}
+		while (length > 0){
+			int read = in.read(buffer, 0, Math.min(length, buffer.length));
+			if (read < 0){
+				throw new IOException("Connection closed.");
+			}
+			length -= read;
+		}
+		return status;
+	}
+
+	private static String readLine(InputStream in) throws IOException{
+		StringBuilder line = new StringBuilder();
+		int c;
+		while ((c = in.read()) != '\n'){
+			if (c < 0){
+				return line.length() == 0 ? null : line.toString();
+			}
+			if (c != '\r'){
+				line.append((char)c);
+			}
+		}
+		return line.toString();
+	}
+
+	public double getQueriesPerSecond(){
+		return seconds > 0 ? ok.sum() / seconds : 0;
+	}
+
+	public String report(){
+		return String.format("%,d ok in %.1f s: %,.0f queries/sec; %,d rejected, %,d timed out, %,d failed%n"
+				+ "latency p50 %.1fus  p99 %.1fus  max %.1fus%n",
+				ok.sum(), seconds, getQueriesPerSecond(), rejected.sum(), timedOut.sum(), failed.sum(),
+				latency.getPercentile(50) / 1e3, latency.getPercentile(99) / 1e3, latency.getMax() / 1e3);
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException{
+		if (args.length < 2){
+			System.out.println("Usage: java QueryLoadGenerator <host:port> <query file> [threads] [seconds]");
+			return;
+		}
+		int colon = args[0].lastIndexOf(':');
+		String host = colon < 0 ? "localhost" : args[0].substring(0, colon);
+		int port = Integer.parseInt(colon < 0 ? args[0] : args[0].substring(colon + 1));
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : 2 * Runtime.getRuntime().availableProcessors();
+		double runSeconds = args.length > 3 ? Double.parseDouble(args[3]) : 10;
+
+		ArrayList<String[]> queries = new ArrayList<String[]>();
+		try (BufferedReader reader = new BufferedReader(new FileReader(args[1]))){
+			String line;
+			while ((line = reader.readLine()) != null){
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")){
+					continue;
+				}
+				String[] tokens = line.split("\\s+");
+				if (tokens.length < 2){
+					throw new IOException("Query needs a source and a target: " + line);
+				}
+				queries.add(new String[]{tokens[0], tokens[1]});
+			}
+		}
+		QueryLoadGenerator generator = new QueryLoadGenerator(host, port, queries);
+		generator.run(threads, runSeconds);
+		System.out.print(generator.report());
+	}
+}
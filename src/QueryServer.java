@@ -0,0 +1,473 @@
+/*
+ * A long-running HTTP server that loads a graph once and answers
+ * shortest path questions about it, so a query no longer pays for
+ * reading the graph file.  It is built on the JDK's
+ * com.sun.net.httpserver and has three endpoints:
+ *
+ *   GET /path?from=A&to=B      {"from":"A","to":"B","distance":7.0,"path":["A","C","B"]}
+ *   GET /distance?from=A&to=B  {"from":"A","to":"B","distance":7.0}
+ *   GET /metrics               request counts, QPS and latency percentiles
+ *
+ * An unreachable target has a null distance and an empty path.  An
+ * unknown vertex is a 404 and a missing parameter a 400.
+ *
+ * Each request gets its own virtual thread when the JDK has them
+ * (Java 21 and later, found by reflection so the code still builds
+ * for 17); otherwise requests run on a pool of one platform thread per
+ * permit.  Searches are CPU-bound, so admission control lets only as
+ * many run at once as there are permits, by default one per core.
+ * Requests beyond that wait, but if more than maxQueued are already
+ * waiting the request is turned away at once with a 503.  On virtual
+ * threads the waiting is for a permit; on the pool it is in the pool's
+ * bounded queue, and a request that finds the queue full is answered
+ * by the dispatcher thread itself.
+ *
+ * Every request has a deadline, counted from when the dispatcher
+ * handed it over, so time spent queued counts: a request that cannot
+ * start by then gets a 503, and a search that is still running then is
+ * abandoned with a 504.  Latencies are measured from the same moment.
+ *
+ * Searches reuse SearchStates from a shared pool rather than
+ * SearchState.local, which would allocate a new state for every
+ * virtual thread.
+ *
+ * Usage: java QueryServer <graph file|snapshot> [port] [concurrency] [timeout ms]
+ */
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+public class QueryServer {
+	// Searches check the clock once per this many settled vertices.
+	private static final int DEADLINE_CHECK = 1024;
+	// The request the current thread is handling.
+	private static final ThreadLocal<Arrival> CURRENT = new ThreadLocal<Arrival>();
+
+	private final CompactGraph graph;
+	private final ToIntFunction<String> ids;
+	private final int concurrency;
+	private final Semaphore permits;
+	private final AtomicInteger queued = new AtomicInteger();
+	private final ConcurrentLinkedQueue<SearchState> states = new ConcurrentLinkedQueue<SearchState>();
+	private int maxQueued = 1024;
+	private long timeoutNanos = TimeUnit.SECONDS.toNanos(1);
+
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LongAdder answered = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder timedOut = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final long startNanos = System.nanoTime();
+	// Answered count and time at the last /metrics call, for the QPS
+	// since then.
+	private long lastScrapeCount;
+	private long lastScrapeNanos = startNanos;
+
+	private HttpServer server;
+	private ExecutorService executor;
+	private boolean virtualThreads;
+
+	public QueryServer(CsrGraph graph, int concurrency){
+		this(graph, graph::indexOf, concurrency);
+	}
+
+	public QueryServer(MappedCsrGraph graph, int concurrency){
+		this(graph, graph::indexOf, concurrency);
+	}
+
+	private QueryServer(CompactGraph graph, ToIntFunction<String> ids, int concurrency){
+		if (concurrency < 1){
+			throw new IllegalArgumentException("Need at least one permit.");
+		}
+		this.graph = graph;
+		this.ids = ids;
+		this.concurrency = concurrency;
+		permits = new Semaphore(concurrency);
+	}
+
+	/*
+	 * How long a request may take, from arrival to answer, before it is
+	 * given up on.
+	 */
+	public void setTimeoutMillis(long millis){
+		timeoutNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+
+	/*
+	 * How many requests may wait to run before new ones are rejected
+	 * straight away.  Set it before start.
+	 */
+	public void setMaxQueued(int maxQueued){
+		this.maxQueued = maxQueued;
+	}
+
+	/*
+	 * Start serving on the given port; 0 picks a free one.  Returns the
+	 * port.
+	 */
+	public synchronized int start(int port) throws IOException{
+		if (server != null){
+			throw new IllegalStateException("Already started.");
+		}
+		executor = newVirtualThreadExecutor();
+		virtualThreads = executor != null;
+		if (executor == null){
+			BlockingQueue<Runnable> queue = maxQueued > 0 ? new ArrayBlockingQueue<Runnable>(maxQueued)
+					: new SynchronousQueue<Runnable>();
+			// A request that finds the queue full runs on the dispatcher
+			// thread, marked so that it only sends a 503.
+			executor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS, queue,
+					(task, pool) -> {
+						if (!pool.isShutdown()){
+							((Arrival)task).isOverflow = true;
+							task.run();
+						}
+					});
+		}
+		// The JDK server leaves Nagle's algorithm on unless told otherwise,
+		// which holds every small response back for tens of milliseconds.
+		// This only takes effect if no server has been made yet.
+		if (System.getProperty("sun.net.httpserver.nodelay") == null){
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+		server = HttpServer.create(new InetSocketAddress(port), 1024);
+		server.createContext("/path", exchange -> handleQuery(exchange, true));
+		server.createContext("/distance", exchange -> handleQuery(exchange, false));
+		server.createContext("/metrics", this::handleMetrics);
+		ExecutorService requests = executor;
+		server.setExecutor(task -> requests.execute(new Arrival(task, System.nanoTime())));
+		server.start();
+		return server.getAddress().getPort();
+	}
+
+	public synchronized void stop(){
+		if (server != null){
+			server.stop(0);
+			executor.shutdownNow();
+			server = null;
+		}
+	}
+
+	/*
+	 * True if requests run on virtual threads.
+	 */
+	public boolean usesVirtualThreads(){
+		return virtualThreads;
+	}
+
+	// An exchange stamped with when the dispatcher handed it over.
+	private static final class Arrival implements Runnable {
+		final Runnable exchange;
+		final long nanos;
+		// Set when the pool's queue was full.
+		boolean isOverflow;
+
+		Arrival(Runnable exchange, long nanos){
+			this.exchange = exchange;
+			this.nanos = nanos;
+		}
+
+		public void run(){
+			CURRENT.set(this);
+			try {
+				exchange.run();
+			}
+			finally {
+				CURRENT.remove();
+			}
+		}
+	}
+
+	// Executors.newVirtualThreadPerTaskExecutor, or null before Java 21.
+	private static ExecutorService newVirtualThreadExecutor(){
+		try {
+			return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (ReflectiveOperationException e){
+			return null;
+		}
+	}
+
+	private void handleQuery(HttpExchange exchange, boolean withPath) throws IOException{
+		Arrival arrival = CURRENT.get();
+		long arrived = arrival != null ? arrival.nanos : System.nanoTime();
+		long deadline = arrived + timeoutNanos;
+		inFlight.incrementAndGet();
+		try {
+			if (arrival != null && arrival.isOverflow){
+				rejected.increment();
+				respond(exchange, 503, error("Too many requests."));
+				return;
+			}
+			HashMap<String, String> parameters = parameters(exchange.getRequestURI().getRawQuery());
+			String from = parameters.get("from");
+			String to = parameters.get("to");
+			if (from == null || to == null){
+				failed.increment();
+				respond(exchange, 400, error("Need from and to parameters."));
+				return;
+			}
+			int source = ids.applyAsInt(from);
+			int target = ids.applyAsInt(to);
+			if (source < 0 || target < 0){
+				failed.increment();
+				respond(exchange, 404, error("No vertex named " + (source < 0 ? from : to) + "."));
+				return;
+			}
+
+			if (queued.incrementAndGet() > maxQueued){
+				queued.decrementAndGet();
+				rejected.increment();
+				respond(exchange, 503, error("Too many requests."));
+				return;
+			}
+			boolean admitted;
+			try {
+				// Past the deadline already, having waited in the pool's queue.
+				long wait = deadline - System.nanoTime();
+				admitted = wait > 0 && permits.tryAcquire(wait, TimeUnit.NANOSECONDS);
+			}
+			catch (InterruptedException e){
+				Thread.currentThread().interrupt();
+				admitted = false;
+			}
+			finally {
+				queued.decrementAndGet();
+			}
+			if (!admitted){
+				rejected.increment();
+				respond(exchange, 503, error("Timed out waiting to run."));
+				return;
+			}
+
+			PathResult result;
+			SearchState state = states.poll();
+			if (state == null){
+				state = new SearchState();
+			}
+			try {
+				result = search(state, source, target, deadline);
+			}
+			finally {
+				states.offer(state);
+				permits.release();
+			}
+			if (result == null){
+				timedOut.increment();
+				respond(exchange, 504, error("Search timed out."));
+				return;
+			}
+			respond(exchange, 200, answer(result, withPath));
+			answered.increment();
+			latency.record(System.nanoTime() - arrived);
+		}
+		finally {
+			inFlight.decrementAndGet();
+			exchange.close();
+		}
+	}
+
+	// Dijkstra from source until target is settled.  Returns null if the
+	// deadline passes first.
+	private PathResult search(SearchState state, int source, int target, long deadline){
+		long start = Instrumentation.ENABLED ? System.nanoTime() : 0;
+		state.reset(graph.numVertices());
+		state.relax(source, 0, -1);
+		IndexedMinHeap pq = state.heap();
+		int settled = 0;
+		while (!pq.isEmpty()){
+			int u = pq.pollMin();
+			if (u == target){
+				break;
+			}
+			if (++settled % DEADLINE_CHECK == 0 && System.nanoTime() - deadline > 0){
+				return null;
+			}
+			double du = state.getDistance(u);
+			for (int e = graph.edgeBegin(u), end = graph.edgeEnd(u); e < end; e++){
+				state.relax(graph.target(e), du + graph.weight(e), u);
+			}
+		}
+		PathResult result = state.toPath(source, target);
+		if (Instrumentation.ENABLED){
+			Instrumentation.record("server", start, source, target, result.getDistance(), state);
+		}
+		return result;
+	}
+
+	private String answer(PathResult result, boolean withPath){
+		StringBuilder json = new StringBuilder("{\"from\":");
+		quote(json, graph.getName(result.getSource())).append(",\"to\":");
+		quote(json, graph.getName(result.getTarget())).append(",\"distance\":");
+		json.append(result.isReachable() ? Double.toString(result.getDistance()) : "null");
+		if (withPath){
+			json.append(",\"path\":[");
+			for (int k = 0; k < result.length(); k++){
+				if (k > 0){
+					json.append(',');
+				}
+				quote(json, graph.getName(result.getVertex(k)));
+			}
+			json.append(']');
+		}
+		return json.append('}').toString();
+	}
+
+	private static String error(String message){
+		return quote(new StringBuilder("{\"error\":"), message).append('}').toString();
+	}
+
+	private static StringBuilder quote(StringBuilder json, String text){
+		json.append('"');
+		for (int k = 0; k < text.length(); k++){
+			char c = text.charAt(k);
+			if (c == '"' || c == '\\'){
+				json.append('\\').append(c);
+			}
+			else if (c < 0x20){
+				json.append(String.format("\\u%04x", (int)c));
+			}
+			else{
+				json.append(c);
+			}
+		}
+		return json.append('"');
+	}
+
+	private static HashMap<String, String> parameters(String rawQuery){
+		HashMap<String, String> parameters = new HashMap<String, String>();
+		if (rawQuery == null){
+			return parameters;
+		}
+		for (String pair : rawQuery.split("&")){
+			int equals = pair.indexOf('=');
+			if (equals > 0){
+				parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+						URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+			}
+		}
+		return parameters;
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException{
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		if (status == 503){
+			exchange.getResponseHeaders().set("Retry-After", "1");
+		}
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()){
+			out.write(bytes);
+		}
+	}
+
+	private void handleMetrics(HttpExchange exchange) throws IOException{
+		try {
+			byte[] bytes = metrics().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+			exchange.sendResponseHeaders(200, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()){
+				out.write(bytes);
+			}
+		}
+		finally {
+			exchange.close();
+		}
+	}
+
+	/*
+	 * The server's counters, one "name value" line each.  qps is the
+	 * rate since the previous call; qps_average since the server
+	 * started.  Latencies are in microseconds, from arrival to answer,
+	 * over answered requests.
+	 */
+	public String metrics(){
+		long now = System.nanoTime();
+		long count = answered.sum();
+		double qps;
+		synchronized (this){
+			qps = now > lastScrapeNanos ? (count - lastScrapeCount) / ((now - lastScrapeNanos) / 1e9) : 0;
+			lastScrapeCount = count;
+			lastScrapeNanos = now;
+		}
+		StringBuilder text = new StringBuilder();
+		text.append("answered_total ").append(count).append('\n');
+		text.append("rejected_total ").append(rejected.sum()).append('\n');
+		text.append("timed_out_total ").append(timedOut.sum()).append('\n');
+		text.append("failed_total ").append(failed.sum()).append('\n');
+		text.append("in_flight ").append(inFlight.get()).append('\n');
+		int waiting = queued.get();
+		if (executor instanceof ThreadPoolExecutor){
+			waiting += ((ThreadPoolExecutor)executor).getQueue().size();
+		}
+		text.append("queued ").append(waiting).append('\n');
+		text.append(String.format("qps %.1f%n", qps));
+		text.append(String.format("qps_average %.1f%n", count / ((now - startNanos) / 1e9)));
+		text.append(String.format("latency_p50_us %.1f%n", latency.getPercentile(50) / 1e3));
+		text.append(String.format("latency_p99_us %.1f%n", latency.getPercentile(99) / 1e3));
+		text.append(String.format("latency_max_us %.1f%n", latency.getMax() / 1e3));
+		text.append("virtual_threads ").append(virtualThreads).append('\n');
+		return text.toString();
+	}
+
+	// A GraphSnapshot file starts with its magic number, little-endian.
+	private static boolean isSnapshot(String file) throws IOException{
+		try (DataInputStream in = new DataInputStream(new FileInputStream(file))){
+			return Integer.reverseBytes(in.readInt()) == GraphSnapshot.MAGIC;
+		}
+		catch (EOFException e){
+			return false;
+		}
+	}
+
+	public static void main(String[] args) throws IOException{
+		if (args.length < 1){
+			System.out.println("Usage: java QueryServer <graph file|snapshot> [port] [concurrency] [timeout ms]");
+			return;
+		}
+		int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+		int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		long start = System.nanoTime();
+		QueryServer server;
+		CompactGraph graph;
+		if (isSnapshot(args[0])){
+			MappedCsrGraph mapped = GraphSnapshot.open(Paths.get(args[0]));
+			graph = mapped;
+			server = new QueryServer(mapped, concurrency);
+		}
+		else{
+			CsrGraph csr = new GraphMaker().makeCsrGraphFromFile(args[0]);
+			graph = csr;
+			server = new QueryServer(csr, concurrency);
+		}
+		if (args.length > 3){
+			server.setTimeoutMillis(Long.parseLong(args[3]));
+		}
+		port = server.start(port);
+		System.out.printf("%,d vertices, %,d edges loaded in %.1f ms; serving on port %d with %d permits on %s threads%n",
+				graph.numVertices(), graph.numArcs(), (System.nanoTime() - start) / 1e6, port, concurrency,
+				server.usesVirtualThreads() ? "virtual" : "platform");
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Measures how query throughput scales with the number of threads 
+ * when every thread shares one read-only graph.  Each thread runs
+ * random source to target queries through the same ShortestPathQuery
+ * for a fixed time, and the total rate is printed next to the 
+ * single-thread rate.
+ * 
+ * Usage: java QueryThroughputBenchmark <graph file> [seconds] [max threads]
+ */
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class QueryThroughputBenchmark {
+	
+	public static void main(String[] args) throws InterruptedException {
+		if (args.length < 1) {
+			System.out.println("Usage: java QueryThroughputBenchmark <graph file> [seconds] [max threads]");
+			return;
+		}
+		double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+		int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) 
+				: Runtime.getRuntime().availableProcessors();
+		
+		AdjListGraph graph = new GraphMaker().makeGraphFromFile(args[0]);
+		ShortestPathQuery query = new ShortestPathQuery(graph);
+		System.out.println(graph.numVertices() + " vertices, " + graph.numEdges() + " edges");
+		
+		// Warm up so the first measurement is not paying for the JIT.
+		run(query, 1, seconds);
+		
+		double baseline = 0;
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			double rate = run(query, threads, seconds);
+			if (threads == 1) {
+				baseline = rate;
+			}
+			System.out.printf("%3d threads: %,14.0f queries/sec  speedup %.2fx%n", 
+					threads, rate, rate / baseline);
+		}
+	}
+	
+	// Run random queries on the given number of threads and return the
+	// combined queries per second.
+	private static double run(ShortestPathQuery query, int threads, double seconds) 
+			throws InterruptedException {
+		int n = query.getGraph().numVertices();
+		AtomicLong total = new AtomicLong();
+		CountDownLatch start = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(threads);
+		long deadline = System.nanoTime() + (long)(seconds * 1e9);
+		
+		for (int t = 0; t < threads; t++) {
+			long seed = t;
+			Thread worker = new Thread(() -> {
+				Random random = new Random(seed);
+				long count = 0;
+				try {
+					start.await();
+					while (System.nanoTime() < deadline) {
+						// Check the clock once per batch to keep it off the hot path.
+						for (int k = 0; k < 64; k++) {
+							query.query(random.nextInt(n), random.nextInt(n));
+						}
+						count += 64;
+					}
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				total.addAndGet(count);
+				done.countDown();
+			});
+			worker.start();
+		}
+		long began = System.nanoTime();
+		start.countDown();
+		done.await();
+		return total.get() / ((System.nanoTime() - began) / 1e9);
+	}
+}
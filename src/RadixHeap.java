@@ -0,0 +1,133 @@
+/*
+ * A radix heap: a MonotoneQueue for any non-negative long keys.  Bucket
+ * b holds the keys that first differ from the last key polled at bit
+ * b-1 (bucket 0 holds keys equal to it), so there are 65 buckets.
+ * When bucket 0 runs dry, the lowest non-empty bucket is emptied into
+ * the buckets below it around its smallest key.  A key can only move
+ * down, and at most 64 times, so a search costs O(m + n log C) for
+ * keys up to C, with no comparisons between keys in the common case.
+ *
+ * Decrease-key adds a new entry instead of moving the old one.  The
+ * latest key of each id is remembered, and entries that no longer
+ * match it are dropped when they are met.
+ */
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public final class RadixHeap implements MonotoneQueue {
+	private static final int BUCKETS = 65;
+
+	private final int[][] ids = new int[BUCKETS][];
+	private final long[][] entryKeys = new long[BUCKETS][];
+	private final int[] counts = new int[BUCKETS];
+	// The current key of each id in the queue; -1 for ids that are not.
+	private final long[] keys;
+	private long last;
+	private int size;
+
+	public RadixHeap(int capacity){
+		keys = new long[capacity];
+		Arrays.fill(keys, -1);
+		for (int b = 0; b < BUCKETS; b++){
+			ids[b] = new int[16];
+			entryKeys[b] = new long[16];
+		}
+	}
+
+	private int bucket(long key){
+		return key == last ? 0 : 64 - Long.numberOfLeadingZeros(key ^ last);
+	}
+
+	private void add(int bucket, int id, long key){
+		int count = counts[bucket];
+		if (count == ids[bucket].length){
+			ids[bucket] = Arrays.copyOf(ids[bucket], count * 2);
+			entryKeys[bucket] = Arrays.copyOf(entryKeys[bucket], count * 2);
+		}
+		ids[bucket][count] = id;
+		entryKeys[bucket][count] = key;
+		counts[bucket] = count + 1;
+	}
+
+	public void insertOrDecrease(int id, long key){
+		long old = keys[id];
+		if (old >= 0 && key >= old){
+			return;
+		}
+		if (key < last){
+			throw new IllegalArgumentException("Key " + key + " is below the last key " + last + ".");
+		}
+		if (old < 0){
+			size++;
+		}
+		keys[id] = key;
+		add(bucket(key), id, key);
+	}
+
+	public int pollMin(){
+		if (size == 0){
+			throw new NoSuchElementException("Queue is empty.");
+		}
+		while (true){
+			if (counts[0] == 0){
+				refill();
+				continue;
+			}
+			int id = ids[0][--counts[0]];
+			// Skip entries left behind by a decrease.
+			if (keys[id] == entryKeys[0][counts[0]]){
+				keys[id] = -1;
+				size--;
+				return id;
+			}
+		}
+	}
+
+	// Move the lowest non-empty bucket's entries down around its
+	// smallest live key, which becomes the new last key.
+	private void refill(){
+		int b = 1;
+		while (counts[b] == 0){
+			b++;
+		}
+		int[] bucketIds = ids[b];
+		long[] bucketKeys = entryKeys[b];
+		int count = counts[b];
+		long min = Long.MAX_VALUE;
+		for (int k = 0; k < count; k++){
+			if (keys[bucketIds[k]] == bucketKeys[k]){
+				min = Math.min(min, bucketKeys[k]);
+			}
+		}
+		counts[b] = 0;
+		if (min == Long.MAX_VALUE){
+			// Only stale entries; look further up.
+			return;
+		}
+		last = min;
+		for (int k = 0; k < count; k++){
+			if (keys[bucketIds[k]] == bucketKeys[k]){
+				add(bucket(bucketKeys[k]), bucketIds[k], bucketKeys[k]);
+			}
+		}
+	}
+
+	public long lastKey(){
+		return last;
+	}
+
+	public boolean isEmpty(){
+		return size == 0;
+	}
+
+	public void clear(){
+		for (int b = 0; b < BUCKETS; b++){
+			for (int k = 0; k < counts[b]; k++){
+				keys[ids[b][k]] = -1;
+			}
+			counts[b] = 0;
+		}
+		last = 0;
+		size = 0;
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * The mutable state of one shortest path search: a distance and a
+ * parent for every vertex, plus the heap.  Keeping this out of the 
+ * graph lets many threads search one shared, read-only graph, each 
+ * with its own SearchState.
+ * 
+ * Resetting does not clear the arrays.  Each entry is stamped with the
+ * generation that wrote it, and bumping the generation makes every 
+ * older entry read as unreached, so a reset costs O(1) no matter how
+ * big the graph is.
+ */
+import java.util.Arrays;
+
+public final class SearchState {
+	// One reusable state per thread for the default heap arity.
+	private static final ThreadLocal<SearchState> LOCAL = ThreadLocal.withInitial(SearchState::new);
+	
+	private final int heapArity;
+	private double[] distance = new double[0];
+	private int[] parent = new int[0];
+	private int[] stamp = new int[0];
+	private int generation;
+	private IndexedMinHeap heap;
+	// Calls to relax since the last reset, counted only when
+	// Instrumentation is on.
+	private long relaxations;
+	
+	public SearchState(){
+		this(2);
+	}
+	
+	public SearchState(int heapArity){
+		this.heapArity = heapArity;
+		heap = new IndexedMinHeap(0, heapArity);
+	}
+	
+	/*
+	 * The calling thread's SearchState.  It is reused by the next search
+	 * on the same thread, so copy out anything that must be kept.
+	 */
+	public static SearchState local(){
+		return LOCAL.get();
+	}
+	
+	/*
+	 * Start a new search over n vertices.  Every vertex becomes 
+	 * unreached and the heap is emptied.
+	 */
+	public void reset(int n){
+		if (stamp.length < n){
+			int capacity = Math.max(n, stamp.length + (stamp.length >> 1));
+			distance = new double[capacity];
+			parent = new int[capacity];
+			stamp = new int[capacity];
+			heap = new IndexedMinHeap(capacity, heapArity);
+			generation = 0;
+		}
+		else{
+			heap.clear();
+		}
+		if (Instrumentation.ENABLED){
+			relaxations = 0;
+			heap.resetCounts();
+		}
+		generation++;
+		if (generation == Integer.MAX_VALUE){
+			// Stamps are about to repeat, so clear them for real.
+			Arrays.fill(stamp, 0);
+			generation = 1;
+		}
+	}
+	
+	public IndexedMinHeap heap(){
+		return heap;
+	}
+	
+	/*
+	 * Number of relax calls since the last reset, when Instrumentation
+	 * is on.
+	 */
+	public long getRelaxations(){
+		return relaxations;
+	}
+	
+	public boolean isReached(int v){
+		return stamp[v] == generation;
+	}
+	
+	/*
+	 * Distance to v in the current search, or infinity if v has not 
+	 * been reached.
+	 */
+	public double getDistance(int v){
+		return stamp[v] == generation ? distance[v] : Double.POSITIVE_INFINITY;
+	}
+	
+	/*
+	 * The vertex before v on its path, or -1 for the source and for 
+	 * unreached vertices.
+	 */
+	public int getParent(int v){
+		return stamp[v] == generation ? parent[v] : -1;
+	}
+	
+	public void set(int v, double dist, int parentId){
+		distance[v] = dist;
+		parent[v] = parentId;
+		stamp[v] = generation;
+	}
+	
+	/*
+	 * Record dist and parentId for v if dist beats v's current distance,
+	 * and put v in the heap with that key.  Returns true if v improved.
+	 */
+	public boolean relax(int v, double dist, int parentId){
+		if (Instrumentation.ENABLED){
+			relaxations++;
+		}
+		if (stamp[v] == generation && dist >= distance[v]){
+			return false;
+		}
+		distance[v] = dist;
+		parent[v] = parentId;
+		stamp[v] = generation;
+		heap.insertOrDecrease(v, dist);
+		return true;
+	}
+	
+	/*
+	 * Like relax, but v goes into the heap with heapKey instead of dist.
+	 * Goal-directed searches use this to order vertices by distance plus
+	 * a lower bound on the distance still to go.
+	 */
+	public boolean relax(int v, double dist, int parentId, double heapKey){
+		if (Instrumentation.ENABLED){
+			relaxations++;
+		}
+		if (stamp[v] == generation && dist >= distance[v]){
+			return false;
+		}
+		distance[v] = dist;
+		parent[v] = parentId;
+		stamp[v] = generation;
+		heap.insertOrDecrease(v, heapKey);
+		return true;
+	}
+	
+	/*
+	 * Build the path from source to target out of the parent links.
+	 */
+	public PathResult toPath(int source, int target){
+		double dist = getDistance(target);
+		if (dist == Double.POSITIVE_INFINITY){
+			return new PathResult(source, target, dist, new int[0]);
+		}
+		int length = 1;
+		for (int v = target; v != source; v = parent[v]){
+			length++;
+		}
+		int[] path = new int[length];
+		for (int v = target, k = length - 1; k >= 0; v = parent[v], k--){
+			path[k] = v;
+		}
+		return new PathResult(source, target, dist, path);
+	}
+}
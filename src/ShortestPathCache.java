@@ -0,0 +1,187 @@
+/*
+ * A bounded cache in front of a ShortestPathQuery, for traffic where
+ * a few source/target pairs are asked for over and over.  Single pair
+ * answers are kept by (source, target), and whole shortest path trees
+ * by source.  A pair query is answered from a cached tree for its
+ * source when there is one.  Each kind of entry has its own limit, and
+ * the least recently used entry is evicted when a limit is reached.
+ *
+ * Every answer belongs to a version of the graph (see
+ * AdjListGraph.getVersion).  Once the graph changes, everything cached
+ * is dropped before the next lookup, so a stale answer is never given.
+ *
+ * Lookups are safe from many threads at once.  Searches run outside
+ * the lock, so two threads that miss on the same key at the same time
+ * will both search; the cache keeps one of the answers.
+ */
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ShortestPathCache {
+	private final ShortestPathQuery query;
+	private final AdjListGraph graph;
+	private final Lru<Long, PathResult> pairs;
+	private final Lru<Integer, ShortestPathTree> trees;
+	// The graph version the cached entries belong to.  Guarded by this.
+	private long version;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder invalidations = new LongAdder();
+
+	public ShortestPathCache(ShortestPathQuery query, int maxPairs, int maxTrees){
+		if (maxPairs < 0 || maxTrees < 0){
+			throw new IllegalArgumentException("Cache sizes must not be negative.");
+		}
+		this.query = query;
+		graph = query.getGraph();
+		pairs = new Lru<Long, PathResult>(maxPairs);
+		trees = new Lru<Integer, ShortestPathTree>(maxTrees);
+		version = graph.getVersion();
+	}
+
+	public ShortestPathQuery getQuery(){
+		return query;
+	}
+
+	public PathResult query(String source, String target) throws IllegalVertexException{
+		int s = graph.indexOf(source);
+		int t = graph.indexOf(target);
+		if (s < 0 || t < 0){
+			throw new IllegalVertexException("No vertex named " + (s < 0 ? source : target) + ".");
+		}
+		return query(s, t);
+	}
+
+	/*
+	 * The shortest path from source to target, from the cache if
+	 * possible.
+	 */
+	public PathResult query(int source, int target) throws IllegalVertexException{
+		int n = graph.numVertices();
+		if (source < 0 || source >= n || target < 0 || target >= n){
+			throw new IllegalVertexException("query failed.");
+		}
+		long seen = graph.getVersion();
+		Long key = ((long)source << 32) | (target & 0xffffffffL);
+		PathResult result;
+		ShortestPathTree tree;
+		synchronized (this){
+			checkVersion(seen);
+			result = pairs.get(key);
+			tree = result == null ? trees.get(source) : null;
+		}
+		if (result != null){
+			hits.increment();
+			return result;
+		}
+		if (tree != null){
+			hits.increment();
+			return tree.toPath(target);
+		}
+		misses.increment();
+		result = query.query(source, target);
+		synchronized (this){
+			if (pairs.capacity > 0 && version == seen && graph.getVersion() == seen){
+				pairs.put(key, result);
+			}
+		}
+		return result;
+	}
+
+	/*
+	 * The shortest paths from source to every vertex, from the cache if
+	 * possible.
+	 */
+	public ShortestPathTree tree(int source) throws IllegalVertexException{
+		if (source < 0 || source >= graph.numVertices()){
+			throw new IllegalVertexException("tree failed.");
+		}
+		long seen = graph.getVersion();
+		ShortestPathTree tree;
+		synchronized (this){
+			checkVersion(seen);
+			tree = trees.get(source);
+		}
+		if (tree != null){
+			hits.increment();
+			return tree;
+		}
+		misses.increment();
+		tree = query.tree(source);
+		synchronized (this){
+			if (trees.capacity > 0 && version == seen && graph.getVersion() == seen){
+				trees.put(source, tree);
+			}
+		}
+		return tree;
+	}
+
+	// Drop everything if the graph has changed since it was cached.
+	// Must hold the lock.
+	private void checkVersion(long current){
+		if (current != version){
+			pairs.clear();
+			trees.clear();
+			version = current;
+			invalidations.increment();
+		}
+	}
+
+	public synchronized void clear(){
+		pairs.clear();
+		trees.clear();
+	}
+
+	public long getHits(){
+		return hits.sum();
+	}
+
+	public long getMisses(){
+		return misses.sum();
+	}
+
+	public synchronized long getEvictions(){
+		return pairs.evictions + trees.evictions;
+	}
+
+	/*
+	 * Number of times the cache was emptied because the graph changed.
+	 */
+	public long getInvalidations(){
+		return invalidations.sum();
+	}
+
+	public synchronized int size(){
+		return pairs.size() + trees.size();
+	}
+
+	public String toString(){
+		long h = getHits();
+		long m = getMisses();
+		return String.format("hits=%d misses=%d hitRate=%.1f%% evictions=%d invalidations=%d size=%d",
+				h, m, h + m == 0 ? 0.0 : 100.0 * h / (h + m), getEvictions(), getInvalidations(), size());
+	}
+
+	// A LinkedHashMap in access order that evicts its eldest entry once
+	// it holds more than capacity entries.
+	private static final class Lru<K, V> extends LinkedHashMap<K, V> {
+		private static final long serialVersionUID = 1L;
+		final int capacity;
+		long evictions;
+
+		Lru(int capacity){
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		protected boolean removeEldestEntry(Map.Entry<K, V> eldest){
+			if (size() > capacity){
+				evictions++;
+				return true;
+			}
+			return false;
+		}
+	}
+}
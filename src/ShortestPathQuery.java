@@ -0,0 +1,135 @@
+/*
+ * Answers single source to target questions on an AdjListGraph
+ * without touching stdin, so it can be embedded in other programs.
+ * The search stops as soon as the target is settled, and the path is
+ * rebuilt from a parent array in time proportional to its length.
+ * 
+ * The graph is only read, and each thread searches with its own 
+ * SearchState, so one ShortestPathQuery can serve queries from many
+ * threads at once as long as nobody changes the graph meanwhile.
+ */
+import java.util.ArrayList;
+import java.util.Map;
+
+public class ShortestPathQuery {
+	private final AdjListGraph graph;
+	private final ThreadLocal<SearchState> states;
+	private final boolean lazyInsertion;
+	
+	public ShortestPathQuery(AdjListGraph graph){
+		this(graph, 2);
+	}
+	
+	public ShortestPathQuery(AdjListGraph graph, int heapArity){
+		this(graph, heapArity, true);
+	}
+	
+	/*
+	 * With lazyInsertion a vertex only enters the heap once an edge
+	 * reaches it; without, every vertex starts in the heap at infinity,
+	 * as in Dijkstras.shortestPath.
+	 */
+	public ShortestPathQuery(AdjListGraph graph, int heapArity, boolean lazyInsertion){
+		this.graph = graph;
+		this.lazyInsertion = lazyInsertion;
+		states = ThreadLocal.withInitial(() -> new SearchState(heapArity));
+	}
+	
+	public AdjListGraph getGraph(){
+		return graph;
+	}
+	
+	/*
+	 * Find the shortest path between the vertices with the given names.
+	 */
+	public PathResult query(String source, String target) throws IllegalVertexException{
+		int s = graph.indexOf(source);
+		int t = graph.indexOf(target);
+		if (s < 0 || t < 0){
+			throw new IllegalVertexException("No vertex named " + (s < 0 ? source : target) + ".");
+		}
+		return query(s, t);
+	}
+	
+	/*
+	 * Find the shortest path between the vertices with the given ids.
+	 */
+	public PathResult query(int source, int target) throws IllegalVertexException{
+		ArrayList<Vertex> vertices = graph.getVertices();
+		int n = vertices.size();
+		if (source < 0 || source >= n || target < 0 || target >= n){
+			throw new IllegalVertexException("query failed.");
+		}
+		long start = Instrumentation.ENABLED ? System.nanoTime() : 0;
+		SearchState state = start(source, n);
+		IndexedMinHeap pq = state.heap();
+		
+		while (!pq.isEmpty()){
+			int u = pq.pollMin();
+			if (u == target){
+				break;
+			}
+			double du = state.getDistance(u);
+			for (Map.Entry<Vertex, Double> edge : vertices.get(u).getEdges()){
+				state.relax(graph.indexOf(edge.getKey()), du + edge.getValue(), u);
+			}
+		}
+		PathResult result = state.toPath(source, target);
+		if (Instrumentation.ENABLED){
+			Instrumentation.record("adjlist", start, source, target, result.getDistance(), state);
+		}
+		return result;
+	}
+	
+	/*
+	 * Find the shortest paths from source to every vertex.
+	 */
+	public ShortestPathTree tree(int source) throws IllegalVertexException{
+		ArrayList<Vertex> vertices = graph.getVertices();
+		int n = vertices.size();
+		if (source < 0 || source >= n){
+			throw new IllegalVertexException("tree failed.");
+		}
+		long start = Instrumentation.ENABLED ? System.nanoTime() : 0;
+		SearchState state = start(source, n);
+		IndexedMinHeap pq = state.heap();
+
+		while (!pq.isEmpty()){
+			int u = pq.pollMin();
+			double du = state.getDistance(u);
+			for (Map.Entry<Vertex, Double> edge : vertices.get(u).getEdges()){
+				state.relax(graph.indexOf(edge.getKey()), du + edge.getValue(), u);
+			}
+		}
+		if (Instrumentation.ENABLED){
+			Instrumentation.record("adjlist-tree", start, source, -1, 0, state);
+		}
+		return ShortestPathTree.from(state, source, n);
+	}
+
+	private SearchState start(int source, int n){
+		SearchState state = states.get();
+		state.reset(n);
+		state.relax(source, 0, -1);
+		if (!lazyInsertion){
+			for (int id = 0; id < n; id++){
+				if (id != source){
+					state.set(id, Double.POSITIVE_INFINITY, -1);
+					state.heap().insert(id, Double.POSITIVE_INFINITY);
+				}
+			}
+		}
+		return state;
+	}
+	
+	/*
+	 * Get the names of the vertices along a path.
+	 */
+	public String[] getNames(PathResult result){
+		String[] names = new String[result.length()];
+		for (int k = 0; k < names.length; k++){
+			names[k] = graph.getVertex(result.getVertex(k)).getName();
+		}
+		return names;
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * The shortest paths from one source to every vertex: a distance and
+ * a parent for each vertex id.  Unlike a SearchState it is a snapshot
+ * that never changes, so it can be kept and shared between threads.
+ */
+public final class ShortestPathTree {
+	private final int source;
+	private final double[] distance;
+	private final int[] parent;
+
+	public ShortestPathTree(int source, double[] distance, int[] parent){
+		this.source = source;
+		this.distance = distance;
+		this.parent = parent;
+	}
+
+	/*
+	 * Copy the finished search in state, which covers n vertices.
+	 */
+	static ShortestPathTree from(SearchState state, int source, int n){
+		double[] distance = new double[n];
+		int[] parent = new int[n];
+		for (int v = 0; v < n; v++){
+			distance[v] = state.getDistance(v);
+			parent[v] = state.getParent(v);
+		}
+		return new ShortestPathTree(source, distance, parent);
+	}
+
+	public int getSource(){
+		return source;
+	}
+
+	public int numVertices(){
+		return distance.length;
+	}
+
+	public double getDistance(int v){
+		return distance[v];
+	}
+
+	public int getParent(int v){
+		return parent[v];
+	}
+
+	public PathResult toPath(int target){
+		double dist = distance[target];
+		if (dist == Double.POSITIVE_INFINITY){
+			return new PathResult(source, target, dist, new int[0]);
+		}
+		int length = 1;
+		for (int v = target; v != source; v = parent[v]){
+			length++;
+		}
+		int[] path = new int[length];
+		for (int v = target, k = length - 1; k >= 0; v = parent[v], k--){
+			path[k] = v;
+		}
+		return new PathResult(source, target, dist, path);
+	}
+}
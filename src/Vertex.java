@@ -3,6 +3,9 @@
  * Each edge to other vertices is kept in the Vertex object as
  * an adjacency list.  A hashmap of weights is maintained if the 
  * graph is weighted.
+ * Each vertex also keeps the edges that lead to it, so in-degrees and 
+ * backward searches do not need to scan the whole graph.  Adding or
+ * removing an edge updates both ends.
  * 
  * @author sspurlock
  * @version 2019-10-21
@@ -12,10 +15,14 @@ import java.util.*;
 public class Vertex {
 	private String myName;
 	private HashMap<Vertex, Double> myEdges;
+	// The reverse of myEdges: every vertex with an edge to this one, 
+	// with the weight of that edge.
+	private HashMap<Vertex, Double> myIncoming;
 
 	public Vertex(String name){
 		myName = name;
 		myEdges = new HashMap<Vertex, Double>();
+		myIncoming = new HashMap<Vertex, Double>();
 	}
 
 	public String getName(){
@@ -24,15 +31,18 @@ public class Vertex {
 	
 	// If a vertex is added with no weight, assume its weight is 1.
 	public void addEdge(Vertex j){
-		myEdges.put(j,1.0);
+		addEdge(j, 1.0);
 	}
 
 	public void addEdge(Vertex j, Double weight){
 		myEdges.put(j, weight);
+		j.myIncoming.put(this, weight);
 	}
 	
 	public void removeEdge(Vertex j){
-		myEdges.remove(j);
+		if (myEdges.remove(j) != null){
+			j.myIncoming.remove(this);
+		}
 	}
 	
 	public boolean hasEdge(Vertex j){
@@ -49,4 +59,19 @@ public class Vertex {
 	public Collection<Vertex> getAdjacentVertices(){
 		return myEdges.keySet();
 	}
+	
+	// Each edge with its weight, so callers that need both avoid a 
+	// second lookup per edge.
+	public Set<Map.Entry<Vertex, Double>> getEdges(){
+		return myEdges.entrySet();
+	}
+	
+	// The vertices with an edge to this one.
+	public Collection<Vertex> getIncomingVertices(){
+		return myIncoming.keySet();
+	}
+	
+	public Set<Map.Entry<Vertex, Double>> getIncomingEdges(){
+		return myIncoming.entrySet();
+	}
 }
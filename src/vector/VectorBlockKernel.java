@@ -0,0 +1,58 @@
+/*
+ * The SIMD block kernel for FloydWarshall, on the jdk.incubator.vector
+ * API.  It sits apart from the other sources because it only compiles
+ * and runs with --add-modules jdk.incubator.vector; FloydWarshall loads
+ * it by name and keeps its scalar loops when it can't.
+ *
+ * For each vector's worth of row i it keeps d[i][j..] in a register
+ * and runs every pivot over it: add d[i][k] to d[k][j..], and take the
+ * lanes that come out smaller.  Alongside, a second vector remembers
+ * which pivot each lane took, so the next hops can be patched once at
+ * the end; blending an int vector under a double mask costs far more
+ * than the whole loop on JDK 17.
+ */
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+final class VectorBlockKernel implements FloydWarshall.BlockKernel {
+	private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+	public void relax(double[] dist, int[] next, int n, int rowStart, int rowEnd, int pivotStart, int pivotEnd,
+			int from, int to){
+		int width = DOUBLES.length();
+		int bound = from + DOUBLES.loopBound(to - from);
+		DoubleVector none = DoubleVector.broadcast(DOUBLES, -1);
+		double[] pivots = new double[width];
+		for (int i = rowStart; i < rowEnd; i++){
+			int rowI = i * n;
+			for (int j = from; j < bound; j += width){
+				DoubleVector best = DoubleVector.fromArray(DOUBLES, dist, rowI + j);
+				DoubleVector via = none;
+				// No skipping an infinite d[i][k]: a branch in this loop stops
+				// C2 from keeping the vectors in registers, and infinity
+				// never wins anyway.
+				for (int k = pivotStart; k < pivotEnd; k++){
+					DoubleVector through = DoubleVector.broadcast(DOUBLES, dist[rowI + k]);
+					DoubleVector candidate = DoubleVector.fromArray(DOUBLES, dist, k * n + j).add(through);
+					VectorMask<Double> better = candidate.lt(best);
+					best = best.blend(candidate, better);
+					via = via.blend(DoubleVector.broadcast(DOUBLES, k), better);
+				}
+				if (via.compare(VectorOperators.GE, 0).anyTrue()){
+					best.intoArray(dist, rowI + j);
+					via.intoArray(pivots, 0);
+					for (int lane = 0; lane < width; lane++){
+						if (pivots[lane] >= 0){
+							next[rowI + j + lane] = next[rowI + (int)pivots[lane]];
+						}
+					}
+				}
+			}
+		}
+		if (bound < to){
+			FloydWarshall.relaxScalar(dist, next, n, rowStart, rowEnd, pivotStart, pivotEnd, bound, to);
+		}
+	}
+}
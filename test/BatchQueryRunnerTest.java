@@ -0,0 +1,65 @@
+/*
+ * Runs BatchQueryRunner over a small query file on a four-vertex graph
+ * and checks the answer lines and what the statistics count.
+ */
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+public class BatchQueryRunnerTest {
+	private static final String QUERIES = String.join("\n",
+			"# source target",
+			"A C",
+			"A D",
+			"X A",
+			"",
+			"B C",
+			"A A",
+			"C Y");
+
+	// A -> B -> C is shorter than A -> C; D has no edges.
+	private static CsrGraph graph(){
+		return new CsrGraph.Builder(true, new String[] {"A", "B", "C", "D"})
+				.addEdge(0, 1, 1)
+				.addEdge(1, 2, 2)
+				.addEdge(0, 2, 5)
+				.build();
+	}
+
+	@Test
+	public void answersInQueryOrder() throws IOException{
+		for (int threads = 1; threads <= 3; threads++){
+			BatchQueryRunner runner = new BatchQueryRunner(graph(), threads);
+			StringWriter out = new StringWriter();
+			assertEquals(6, runner.run(new StringReader(QUERIES), new PrintWriter(out)));
+			assertArrayEquals(new String[] {
+					"A C 3.0 A::B::C",
+					"A D unreachable",
+					"X A unknown",
+					"B C 2.0 B::C",
+					"A A 0.0 A",
+					"C Y unknown"}, out.toString().split("\\R"));
+		}
+	}
+
+	@Test
+	public void leavesUnknownQueriesOutOfTheStatistics() throws IOException{
+		BatchQueryRunner runner = new BatchQueryRunner(graph(), 2);
+		runner.setPrintPaths(false);
+		StringWriter out = new StringWriter();
+		runner.run(new StringReader(QUERIES), new PrintWriter(out));
+		assertEquals("A C 3.0", out.toString().split("\\R")[0]);
+		assertEquals(4, runner.getAnsweredQueries());
+		assertEquals(2, runner.getUnknownQueries());
+		assertTrue(runner.getLatencyPercentile(50) > 0);
+		assertTrue(runner.getLatencyPercentile(100) >= runner.getLatencyPercentile(50));
+		assertTrue(runner.getQueriesPerSecond() > 0);
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Checks DeltaSteppingDijkstras against CsrDijkstras on random graphs
+ * for several deltas, a tiny one included, so most buckets between two
+ * distances are empty.  Weights are small whole numbers, zero included,
+ * so distances compare exactly and ties are common.  Parents may differ
+ * from Dijkstra's on ties, so each one is checked to be a tight edge
+ * and to lead back to the source.
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+@Timeout(60)
+public class DeltaSteppingDijkstrasTest {
+	private static final int SEEDS = 30;
+	private static final double[] DELTAS = {1e-9, 0.5, 1, 3, 100};
+
+	@Test
+	public void directedGraphsMatchDijkstra(){
+		for (int seed = 0; seed < SEEDS; seed++){
+			check(true, seed);
+		}
+	}
+
+	@Test
+	public void undirectedGraphsMatchDijkstra(){
+		for (int seed = 0; seed < SEEDS; seed++){
+			check(false, seed);
+		}
+	}
+
+	private static void check(boolean directed, int seed){
+		Random random = new Random(seed);
+		// Big enough for some frontiers to be split across threads.
+		int n = seed % 3 == 0 ? 2000 : 1 + random.nextInt(60);
+		CsrGraph.Builder builder = new CsrGraph.Builder(directed).ensureVertices(n);
+		for (int e = random.nextInt(4 * n); e > 0; e--){
+			builder.addEdge(random.nextInt(n), random.nextInt(n), random.nextInt(10));
+		}
+		CsrGraph graph = builder.build();
+		int source = random.nextInt(n);
+		CsrDijkstras dijkstras = new CsrDijkstras(graph);
+		dijkstras.run(source);
+		check(graph, source, dijkstras, new DeltaSteppingDijkstras(graph), "seed " + seed + ", picked delta");
+		for (double delta : DELTAS){
+			DeltaSteppingDijkstras stepping = new DeltaSteppingDijkstras(graph, ForkJoinPool.commonPool(), delta);
+			check(graph, source, dijkstras, stepping, "seed " + seed + ", delta " + delta);
+		}
+	}
+
+	// Every distance equals Dijkstra's, and every parent is the tail of
+	// a tight edge into the vertex, with the parents leading back to
+	// the source.
+	private static void check(CsrGraph graph, int source, CsrDijkstras dijkstras,
+			DeltaSteppingDijkstras stepping, String when){
+		stepping.run(source);
+		int n = graph.numVertices();
+		for (int v = 0; v < n; v++){
+			double expected = dijkstras.getDistance(v);
+			assertEquals(expected, stepping.getDistance(v), when + ": distance to " + v);
+			int p = stepping.getParent(v);
+			if (v == source || expected == Double.POSITIVE_INFINITY){
+				assertEquals(-1, p, when + ": parent of " + v);
+				continue;
+			}
+			assertTrue(p >= 0, when + ": " + v + " has no parent");
+			boolean tight = false;
+			for (int e = graph.edgeBegin(p), end = graph.edgeEnd(p); e < end; e++){
+				if (graph.target(e) == v && stepping.getDistance(p) + graph.weight(e) == expected){
+					tight = true;
+				}
+			}
+			assertTrue(tight, when + ": " + p + " to " + v + " is not a tight edge");
+			int steps = 0;
+			for (int u = v; u != source; u = stepping.getParent(u)){
+				assertTrue(++steps <= n, when + ": parents of " + v + " go round in a circle");
+			}
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Checks that DialQueue polls ids in key order and that a key outside
+ * the window is refused without disturbing the queue.
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class DialQueueTest {
+	@Test
+	public void badInsertLeavesTheQueueEmpty(){
+		DialQueue queue = new DialQueue(4, 3);
+		assertThrows(IllegalArgumentException.class, () -> queue.insertOrDecrease(0, 4));
+		assertTrue(queue.isEmpty());
+		queue.insertOrDecrease(0, 2);
+		assertEquals(0, queue.pollMin());
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void badDecreaseKeepsTheOldKey(){
+		DialQueue queue = new DialQueue(4, 3);
+		queue.insertOrDecrease(1, 1);
+		assertEquals(1, queue.pollMin());
+		queue.insertOrDecrease(2, 3);
+		queue.insertOrDecrease(3, 4);
+		assertThrows(IllegalArgumentException.class, () -> queue.insertOrDecrease(3, 0));
+		assertEquals(2, queue.pollMin());
+		assertEquals(3, queue.pollMin());
+		assertEquals(4, queue.lastKey());
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void pollsInKeyOrder(){
+		Random random = new Random(1);
+		int capacity = 200, maxStep = 7;
+		DialQueue queue = new DialQueue(capacity, maxStep);
+		long[] keys = new long[capacity];
+		boolean[] queued = new boolean[capacity];
+		int size = 0;
+		long last = 0;
+		for (int round = 0; round < 5000; round++){
+			int id = random.nextInt(capacity);
+			long key = last + random.nextInt(maxStep + 1);
+			if (!queued[id] || key < keys[id]){
+				size += queued[id] ? 0 : 1;
+				queued[id] = true;
+				keys[id] = key;
+			}
+			queue.insertOrDecrease(id, key);
+			if (random.nextInt(3) == 0){
+				int polled = queue.pollMin();
+				assertTrue(queued[polled]);
+				assertTrue(keys[polled] >= last);
+				for (int other = 0; other < capacity; other++){
+					assertTrue(!queued[other] || keys[other] >= keys[polled]);
+				}
+				last = keys[polled];
+				queued[polled] = false;
+				size--;
+			}
+			assertEquals(size == 0, queue.isEmpty());
+		}
+	}
+}
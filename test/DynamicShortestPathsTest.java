@@ -0,0 +1,145 @@
+/*
+ * Checks DynamicShortestPaths against a fresh CsrDijkstras run after
+ * every batch of random changes: edges added, removed and reweighted,
+ * vertices added and removed.  Weights are small whole numbers, zero
+ * included, so distances compare exactly and ties are common.  A
+ * cycle in the parents would hang toPath, hence the timeout.
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+@Timeout(60)
+public class DynamicShortestPathsTest {
+	private static final int SEEDS = 20;
+	private static final int BATCHES = 60;
+
+	@Test
+	public void directedGraphsMatchDijkstra(){
+		for (int seed = 0; seed < SEEDS; seed++){
+			check(true, seed);
+		}
+	}
+
+	@Test
+	public void undirectedGraphsMatchDijkstra(){
+		for (int seed = 0; seed < SEEDS; seed++){
+			check(false, seed);
+		}
+	}
+
+	@Test
+	public void repairsAfterEverySingleChange(){
+		for (int seed = 0; seed < SEEDS; seed++){
+			Random random = new Random(seed);
+			AdjListGraph graph = randomGraph(true, 30, 90, random);
+			Vertex source = graph.getVertex(0);
+			DynamicShortestPaths paths = new DynamicShortestPaths(graph, source);
+			for (int k = 0; k < BATCHES; k++){
+				change(graph, source, random);
+				assertMatches(graph, source, paths, "seed " + seed + ", change " + k);
+			}
+		}
+	}
+
+	private static void check(boolean directed, int seed){
+		Random random = new Random(seed);
+		AdjListGraph graph = randomGraph(directed, 40, 120, random);
+		Vertex source = graph.getVertex(random.nextInt(graph.numVertices()));
+		DynamicShortestPaths paths = new DynamicShortestPaths(graph, source);
+		assertMatches(graph, source, paths, "seed " + seed + ", initial");
+		for (int batch = 0; batch < BATCHES; batch++){
+			int changes = 1 + random.nextInt(8);
+			for (int k = 0; k < changes; k++){
+				change(graph, source, random);
+			}
+			assertMatches(graph, source, paths, "seed " + seed + ", batch " + batch);
+		}
+	}
+
+	private static AdjListGraph randomGraph(boolean directed, int n, int m, Random random){
+		AdjListGraph graph = new AdjListGraph(directed);
+		for (int v = 0; v < n; v++){
+			graph.addVertex(new DijkstraVertex("v" + v));
+		}
+		for (int e = 0; e < m; e++){
+			graph.addEdge(randomVertex(graph, random), randomVertex(graph, random), random.nextInt(10));
+		}
+		return graph;
+	}
+
+	// One random change, never to the source itself.
+	private static void change(AdjListGraph graph, Vertex source, Random random){
+		int kind = random.nextInt(10);
+		if (kind < 3){
+			graph.addEdge(randomVertex(graph, random), randomVertex(graph, random), random.nextInt(10));
+		}
+		else if (kind < 5){
+			Vertex from = randomVertex(graph, random);
+			Vertex to = randomNeighbour(from, random);
+			if (to != null){
+				graph.addEdge(from, to, random.nextInt(10));
+			}
+		}
+		else if (kind < 8){
+			Vertex from = randomVertex(graph, random);
+			Vertex to = randomNeighbour(from, random);
+			if (to != null){
+				graph.removeEdge(from, to);
+			}
+		}
+		else if (kind < 9){
+			Vertex added = graph.addVertex(new DijkstraVertex("added" + graph.getVersion()));
+			if (random.nextBoolean()){
+				graph.addEdge(randomVertex(graph, random), added, random.nextInt(10));
+			}
+		}
+		else if (graph.numVertices() > 2){
+			Vertex removed = randomVertex(graph, random);
+			if (removed != source){
+				graph.removeVertex(removed);
+			}
+		}
+	}
+
+	private static Vertex randomVertex(AdjListGraph graph, Random random){
+		return graph.getVertex(random.nextInt(graph.numVertices()));
+	}
+
+	private static Vertex randomNeighbour(Vertex v, Random random){
+		ArrayList<Vertex> neighbours = new ArrayList<Vertex>(v.getAdjacentVertices());
+		return neighbours.isEmpty() ? null : neighbours.get(random.nextInt(neighbours.size()));
+	}
+
+	// Every distance equals Dijkstra's, and every path runs from the
+	// source to its target over edges of the graph that add up to it.
+	private static void assertMatches(AdjListGraph graph, Vertex source, DynamicShortestPaths paths, String when){
+		int s = graph.indexOf(source);
+		CsrDijkstras dijkstras = new CsrDijkstras(CsrGraph.from(graph));
+		dijkstras.run(s);
+		for (int v = 0; v < graph.numVertices(); v++){
+			double expected = dijkstras.getDistance(v);
+			assertEquals(expected, paths.getDistance(v), when + ": distance to " + v);
+			PathResult path = paths.toPath(v);
+			if (expected == Double.POSITIVE_INFINITY){
+				assertEquals(0, path.length(), when + ": path to unreachable " + v);
+				continue;
+			}
+			assertEquals(s, path.getVertex(0), when + ": path to " + v + " starts at the source");
+			assertEquals(v, path.getVertex(path.length() - 1), when + ": path to " + v + " ends at it");
+			double length = 0;
+			for (int k = 1; k < path.length(); k++){
+				Vertex from = graph.getVertex(path.getVertex(k - 1));
+				Vertex to = graph.getVertex(path.getVertex(k));
+				assertTrue(graph.edgeExists(from, to), when + ": path to " + v + " uses a missing edge");
+				length += graph.getWeight(from, to);
+			}
+			assertEquals(expected, length, when + ": length of the path to " + v);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Checks FloydWarshall against CsrDijkstras from every source on random
+ * directed graphs, for several block sizes, and checks that every path
+ * follows edges of the graph and adds up to its distance.  Weights are
+ * small whole numbers, so distances compare exactly; with zero among
+ * them ties are common, which is what used to send the next hops round
+ * in circles.
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+@Timeout(60)
+public class FloydWarshallTest {
+	private static final int SEEDS = 200;
+	private static final int[] BLOCK_SIZES = {1, 2, 3, 5, FloydWarshall.DEFAULT_BLOCK_SIZE};
+
+	@Test
+	public void zeroWeightsMatchDijkstra(){
+		for (int seed = 0; seed < SEEDS; seed++){
+			check(seed, 0);
+		}
+	}
+
+	@Test
+	public void positiveWeightsMatchDijkstra(){
+		for (int seed = 0; seed < SEEDS; seed++){
+			check(seed, 1);
+		}
+	}
+
+	private static void check(int seed, int minWeight){
+		Random random = new Random(seed);
+		int n = 2 + random.nextInt(15);
+		CsrGraph.Builder builder = new CsrGraph.Builder(true).ensureVertices(n);
+		for (int e = 2 * n; e > 0; e--){
+			builder.addEdge(random.nextInt(n), random.nextInt(n), minWeight + random.nextInt(3));
+		}
+		CsrGraph graph = builder.build();
+		for (int blockSize : BLOCK_SIZES){
+			FloydWarshall paths = FloydWarshall.fromGraph(graph);
+			paths.setBlockSize(blockSize);
+			paths.run();
+			assertMatches(graph, paths, "seed " + seed + ", block size " + blockSize);
+		}
+	}
+
+	private static void assertMatches(CsrGraph graph, FloydWarshall paths, String when){
+		int n = graph.numVertices();
+		CsrDijkstras dijkstras = new CsrDijkstras(graph);
+		for (int s = 0; s < n; s++){
+			dijkstras.run(s);
+			for (int t = 0; t < n; t++){
+				double expected = dijkstras.getDistance(t);
+				assertEquals(expected, paths.getDistance(s, t), when + ": distance from " + s + " to " + t);
+				PathResult path = paths.toPath(s, t);
+				if (expected == Double.POSITIVE_INFINITY){
+					assertEquals(0, path.length(), when + ": path from " + s + " to unreachable " + t);
+					continue;
+				}
+				assertEquals(s, path.getVertex(0), when + ": path from " + s + " to " + t + " starts at " + s);
+				assertEquals(t, path.getVertex(path.length() - 1), when + ": path from " + s + " to " + t + " ends at " + t);
+				double length = 0;
+				for (int k = 1; k < path.length(); k++){
+					double weight = weight(graph, path.getVertex(k - 1), path.getVertex(k));
+					assertTrue(weight < Double.POSITIVE_INFINITY, when + ": path from " + s + " to " + t + " uses a missing edge");
+					length += weight;
+				}
+				assertEquals(expected, length, when + ": length of the path from " + s + " to " + t);
+			}
+		}
+	}
+
+	private static double weight(CsrGraph graph, int u, int v){
+		double weight = Double.POSITIVE_INFINITY;
+		for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++){
+			if (graph.target(e) == v){
+				weight = Math.min(weight, graph.weight(e));
+			}
+		}
+		return weight;
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Reads small matrix files through GraphMaker.  A row label is any
+ * token that is not a whole number, even one that starts with a digit
+ * or a sign.
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GraphMakerTest {
+	@TempDir
+	Path directory;
+
+	private String write(String name, String text) throws IOException{
+		return Files.writeString(directory.resolve(name), text).toString();
+	}
+
+	@Test
+	public void labelsMayStartLikeNumbers() throws IOException{
+		String file = write("labels.txt", "3\n1A -2B .3C\n1A 0 5 0\n-2B 0 0 2.5e0\n.3C 1 -1 0\n");
+		AdjListGraph graph = new GraphMaker().makeGraphFromFile(file);
+		assertEquals(3, graph.numVertices());
+		assertEquals(3, graph.numEdges());
+		assertEquals(5, graph.getWeight(graph.getVertex("1A"), graph.getVertex("-2B")));
+		assertEquals(2.5, graph.getWeight(graph.getVertex("-2B"), graph.getVertex(".3C")));
+		assertEquals(1, graph.getWeight(graph.getVertex(".3C"), graph.getVertex("1A")));
+
+		CsrGraph csr = new GraphMaker().makeCsrGraphFromFile(file);
+		assertEquals(3, csr.numVertices());
+		assertEquals(3, csr.numArcs());
+		assertEquals("-2B", csr.getName(1));
+	}
+
+	@Test
+	public void rejectsRowsLongerThanTheHeader() throws IOException{
+		String file = write("long.txt", "2\nA B\nA 0 1 7\nB 1 0\n");
+		NumberFormatException e = assertThrows(NumberFormatException.class,
+				() -> new GraphMaker().makeGraphFromFile(file));
+		assertEquals("File is not in the correct format", e.getMessage());
+	}
+}
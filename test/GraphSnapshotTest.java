@@ -0,0 +1,62 @@
+/*
+ * Writes graphs to snapshots and opens them again, checking that the
+ * mapped graph and its reverse hold the same names and edges.
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GraphSnapshotTest {
+	@TempDir
+	Path directory;
+
+	@Test
+	public void graphsWithoutArcs() throws IOException{
+		for (int n : new int[] {0, 1, 5, 20, 28}){
+			for (boolean directed : new boolean[] {true, false}){
+				roundTrip(new CsrGraph.Builder(directed).ensureVertices(n).build());
+			}
+		}
+	}
+
+	@Test
+	public void randomGraphs() throws IOException{
+		for (int seed = 0; seed < 20; seed++){
+			Random random = new Random(seed);
+			int n = 1 + random.nextInt(40);
+			CsrGraph.Builder builder = new CsrGraph.Builder(random.nextBoolean()).ensureVertices(n);
+			for (int e = random.nextInt(3 * n); e > 0; e--){
+				builder.addEdge(random.nextInt(n), random.nextInt(n), random.nextInt(100) / 4.0);
+			}
+			roundTrip(builder.build());
+		}
+	}
+
+	private void roundTrip(CsrGraph graph) throws IOException{
+		Path file = directory.resolve("graph.snap");
+		GraphSnapshot.write(graph, file);
+		MappedCsrGraph mapped = GraphSnapshot.open(file);
+		assertEquals(graph.isDirected(), mapped.isDirected());
+		assertSame(graph, mapped);
+		assertSame(graph.reverse(), mapped.reverse());
+	}
+
+	private static void assertSame(CompactGraph expected, CompactGraph actual){
+		assertEquals(expected.numVertices(), actual.numVertices());
+		assertEquals(expected.numArcs(), actual.numArcs());
+		for (int v = 0; v < expected.numVertices(); v++){
+			assertEquals(expected.getName(v), actual.getName(v));
+			assertEquals(expected.edgeBegin(v), actual.edgeBegin(v));
+			assertEquals(expected.edgeEnd(v), actual.edgeEnd(v));
+		}
+		for (int e = 0; e < expected.numArcs(); e++){
+			assertEquals(expected.target(e), actual.target(e));
+			assertEquals(expected.weight(e), actual.weight(e));
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Saves landmark tables and loads them back against the same graph,
+ * with no landmarks as well as several, checking that the loaded
+ * tables give the same landmarks and lower bounds.
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LandmarksTest {
+	@TempDir
+	Path directory;
+
+	@Test
+	public void noLandmarksRoundTrip() throws IOException{
+		for (boolean directed : new boolean[] {true, false}){
+			CsrGraph graph = randomGraph(directed, new Random(1));
+			roundTrip(graph, Landmarks.selectFarthest(graph, 0, 1));
+			roundTrip(graph, Landmarks.selectAvoid(graph, 0, 1));
+		}
+	}
+
+	@Test
+	public void landmarksRoundTrip() throws IOException{
+		for (int seed = 0; seed < 10; seed++){
+			CsrGraph graph = randomGraph(seed % 2 == 0, new Random(seed));
+			roundTrip(graph, Landmarks.selectFarthest(graph, 4, seed));
+			roundTrip(graph, Landmarks.selectAvoid(graph, 4, seed));
+		}
+	}
+
+	private static CsrGraph randomGraph(boolean directed, Random random){
+		int n = 1 + random.nextInt(30);
+		CsrGraph.Builder builder = new CsrGraph.Builder(directed).ensureVertices(n);
+		for (int e = random.nextInt(3 * n); e > 0; e--){
+			builder.addEdge(random.nextInt(n), random.nextInt(n), random.nextInt(10));
+		}
+		return builder.build();
+	}
+
+	private void roundTrip(CsrGraph graph, Landmarks landmarks) throws IOException{
+		assertEquals(graph.numVertices(), landmarks.numVertices());
+		String file = directory.resolve("landmarks.alt").toString();
+		landmarks.save(file);
+		Landmarks loaded = Landmarks.load(file, graph);
+		assertEquals(landmarks.numVertices(), loaded.numVertices());
+		assertEquals(landmarks.count(), loaded.count());
+		for (int k = 0; k < landmarks.count(); k++){
+			assertEquals(landmarks.getLandmark(k), loaded.getLandmark(k));
+		}
+		for (int v = 0; v < graph.numVertices(); v++){
+			for (int t = 0; t < graph.numVertices(); t++){
+				assertEquals(landmarks.lowerBound(v, t), loaded.lowerBound(v, t));
+			}
+		}
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Counts the edges of random graphs, self-loops included, in an
+ * AdjListGraph, its off-heap copy and the same graph mapped from a
+ * snapshot, against a count of the distinct vertex pairs added.
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class OffHeapGraphTest {
+	@TempDir
+	Path directory;
+
+	@Test
+	public void numEdgesCountsSelfLoopsOnce() throws IOException{
+		for (int seed = 0; seed < 40; seed++){
+			Random random = new Random(seed);
+			boolean directed = seed % 2 == 0;
+			int n = 1 + random.nextInt(20);
+			AdjListGraph graph = new AdjListGraph(directed);
+			for (int v = 0; v < n; v++){
+				graph.addVertex(new DijkstraVertex("v" + v));
+			}
+			Set<List<Integer>> pairs = new HashSet<List<Integer>>();
+			for (int e = random.nextInt(3 * n); e > 0; e--){
+				int i = random.nextInt(n);
+				int j = random.nextInt(4) == 0 ? i : random.nextInt(n);
+				graph.addEdge(graph.getVertex(i), graph.getVertex(j), random.nextInt(10));
+				pairs.add(directed ? List.of(i, j) : List.of(Math.min(i, j), Math.max(i, j)));
+			}
+			String when = "seed " + seed;
+			assertEquals(pairs.size(), graph.numEdges(), when + ": AdjListGraph");
+			assertEquals(pairs.size(), OffHeapGraph.copyOf(graph).numEdges(), when + ": copy");
+			Path file = directory.resolve("graph" + seed + ".snap");
+			GraphSnapshot.write(graph, file);
+			assertEquals(pairs.size(), OffHeapGraph.open(file).numEdges(), when + ": snapshot");
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Reads small files through ParallelGraphLoader and checks it against
+ * GraphMaker, which reads the same formats one line at a time.
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ParallelGraphLoaderTest {
+	@TempDir
+	Path directory;
+
+	private String write(String name, String text) throws IOException{
+		return Files.writeString(directory.resolve(name), text).toString();
+	}
+
+	@Test
+	public void labelsMayStartLikeNumbers() throws IOException{
+		String file = write("labels.txt", "3\n1A -2B .3C\n1A 0 5 0\n-2B 0 0 2.5e0\n.3C 1 -1 0\n");
+		CsrGraph graph = new ParallelGraphLoader().load(file);
+		assertEquals(3, graph.numVertices());
+		assertSameEdges(new GraphMaker().makeCsrGraphFromFile(file), graph);
+	}
+
+	@Test
+	public void rejectsRowsLongerThanTheHeader() throws IOException{
+		String file = write("long.txt", "2\nA B\nA 0 1 7\nB 1 0\n");
+		NumberFormatException e = assertThrows(NumberFormatException.class,
+				() -> new ParallelGraphLoader().load(file));
+		assertEquals("File is not in the correct format", e.getMessage());
+	}
+
+	@Test
+	public void repeatedEdgesKeepTheLastWeight() throws IOException{
+		String file = write("repeated.el", "# undirected\n0 1 5\n1 2 1\n1 0 3\n2 1 4\n0 1 2\n");
+		CsrGraph graph = new ParallelGraphLoader().load(file);
+		assertSameEdges(new GraphMaker().makeCsrGraphFromFile(file), graph);
+		assertEquals(4, graph.numArcs());
+	}
+
+	// Same vertices and the same weight on every edge; the order of each
+	// vertex's edges may differ.
+	private static void assertSameEdges(CsrGraph expected, CsrGraph actual){
+		assertEquals(expected.numVertices(), actual.numVertices());
+		assertEquals(expected.numArcs(), actual.numArcs());
+		assertEquals(expected.isDirected(), actual.isDirected());
+		for (int u = 0; u < expected.numVertices(); u++){
+			assertEquals(expected.getName(u), actual.getName(u));
+			assertEquals(expected.edgeEnd(u) - expected.edgeBegin(u), actual.edgeEnd(u) - actual.edgeBegin(u));
+			for (int e = expected.edgeBegin(u); e < expected.edgeEnd(u); e++){
+				int found = -1;
+				for (int f = actual.edgeBegin(u); f < actual.edgeEnd(u); f++){
+					if (actual.target(f) == expected.target(e)){
+						found = f;
+					}
+				}
+				assertEquals(expected.weight(e), found < 0 ? Double.NaN : actual.weight(found),
+						"weight of " + u + " -> " + expected.target(e));
+			}
+		}
+	}
+}